@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset author:job4j id:013
+CREATE INDEX film_sessions_start_time_idx ON film_sessions (start_time, id);
+CREATE INDEX film_sessions_film_id_start_time_idx ON film_sessions (film_id, start_time);
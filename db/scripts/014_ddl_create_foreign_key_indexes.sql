@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset author:job4j id:014
+CREATE INDEX tickets_user_id_idx ON tickets (user_id);
+CREATE INDEX film_sessions_halls_id_idx ON film_sessions (halls_id);
+CREATE INDEX films_genre_id_idx ON films (genre_id);
@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset author:job4j id:015
+ALTER TABLE files ADD COLUMN content_type VARCHAR NOT NULL DEFAULT 'application/octet-stream';
+UPDATE files SET content_type = 'image/jpeg' WHERE LOWER(name) LIKE '%.jpg' OR LOWER(name) LIKE '%.jpeg';
+UPDATE files SET content_type = 'image/png' WHERE LOWER(name) LIKE '%.png';
@@ -1,7 +1,11 @@
 package ru.job4j.cinema.configuration;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.apache.commons.dbcp2.BasicDataSource;
-import org.springframework.beans.factory.annotation.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.sql2o.Sql2o;
@@ -9,30 +13,124 @@ import org.sql2o.converters.Converter;
 import org.sql2o.converters.ConverterException;
 import org.sql2o.quirks.NoQuirks;
 import org.sql2o.quirks.Quirks;
+import ru.job4j.cinema.repository.MeteredDataSource;
+import ru.job4j.cinema.repository.UnitOfWork;
+import ru.job4j.cinema.repository.routing.RouteToBeanPostProcessor;
+import ru.job4j.cinema.repository.routing.RoutingConnectionSource;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
 
 @Configuration
+@EnableConfigurationProperties(DatasourceProperties.class)
 public class DatasourceConfiguration {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DatasourceConfiguration.class);
+
     @Bean
-    public DataSource connectionPool(@Value("${datasource.url}") String url,
-                                     @Value("${datasource.username}") String username,
-                                     @Value("${datasource.password}") String password) {
-        return new BasicDataSource() {
-            {
-                setUrl(url);
-                setUsername(username);
-                setPassword(password);
-            }
-        };
+    public DataSource connectionPool(DatasourceProperties properties) {
+        return pool(properties.getPool().getName(), properties.getUrl(), properties.getUsername(),
+                properties.getPassword(), properties.getPool());
+    }
+
+    @Bean
+    public UnitOfWork unitOfWork(DataSource dataSource) {
+        return new UnitOfWork(dataSource);
+    }
+
+    @Bean
+    public RoutingConnectionSource routingConnectionSource(UnitOfWork unitOfWork, DatasourceProperties properties) {
+        var replicas = new ArrayList<MeteredDataSource>();
+        for (var replica : properties.getReplicas()) {
+            replicas.add(pool(properties.getPool().getName() + "-replica-" + replicas.size(), replica.getUrl(),
+                    replica.getUsername(), replica.getPassword(), properties.getPool()));
+        }
+        return new RoutingConnectionSource(unitOfWork, replicas);
+    }
+
+    @Bean
+    public static RouteToBeanPostProcessor routeToBeanPostProcessor() {
+        return new RouteToBeanPostProcessor();
     }
 
     @Bean
-    public Sql2o databaseClient(DataSource dataSource) {
-        return new Sql2o(dataSource, createConverters());
+    public Sql2o databaseClient(DataSource dataSource, RoutingConnectionSource routingConnectionSource) {
+        var sql2o = new Sql2o(dataSource, createConverters());
+        sql2o.setConnectionSource(routingConnectionSource);
+        return sql2o;
+    }
+
+    private MeteredDataSource pool(String name, String url, String username, String password,
+                                   DatasourceProperties.Pool pool) {
+        var dataSource = pool.getType() == DatasourceProperties.PoolType.HIKARI
+                ? hikari(name, url, username, password, pool)
+                : dbcp(url, username, password, pool);
+        publish(dataSource, name);
+        return dataSource;
+    }
+
+    private MeteredDataSource dbcp(String url, String username, String password, DatasourceProperties.Pool pool) {
+        var dataSource = new BasicDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaxTotal(pool.getMaxSize());
+        dataSource.setMaxIdle(pool.getMaxSize());
+        dataSource.setMinIdle(pool.getMinIdle());
+        dataSource.setMaxWaitMillis(pool.getMaxWaitMillis());
+        dataSource.setValidationQuery(pool.getValidationQuery());
+        dataSource.setValidationQueryTimeout(pool.getValidationTimeoutSeconds());
+        dataSource.setTestOnBorrow(pool.isTestOnBorrow());
+        dataSource.setPoolPreparedStatements(pool.getStatementCacheSize() > 0);
+        dataSource.setMaxOpenPreparedStatements(pool.getStatementCacheSize());
+        dataSource.setMinEvictableIdleTimeMillis(pool.getIdleTimeoutMillis());
+        dataSource.setTimeBetweenEvictionRunsMillis(pool.getEvictionIntervalMillis());
+        dataSource.setMaxConnLifetimeMillis(pool.getMaxLifetimeMillis());
+        return new MeteredDataSource(dataSource, dataSource::getNumActive, dataSource::getNumIdle);
+    }
+
+    private MeteredDataSource hikari(String name, String url, String username, String password,
+                                     DatasourceProperties.Pool pool) {
+        var dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(pool.getMaxSize());
+        dataSource.setMinimumIdle(pool.getMinIdle());
+        dataSource.setConnectionTimeout(pool.getMaxWaitMillis());
+        dataSource.setConnectionTestQuery(pool.getValidationQuery());
+        dataSource.setValidationTimeout(TimeUnit.SECONDS.toMillis(pool.getValidationTimeoutSeconds()));
+        dataSource.setIdleTimeout(pool.getIdleTimeoutMillis());
+        dataSource.setMaxLifetime(pool.getMaxLifetimeMillis());
+        return new MeteredDataSource(dataSource,
+                () -> count(dataSource, HikariPoolMXBean::getActiveConnections),
+                () -> count(dataSource, HikariPoolMXBean::getIdleConnections));
+    }
+
+    private static int count(HikariDataSource dataSource, ToIntFunction<HikariPoolMXBean> connections) {
+        var pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : connections.applyAsInt(pool);
+    }
+
+    private void publish(MeteredDataSource dataSource, String poolName) {
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = new ObjectName("ru.job4j.cinema:type=ConnectionPool,name=" + poolName);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(dataSource, name);
+        } catch (JMException e) {
+            LOG.warn("Failed to publish connection pool metrics for {}", poolName, e);
+        }
     }
 
     private Quirks createConverters() {
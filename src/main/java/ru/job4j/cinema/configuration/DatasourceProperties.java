@@ -0,0 +1,201 @@
+package ru.job4j.cinema.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки подключения к базе и пула соединений (префикс datasource).
+ * Пул выбирается свойством datasource.pool.type: dbcp (по умолчанию) или hikari.
+ * Реплики для чтения (datasource.replicas[i].url и т.д.) получают пулы с теми же настройками.
+ */
+@ConfigurationProperties(prefix = "datasource")
+public class DatasourceProperties {
+
+    private String url;
+    private String username;
+    private String password;
+    private final Pool pool = new Pool();
+    private final List<Replica> replicas = new ArrayList<>();
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public enum PoolType {
+        DBCP,
+        HIKARI
+    }
+
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+
+    public static class Pool {
+
+        private PoolType type = PoolType.DBCP;
+        private String name = "cinema";
+        private int maxSize = 10;
+        private int minIdle = 2;
+        private long maxWaitMillis = 30_000;
+        private String validationQuery;
+        private int validationTimeoutSeconds = 5;
+        private boolean testOnBorrow = true;
+        private int statementCacheSize;
+        private long idleTimeoutMillis = 600_000;
+        private long evictionIntervalMillis = 30_000;
+        private long maxLifetimeMillis = 1_800_000;
+
+        public PoolType getType() {
+            return type;
+        }
+
+        public void setType(PoolType type) {
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public void setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        public String getValidationQuery() {
+            return validationQuery;
+        }
+
+        public void setValidationQuery(String validationQuery) {
+            this.validationQuery = validationQuery;
+        }
+
+        public int getValidationTimeoutSeconds() {
+            return validationTimeoutSeconds;
+        }
+
+        public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+            this.validationTimeoutSeconds = validationTimeoutSeconds;
+        }
+
+        public boolean isTestOnBorrow() {
+            return testOnBorrow;
+        }
+
+        public void setTestOnBorrow(boolean testOnBorrow) {
+            this.testOnBorrow = testOnBorrow;
+        }
+
+        public int getStatementCacheSize() {
+            return statementCacheSize;
+        }
+
+        public void setStatementCacheSize(int statementCacheSize) {
+            this.statementCacheSize = statementCacheSize;
+        }
+
+        public long getIdleTimeoutMillis() {
+            return idleTimeoutMillis;
+        }
+
+        public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+            this.idleTimeoutMillis = idleTimeoutMillis;
+        }
+
+        public long getEvictionIntervalMillis() {
+            return evictionIntervalMillis;
+        }
+
+        public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+            this.evictionIntervalMillis = evictionIntervalMillis;
+        }
+
+        public long getMaxLifetimeMillis() {
+            return maxLifetimeMillis;
+        }
+
+        public void setMaxLifetimeMillis(long maxLifetimeMillis) {
+            this.maxLifetimeMillis = maxLifetimeMillis;
+        }
+    }
+}
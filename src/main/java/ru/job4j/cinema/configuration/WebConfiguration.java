@@ -0,0 +1,35 @@
+package ru.job4j.cinema.configuration;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.job4j.cinema.repository.UnitOfWork;
+
+/**
+ * Возвращает соединение единицы работы в пул сразу после обработчика, до отрисовки представления:
+ * шаблону база не нужна, и рендеринг не должен держать соединение из пула.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    private final UnitOfWork unitOfWork;
+
+    public WebConfiguration(UnitOfWork unitOfWork) {
+        this.unitOfWork = unitOfWork;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                   ModelAndView modelAndView) {
+                unitOfWork.release();
+            }
+        });
+    }
+}
@@ -1,22 +1,39 @@
 package ru.job4j.cinema.controller;
 
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
-import ru.job4j.cinema.dto.FileDto;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.job4j.cinema.dto.StoredFile;
 import ru.job4j.cinema.service.file.FileService;
 
-import java.io.ByteArrayInputStream;
-import java.util.Optional;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Отдаёт файлы прямо с диска: через sendfile контейнера, если он его поддерживает,
+ * иначе через FileChannel.transferTo. Поддерживает один диапазон Range (с If-Range)
+ * и условные запросы If-None-Match / If-Modified-Since. Загруженные файлы не перезаписываются,
+ * поэтому кэшируются браузером надолго.
+ */
 @Controller
 @RequestMapping("/files")
 public class FileController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+
     private final FileService fileService;
 
     public FileController(FileService fileService) {
@@ -24,17 +41,101 @@ public class FileController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<InputStreamResource> getFile(@PathVariable int id) {
-        Optional<FileDto> fileDto = fileService.getFileById(id);
-        if (fileDto.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-        var content = fileDto.get().getContent();
-        var inputStream = new ByteArrayInputStream(content);
-        var resource = new InputStreamResource(inputStream);
-        return ResponseEntity.ok()
-                .contentLength(content.length)
-                .contentType(MediaType.IMAGE_JPEG)
-                .body(resource);
+    public void getFile(@PathVariable int id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var storedFile = fileService.findStoredFile(id);
+        if (storedFile.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        var file = storedFile.get();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(file.getEtag(), file.getLastModifiedMillis())) {
+            return;
+        }
+        var range = requestedRange(request, file);
+        if (range == null) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.getSize());
+            return;
+        }
+        if (range.length != file.getSize()) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + range.start + "-" + (range.start + range.length - 1) + "/" + file.getSize());
+        }
+        response.setContentType(file.getContentType());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentLengthLong(range.length);
+        if (!"HEAD".equals(request.getMethod()) && range.length > 0) {
+            transfer(file, range, request, response);
+        }
+    }
+
+    private static void transfer(StoredFile file, ByteRange range, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getPath().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, range.start);
+            request.setAttribute(SENDFILE_END, range.start + range.length);
+            return;
+        }
+        try (var channel = FileChannel.open(file.getPath(), StandardOpenOption.READ)) {
+            var out = Channels.newChannel(response.getOutputStream());
+            long position = range.start;
+            long end = range.start + range.length;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * Весь файл, если Range нет, он составной, некорректный или If-Range не совпал с ETag;
+     * null, если диапазон начинается за концом файла.
+     */
+    private static ByteRange requestedRange(HttpServletRequest request, StoredFile file) {
+        var full = new ByteRange(0, file.getSize());
+        var header = request.getHeader(HttpHeaders.RANGE);
+        var ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (header == null || !header.startsWith("bytes=") || header.contains(",")
+                || ifRange != null && !ifRange.equals(file.getEtag())) {
+            return full;
+        }
+        var spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        try {
+            var first = spec.substring(0, Math.max(dash, 0)).trim();
+            var last = spec.substring(dash + 1).trim();
+            if (dash < 0 || first.isEmpty() && last.isEmpty()) {
+                return full;
+            }
+            if (first.isEmpty()) {
+                long suffix = Math.min(Long.parseLong(last), file.getSize());
+                return suffix == 0 ? null : new ByteRange(file.getSize() - suffix, suffix);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? file.getSize() - 1 : Math.min(Long.parseLong(last), file.getSize() - 1);
+            if (!last.isEmpty() && Long.parseLong(last) < start) {
+                return full;
+            }
+            return start >= file.getSize() ? null : new ByteRange(start, end - start + 1);
+        } catch (NumberFormatException e) {
+            return full;
+        }
+    }
+
+    private static final class ByteRange {
+        private final long start;
+        private final long length;
+
+        private ByteRange(long start, long length) {
+            this.start = start;
+            this.length = length;
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package ru.job4j.cinema.controller;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import ru.job4j.cinema.dto.KeysetPage;
 import ru.job4j.cinema.service.film.FilmService;
 
 @Controller
@@ -16,8 +17,10 @@ public class FilmController {
     }
 
     @GetMapping
-    public String getAll(Model model) {
-        model.addAttribute("films", filmService.findAll());
+    public String getAll(Model model, @RequestParam(defaultValue = "0") int afterId) {
+        var page = filmService.findPage(afterId, KeysetPage.DEFAULT_LIMIT);
+        model.addAttribute("films", page.getItems());
+        model.addAttribute("page", page);
         return "films/list";
     }
 
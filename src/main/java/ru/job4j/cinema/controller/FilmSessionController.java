@@ -1,10 +1,14 @@
 package ru.job4j.cinema.controller;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import ru.job4j.cinema.dto.KeysetPage;
 import ru.job4j.cinema.service.session.FilmSessionService;
 
+import java.time.LocalDateTime;
+
 @Controller
 @RequestMapping("/sessions")
 public class FilmSessionController {
@@ -16,8 +20,14 @@ public class FilmSessionController {
     }
 
     @GetMapping
-    public String getAll(Model model) {
-        model.addAttribute("sessions", filmSessionService.findAll());
+    public String getAll(Model model,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterStart,
+                         @RequestParam(defaultValue = "0") int afterId) {
+        var page = filmSessionService.findPage(afterStart, afterId, KeysetPage.DEFAULT_LIMIT);
+        var sessions = page.getItems();
+        model.addAttribute("sessions", sessions);
+        model.addAttribute("page", page);
+        model.addAttribute("freeSeats", filmSessionService.findFreeSeatCounts(sessions));
         return "sessions/list";
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package ru.job4j.cinema.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.service.admission.AdmissionService;
+
+@Controller
+@RequestMapping("/queue")
+public class QueueController {
+
+    private final AdmissionService admissionService;
+    private final int pollSeconds;
+
+    public QueueController(AdmissionService admissionService,
+                           @Value("${app.admission.poll-seconds:5}") int pollSeconds) {
+        this.admissionService = admissionService;
+        this.pollSeconds = pollSeconds;
+    }
+
+    @GetMapping
+    public String showQueue(@RequestParam int sessionId, Model model, HttpServletRequest request) {
+        var user = (User) request.getSession().getAttribute("user");
+        var status = admissionService.admit(sessionId, user.getId());
+        if (status.isAdmitted()) {
+            return "redirect:/tickets/buy?sessionId=" + sessionId;
+        }
+        model.addAttribute("sessionId", sessionId);
+        model.addAttribute("position", status.getPosition());
+        model.addAttribute("pollSeconds", pollSeconds);
+        return "queue/wait";
+    }
+}
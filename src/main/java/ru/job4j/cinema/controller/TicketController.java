@@ -1,18 +1,21 @@
 package ru.job4j.cinema.controller;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import ru.job4j.cinema.dto.KeysetPage;
+import ru.job4j.cinema.dto.ReservationStatus;
+import ru.job4j.cinema.dto.SeatMap;
 import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.service.admission.AdmissionService;
 import ru.job4j.cinema.service.film.FilmService;
 import ru.job4j.cinema.service.session.FilmSessionService;
 import ru.job4j.cinema.service.hall.HallService;
 import ru.job4j.cinema.service.ticket.TicketService;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.LocalDateTime;
 
 @Controller
 @RequestMapping("/tickets")
@@ -22,12 +25,15 @@ public class TicketController {
     private final FilmSessionService filmSessionService;
     private final FilmService filmService;
     private final HallService hallService;
+    private final AdmissionService admissionService;
 
-    public TicketController(TicketService ticketService, FilmSessionService filmSessionService, FilmService filmService, HallService hallService) {
+    public TicketController(TicketService ticketService, FilmSessionService filmSessionService, FilmService filmService,
+                            HallService hallService, AdmissionService admissionService) {
         this.ticketService = ticketService;
         this.filmSessionService = filmSessionService;
         this.filmService = filmService;
         this.hallService = hallService;
+        this.admissionService = admissionService;
     }
 
     @GetMapping("/buy")
@@ -36,71 +42,103 @@ public class TicketController {
 
         var film = filmService.findById(session.getFilmId()).orElseThrow(() -> new RuntimeException("Film not found"));
         var hall = hallService.findById(session.getHallId()).orElseThrow(() -> new RuntimeException("Hall not found"));
+        var seatMap = ticketService.findSeatMap(sessionId)
+                .orElseGet(() -> SeatMap.empty(hall.getRowCount(), hall.getPlaceCount()));
 
         model.addAttribute("filmSession", session);
         model.addAttribute("film", film);
         model.addAttribute("hall", hall);
+        model.addAttribute("seatMap", seatMap);
 
         return "tickets/buy";
     }
 
+    @PostMapping("/hold")
+    public String holdSeat(@RequestParam int sessionId, @RequestParam int rowNumber, @RequestParam int placeNumber,
+                           Model model, HttpServletRequest request) {
+        var user = (User) request.getSession().getAttribute("user");
+
+        var filmSession = filmSessionService.findById(sessionId);
+        if (filmSession.isEmpty()) {
+            model.addAttribute("message", "Сеанс не найден");
+            return "tickets/error";
+        }
+
+        var film = filmService.findById(filmSession.get().getFilmId());
+        if (film.isEmpty()) {
+            model.addAttribute("message", "Фильм не найден");
+            return "tickets/error";
+        }
+
+        var hold = ticketService.holdSeat(sessionId, rowNumber, placeNumber, user.getId());
+        if (hold.isEmpty()) {
+            model.addAttribute("message", "Не удалось выбрать место. Вероятно оно уже занято или удерживается другим покупателем.");
+            return "tickets/error";
+        }
+        model.addAttribute("hold", hold.get());
+        model.addAttribute("filmSession", filmSession.get());
+        model.addAttribute("film", film.get());
+        return "tickets/confirm";
+    }
+
     @PostMapping("/buy")
     public String buyTicket(@RequestParam int sessionId, @RequestParam int rowNumber, @RequestParam int placeNumber,
                             Model model, HttpServletRequest request) {
         var session = request.getSession();
         var user = (User) session.getAttribute("user");
 
+        if (filmSessionService.isSoldOut(sessionId)) {
+            model.addAttribute("message", "Все билеты на этот сеанс проданы");
+            return "tickets/error";
+        }
+
         var filmSession = filmSessionService.findById(sessionId);
         if (filmSession.isEmpty()) {
             model.addAttribute("message", "Сеанс не найден");
             return "tickets/error";
         }
 
-        var film = filmService.findById(filmSession.get().getFilmId());
-        if (film.isEmpty()) {
+        var film = filmSession.get().getFilm();
+        if (film == null) {
             model.addAttribute("message", "Фильм не найден");
             return "tickets/error";
         }
 
-        var isReserved = ticketService.reserveTicket(sessionId, rowNumber, placeNumber, user.getId());
-        if (isReserved) {
+        var status = ticketService.reserveTicketAsync(sessionId, rowNumber, placeNumber, user.getId()).join();
+        if (status == ReservationStatus.RESERVED) {
+            admissionService.release(sessionId, user.getId());
             model.addAttribute("placeNumber", placeNumber);
             model.addAttribute("rowNumber", rowNumber);
             model.addAttribute("filmSession", filmSession.get());
-            model.addAttribute("film", film.get());
+            model.addAttribute("film", film);
 
             return "tickets/success";
-        } else {
-            model.addAttribute("message", "Не удалось приобрести билет на заданное место. Вероятно оно уже занято.");
-            return "tickets/error";
         }
+        model.addAttribute("message", switch (status) {
+            case SESSION_NOT_FOUND -> "Сеанс не найден";
+            case OUT_OF_HALL_BOUNDS -> "Указанного места нет в зале";
+            default -> "Не удалось приобрести билет на заданное место. Вероятно оно уже занято.";
+        });
+        return "tickets/error";
+    }
+
+    @GetMapping("/leave")
+    public String leaveCheckout(@RequestParam int sessionId, HttpServletRequest request) {
+        var user = (User) request.getSession().getAttribute("user");
+        admissionService.release(sessionId, user.getId());
+        return "redirect:/sessions";
     }
 
     @GetMapping("/mine")
-    public String getUserTickets(Model model, HttpServletRequest request) {
+    public String getUserTickets(Model model, HttpServletRequest request,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeStart,
+                                 @RequestParam(defaultValue = "0") int beforeId) {
         var session = request.getSession();
         var user = (User) session.getAttribute("user");
 
-        var tickets = ticketService.findByUserId(user.getId());
-        var ticketsWithDetails = new ArrayList<Map<String, Object>>();
-
-        for (var ticket : tickets) {
-            var sessionOptional = filmSessionService.findById(ticket.getSessionId());
-            if (sessionOptional.isPresent()) {
-                var filmSession = sessionOptional.get();
-                var filmOptional = filmService.findById(filmSession.getFilmId());
-                if (filmOptional.isPresent()) {
-                    var film = filmOptional.get();
-                    var map = new HashMap<String, Object>();
-                    map.put("ticket", ticket);
-                    map.put("film", film);
-                    map.put("session", filmSession);
-                    ticketsWithDetails.add(map);
-                }
-            }
-        }
-
-        model.addAttribute("tickets", ticketsWithDetails);
+        var page = ticketService.findTicketsWithDetailsPage(user.getId(), beforeStart, beforeId, KeysetPage.DEFAULT_LIMIT);
+        model.addAttribute("tickets", page.getItems());
+        model.addAttribute("page", page);
         return "tickets/mine";
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package ru.job4j.cinema.dto;
+
+public class AdmissionStatus {
+
+    private static final AdmissionStatus ADMITTED = new AdmissionStatus(true, 0);
+
+    private final boolean admitted;
+    private final long position;
+
+    private AdmissionStatus(boolean admitted, long position) {
+        this.admitted = admitted;
+        this.position = position;
+    }
+
+    public static AdmissionStatus admitted() {
+        return ADMITTED;
+    }
+
+    public static AdmissionStatus waiting(long position) {
+        return new AdmissionStatus(false, position);
+    }
+
+    public boolean isAdmitted() {
+        return admitted;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.job4j.cinema.dto;
+
+import ru.job4j.cinema.model.Seat;
+
+import java.util.List;
+
+public class GroupReservationResult {
+
+    private final ReservationStatus status;
+    private final List<Seat> seats;
+    private final List<Seat> conflicts;
+
+    private GroupReservationResult(ReservationStatus status, List<Seat> seats, List<Seat> conflicts) {
+        this.status = status;
+        this.seats = List.copyOf(seats);
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    public static GroupReservationResult reserved(List<Seat> seats) {
+        return new GroupReservationResult(ReservationStatus.RESERVED, seats, List.of());
+    }
+
+    public static GroupReservationResult conflicted(List<Seat> seats, List<Seat> conflicts) {
+        return new GroupReservationResult(ReservationStatus.SEAT_TAKEN, seats, conflicts);
+    }
+
+    public static GroupReservationResult outOfHallBounds(List<Seat> seats, List<Seat> invalid) {
+        return new GroupReservationResult(ReservationStatus.OUT_OF_HALL_BOUNDS, seats, invalid);
+    }
+
+    public static GroupReservationResult sessionNotFound(List<Seat> seats) {
+        return new GroupReservationResult(ReservationStatus.SESSION_NOT_FOUND, seats, seats);
+    }
+
+    public boolean isReserved() {
+        return status == ReservationStatus.RESERVED;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public List<Seat> getSeats() {
+        return seats;
+    }
+
+    public List<Seat> getConflicts() {
+        return conflicts;
+    }
+}
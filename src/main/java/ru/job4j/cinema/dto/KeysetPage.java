@@ -0,0 +1,38 @@
+package ru.job4j.cinema.dto;
+
+import java.util.List;
+
+public class KeysetPage<T> {
+
+    public static final int DEFAULT_LIMIT = 20;
+
+    private final List<T> items;
+    private final boolean hasNext;
+
+    private KeysetPage(List<T> items, boolean hasNext) {
+        this.items = List.copyOf(items);
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Строит страницу из выборки, запрошенной с лимитом limit + 1:
+     * лишняя строка только сообщает, что следующая страница есть, и в страницу не попадает.
+     */
+    public static <T> KeysetPage<T> of(List<T> fetched, int limit) {
+        return fetched.size() > limit
+                ? new KeysetPage<>(fetched.subList(0, limit), true)
+                : new KeysetPage<>(fetched, false);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public T getLast() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+}
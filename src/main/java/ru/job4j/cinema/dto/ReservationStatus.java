@@ -0,0 +1,8 @@
+package ru.job4j.cinema.dto;
+
+public enum ReservationStatus {
+    RESERVED,
+    SEAT_TAKEN,
+    SESSION_NOT_FOUND,
+    OUT_OF_HALL_BOUNDS
+}
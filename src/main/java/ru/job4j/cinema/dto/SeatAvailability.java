@@ -0,0 +1,65 @@
+package ru.job4j.cinema.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class SeatAvailability {
+
+    public static final Map<String, String> COLUMN_MAPPING = Map.of(
+            "session_id", "sessionId",
+            "capacity", "capacity",
+            "sold", "sold",
+            "end_time", "endTime"
+    );
+
+    private int sessionId;
+    private int capacity;
+    private int sold;
+    private LocalDateTime endTime;
+
+    public SeatAvailability() {
+    }
+
+    public SeatAvailability(int sessionId, int capacity, int sold) {
+        this.sessionId = sessionId;
+        this.capacity = capacity;
+        this.sold = sold;
+    }
+
+    public SeatAvailability(int sessionId, int capacity, int sold, LocalDateTime endTime) {
+        this(sessionId, capacity, sold);
+        this.endTime = endTime;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(int sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getSold() {
+        return sold;
+    }
+
+    public void setSold(int sold) {
+        this.sold = sold;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.job4j.cinema.dto;
+
+import java.util.BitSet;
+
+public class SeatMap {
+
+    private final int rowCount;
+    private final int placeCount;
+    private final BitSet unavailable;
+
+    public SeatMap(int rowCount, int placeCount, BitSet unavailable) {
+        this.rowCount = rowCount;
+        this.placeCount = placeCount;
+        this.unavailable = (BitSet) unavailable.clone();
+    }
+
+    public static SeatMap empty(int rowCount, int placeCount) {
+        return new SeatMap(rowCount, placeCount, new BitSet());
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getPlaceCount() {
+        return placeCount;
+    }
+
+    public int getFreeCount() {
+        return rowCount * placeCount - unavailable.cardinality();
+    }
+
+    public boolean isAvailable(int rowNumber, int placeNumber) {
+        if (rowNumber < 1 || rowNumber > rowCount || placeNumber < 1 || placeNumber > placeCount) {
+            return false;
+        }
+        return !unavailable.get((rowNumber - 1) * placeCount + (placeNumber - 1));
+    }
+
+    public int nextAvailable(int rowNumber, int placeNumber) {
+        int base = (rowNumber - 1) * placeCount;
+        int index = unavailable.nextClearBit(base + Math.max(placeNumber, 1) - 1);
+        return Math.min(index - base, placeCount) + 1;
+    }
+
+    public int nextUnavailable(int rowNumber, int placeNumber) {
+        int base = (rowNumber - 1) * placeCount;
+        int index = unavailable.nextSetBit(base + Math.max(placeNumber, 1) - 1);
+        return index < 0 ? placeCount + 1 : Math.min(index - base, placeCount) + 1;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.job4j.cinema.dto;
+
+import java.nio.file.Path;
+
+/**
+ * Файл на диске без его содержимого: путь, тип, размер и время изменения.
+ * Содержимое отдаётся клиенту прямо из файла, не загружаясь в память.
+ */
+public class StoredFile {
+
+    private final int id;
+    private final Path path;
+    private final String contentType;
+    private final long size;
+    private final long lastModifiedMillis;
+
+    public StoredFile(int id, Path path, String contentType, long size, long lastModifiedMillis) {
+        this.id = id;
+        this.path = path;
+        this.contentType = contentType;
+        this.size = size;
+        this.lastModifiedMillis = lastModifiedMillis;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModifiedMillis() {
+        return lastModifiedMillis;
+    }
+
+    /**
+     * Сильный валидатор: меняется вместе с размером или временем изменения файла.
+     */
+    public String getEtag() {
+        return "\"" + id + "-" + Long.toHexString(size) + "-" + Long.toHexString(lastModifiedMillis) + "\"";
+    }
+}
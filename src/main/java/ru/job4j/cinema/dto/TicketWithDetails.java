@@ -1,41 +1,65 @@
 package ru.job4j.cinema.dto;
 
-import ru.job4j.cinema.model.Film;
-import ru.job4j.cinema.model.FilmSession;
-import ru.job4j.cinema.model.Ticket;
+import java.time.LocalDateTime;
 
-public class TicketWithDetails {
-    private Ticket ticket;
-    private FilmSession filmSession;
-    private Film film;
+public final class TicketWithDetails {
 
-    public TicketWithDetails(Ticket ticket, FilmSession filmSession, Film film) {
-        this.ticket = ticket;
-        this.filmSession = filmSession;
-        this.film = film;
+    private final int ticketId;
+    private final int sessionId;
+    private final int rowNumber;
+    private final int placeNumber;
+    private final LocalDateTime startTime;
+    private final int price;
+    private final String hallName;
+    private final String filmName;
+    private final String genreName;
+
+    public TicketWithDetails(int ticketId, int sessionId, int rowNumber, int placeNumber, LocalDateTime startTime,
+                             int price, String hallName, String filmName, String genreName) {
+        this.ticketId = ticketId;
+        this.sessionId = sessionId;
+        this.rowNumber = rowNumber;
+        this.placeNumber = placeNumber;
+        this.startTime = startTime;
+        this.price = price;
+        this.hallName = hallName;
+        this.filmName = filmName;
+        this.genreName = genreName;
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
     }
 
-    public Ticket getTicket() {
-        return ticket;
+    public int getPlaceNumber() {
+        return placeNumber;
     }
 
-    public void setTicket(Ticket ticket) {
-        this.ticket = ticket;
+    public LocalDateTime getStartTime() {
+        return startTime;
     }
 
-    public FilmSession getFilmSession() {
-        return filmSession;
+    public int getPrice() {
+        return price;
     }
 
-    public void setFilmSession(FilmSession filmSession) {
-        this.filmSession = filmSession;
+    public String getHallName() {
+        return hallName;
     }
 
-    public Film getFilm() {
-        return film;
+    public String getFilmName() {
+        return filmName;
     }
 
-    public void setFilm(Film film) {
-        this.film = film;
+    public String getGenreName() {
+        return genreName;
     }
 }
@@ -0,0 +1,52 @@
+package ru.job4j.cinema.filter;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.service.admission.AdmissionService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@Component
+@Order(3)
+public class AdmissionFilter extends HttpFilter {
+
+    private final AdmissionService admissionService;
+
+    public AdmissionFilter(AdmissionService admissionService) {
+        this.admissionService = admissionService;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        var uri = request.getRequestURI();
+        var sessionId = parseSessionId(request.getParameter("sessionId"));
+        var session = request.getSession(false);
+        var user = session != null ? (User) session.getAttribute("user") : null;
+
+        if (isQueuedResource(uri) && sessionId != null && user != null && admissionService.isEnabled(sessionId)
+                && !admissionService.admit(sessionId, user.getId()).isAdmitted()) {
+            response.sendRedirect(request.getContextPath() + "/queue?sessionId=" + sessionId);
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private boolean isQueuedResource(String uri) {
+        return uri.startsWith("/tickets/buy") || uri.startsWith("/tickets/hold");
+    }
+
+    private Integer parseSessionId(String value) {
+        try {
+            return value != null ? Integer.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
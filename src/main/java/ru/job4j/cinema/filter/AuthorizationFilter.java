@@ -48,6 +48,7 @@ public class AuthorizationFilter extends HttpFilter {
     }
 
     private boolean isProtectedResource(String uri) {
-        return uri.startsWith("/tickets/buy") || uri.startsWith("/tickets/mine");
+        return uri.startsWith("/tickets/buy") || uri.startsWith("/tickets/hold") || uri.startsWith("/tickets/mine")
+                || uri.startsWith("/tickets/leave") || uri.startsWith("/queue");
     }
 }
\ No newline at end of file
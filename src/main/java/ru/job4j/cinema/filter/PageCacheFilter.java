@@ -0,0 +1,145 @@
+package ru.job4j.cinema.filter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.repository.CatalogueVersion;
+import ru.job4j.cinema.repository.cache.BoundedCache;
+import ru.job4j.cinema.service.session.ScheduleCache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш готового HTML списков фильмов и сеансов вместе с общими фрагментами страницы.
+ * Ключ - адрес с параметрами и имя пользователя в навигации; у расписания к ним добавляется
+ * версия сеансов и свободных мест. Изменение расписания просто переводит запросы на новый ключ,
+ * и продажа билета не трогает закэшированные страницы фильмов.
+ * ETag - хэш тела страницы; совпавший If-None-Match получает 304 без рендеринга и обращений к базе.
+ * Срок жизни записи ограничивает устаревание при изменениях в базе в обход приложения.
+ */
+@Component
+@Order(5)
+public class PageCacheFilter extends HttpFilter {
+
+    private static final Set<String> CACHED_PAGES = Set.of("/films", "/sessions");
+
+    private final CatalogueVersion catalogueVersion;
+    private final ScheduleCache scheduleCache;
+    private final BoundedCache<String, Page> pages;
+
+    @Autowired
+    public PageCacheFilter(CatalogueVersion catalogueVersion, ScheduleCache scheduleCache,
+                           @Value("${app.page-cache.max-weight-bytes:8388608}") long maxWeightBytes,
+                           @Value("${app.page-cache.ttl-seconds:60}") long ttlSeconds) {
+        this(catalogueVersion, scheduleCache, maxWeightBytes, TimeUnit.SECONDS.toMillis(ttlSeconds), System::currentTimeMillis);
+    }
+
+    public PageCacheFilter(CatalogueVersion catalogueVersion, ScheduleCache scheduleCache,
+                           long maxWeightBytes, long ttlMillis, LongSupplier clock) {
+        this.catalogueVersion = catalogueVersion;
+        this.scheduleCache = scheduleCache;
+        this.pages = new BoundedCache<>(maxWeightBytes, ttlMillis, page -> page.body.length, clock);
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        var path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!"GET".equals(request.getMethod()) || !CACHED_PAGES.contains(path)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        var key = keyOf(request, path);
+        var cached = pages.getIfPresent(key);
+        if (cached.isPresent()) {
+            write(cached.get(), request, response);
+            return;
+        }
+        var wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || !isHtml(wrapper.getContentType())) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        var page = new Page(wrapper.getContentAsByteArray(), wrapper.getContentType());
+        pages.put(key, page);
+        write(page, request, response);
+    }
+
+    /**
+     * Первая страница расписания без курсора начинается с текущего момента,
+     * поэтому её ключ включает первый ещё не начавшийся сеанс.
+     */
+    private String keyOf(HttpServletRequest request, String path) {
+        var key = new StringBuilder(path).append('?').append(request.getQueryString())
+                .append('\n').append(userName(request));
+        if ("/sessions".equals(path)) {
+            key.append('\n').append(catalogueVersion.currentSchedule());
+        }
+        if ("/sessions".equals(path) && request.getParameter("afterStart") == null) {
+            var upcoming = scheduleCache.current().findUpcoming(LocalDateTime.now(), 1);
+            key.append('\n').append(upcoming.isEmpty() ? 0 : upcoming.get(0).getId());
+        }
+        return key.toString();
+    }
+
+    private static String userName(HttpServletRequest request) {
+        return request.getAttribute("user") instanceof User user ? user.getFullName() : "";
+    }
+
+    private static boolean isHtml(String contentType) {
+        return contentType != null && contentType.startsWith("text/html");
+    }
+
+    private static void write(Page page, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, page.etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.COOKIE);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), page.etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(page.contentType);
+        response.setContentLength(page.body.length);
+        response.getOutputStream().write(page.body);
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (var candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.trim();
+            if ("*".equals(tag) || etag.equals(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Page {
+        private final byte[] body;
+        private final String contentType;
+        private final String etag;
+
+        private Page(byte[] body, String contentType) {
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.job4j.cinema.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.repository.routing.RoutingContext;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Read-your-writes для реплик: после запроса, меняющего данные (не GET и не HEAD),
+ * все чтения этой HTTP-сессии ещё pinMillis идут на основную базу, пока реплика догоняет.
+ */
+@Component
+@Order(4)
+public class ReadYourWritesFilter extends HttpFilter {
+
+    static final String PRIMARY_UNTIL = "primaryUntil";
+
+    private final long pinMillis;
+
+    public ReadYourWritesFilter(@Value("${datasource.read-your-writes-millis:5000}") long pinMillis) {
+        this.pinMillis = pinMillis;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        var session = request.getSession(false);
+        if (session != null && session.getAttribute(PRIMARY_UNTIL) instanceof Long until
+                && until > System.currentTimeMillis()) {
+            RoutingContext.pinToPrimary();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RoutingContext.unpin();
+            markWrite(request);
+        }
+    }
+
+    private void markWrite(HttpServletRequest request) {
+        if (pinMillis <= 0 || "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+        var session = request.getSession(false);
+        if (session != null) {
+            session.setAttribute(PRIMARY_UNTIL, System.currentTimeMillis() + pinMillis);
+        }
+    }
+}
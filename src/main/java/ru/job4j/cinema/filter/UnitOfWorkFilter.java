@@ -0,0 +1,48 @@
+package ru.job4j.cinema.filter;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.repository.UnitOfWork;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Оборачивает запрос в единицу работы. Файлы и статика её не получают: они отдаются потоком
+ * и не должны держать соединение, взятое для поиска файла, всё время передачи.
+ */
+@Component
+@Order(0)
+public class UnitOfWorkFilter extends HttpFilter {
+
+    private final UnitOfWork unitOfWork;
+
+    public UnitOfWorkFilter(UnitOfWork unitOfWork) {
+        this.unitOfWork = unitOfWork;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (isStreamed(request.getRequestURI())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        unitOfWork.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            unitOfWork.end();
+        }
+    }
+
+    private boolean isStreamed(String uri) {
+        return uri.startsWith("/files")
+                || uri.startsWith("/css")
+                || uri.startsWith("/js")
+                || uri.startsWith("/images");
+    }
+}
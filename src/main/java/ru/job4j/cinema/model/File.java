@@ -8,12 +8,16 @@ public class File {
     public static final Map<String, String> COLUMN_MAPPING = Map.of(
             "id", "id",
             "name", "name",
-            "path", "path"
+            "path", "path",
+            "content_type", "contentType"
     );
 
+    public static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
     private int id;
     private String name;
     private String path;
+    private String contentType = DEFAULT_CONTENT_TYPE;
 
     public File() {
     }
@@ -24,6 +28,13 @@ public class File {
         this.path = path;
     }
 
+    public File(int id, String name, String path, String contentType) {
+        this.id = id;
+        this.name = name;
+        this.path = path;
+        this.contentType = contentType;
+    }
+
     public int getId() {
         return id;
     }
@@ -48,6 +59,14 @@ public class File {
         this.path = path;
     }
 
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
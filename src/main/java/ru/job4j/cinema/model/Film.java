@@ -1,45 +1,28 @@
 package ru.job4j.cinema.model;
 
-import java.util.Map;
+import net.jcip.annotations.Immutable;
+
 import java.util.Objects;
 
-public class Film {
-
-    public static final Map<String, String> COLUMN_MAPPING = Map.of(
-            "id", "id",
-            "name", "name",
-            "description", "description",
-            "release_year", "releaseYear",
-            "genre_id", "genreId",
-            "minimal_age", "minimalAge",
-            "duration_in_minutes", "durationInMinutes",
-            "file_id", "fileId"
-    );
-
-    private int id;
-    private String name;
-    private String description;
-    private int releaseYear;
-    private int genreId;
-    private int minimalAge;
-    private int durationInMinutes;
-    private int fileId;
-
-    private Genre genre;
-
-    public Film() {
-    }
+/**
+ * Фильм неизменяем: один и тот же экземпляр отдаётся из кэша фильмов многим запросам сразу.
+ */
+@Immutable
+public final class Film {
+
+    private final int id;
+    private final String name;
+    private final String description;
+    private final int releaseYear;
+    private final int genreId;
+    private final int minimalAge;
+    private final int durationInMinutes;
+    private final int fileId;
+    private final Genre genre;
 
     @SuppressWarnings("checkstyle:ParameterNumber")
     public Film(int id, String name, String description, int releaseYear, int genreId, int minimalAge, int durationInMinutes, int fileId) {
-        this.id = id;
-        this.name = name;
-        this.description = description;
-        this.releaseYear = releaseYear;
-        this.genreId = genreId;
-        this.minimalAge = minimalAge;
-        this.durationInMinutes = durationInMinutes;
-        this.fileId = fileId;
+        this(id, name, description, releaseYear, genreId, minimalAge, durationInMinutes, fileId, null);
     }
 
     @SuppressWarnings("checkstyle:ParameterNumber")
@@ -55,78 +38,46 @@ public class Film {
         this.genre = genre;
     }
 
-    public int getId() {
-        return id;
+    public Film withGenre(Genre genre) {
+        return new Film(id, name, description, releaseYear, genreId, minimalAge, durationInMinutes, fileId, genre);
     }
 
-    public void setId(int id) {
-        this.id = id;
+    public int getId() {
+        return id;
     }
 
     public String getName() {
         return name;
     }
 
-    public void setName(String name) {
-        this.name = name;
-    }
-
     public String getDescription() {
         return description;
     }
 
-    public void setDescription(String description) {
-        this.description = description;
-    }
-
     public int getReleaseYear() {
         return releaseYear;
     }
 
-    public void setReleaseYear(int releaseYear) {
-        this.releaseYear = releaseYear;
-    }
-
     public int getGenreId() {
         return genreId;
     }
 
-    public void setGenreId(int genreId) {
-        this.genreId = genreId;
-    }
-
     public int getMinimalAge() {
         return minimalAge;
     }
 
-    public void setMinimalAge(int minimalAge) {
-        this.minimalAge = minimalAge;
-    }
-
     public int getDurationInMinutes() {
         return durationInMinutes;
     }
 
-    public void setDurationInMinutes(int durationInMinutes) {
-        this.durationInMinutes = durationInMinutes;
-    }
-
     public int getFileId() {
         return fileId;
     }
 
-    public void setFileId(int fileId) {
-        this.fileId = fileId;
-    }
-
     public Genre getGenre() {
         return genre;
     }
 
-    public void setGenre(Genre genre) {
-        this.genre = genre;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -143,4 +94,4 @@ public class Film {
     public int hashCode() {
         return Objects.hash(id);
     }
-}
\ No newline at end of file
+}
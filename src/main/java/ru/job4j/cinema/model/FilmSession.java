@@ -1,42 +1,37 @@
 package ru.job4j.cinema.model;
 
+import net.jcip.annotations.Immutable;
+
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.Objects;
 
-public class FilmSession {
-
-    public static final Map<String, String> COLUMN_MAPPING = Map.of(
-            "id", "id",
-            "film_id", "filmId",
-            "halls_id", "hallId",
-            "start_time", "startTime",
-            "end_time", "endTime",
-            "price", "price"
-    );
+/**
+ * Сеанс неизменяем: один и тот же экземпляр отдаётся из снимка расписания многим запросам сразу.
+ */
+@Immutable
+public final class FilmSession {
 
-    private int id;
-    private int filmId;
-    private int hallId;
-    private LocalDateTime startTime;
-    private LocalDateTime endTime;
-    private Integer price;
+    private final int id;
+    private final int filmId;
+    private final int hallId;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+    private final int price;
 
-    private Film film;
-
-    public FilmSession() {
-    }
+    private final Film film;
+    private final String hallName;
 
     public FilmSession(int id, int filmId, int hallId, LocalDateTime startTime, LocalDateTime endTime, int price) {
-        this.id = id;
-        this.filmId = filmId;
-        this.hallId = hallId;
-        this.startTime = startTime;
-        this.endTime = endTime;
-        this.price = price;
+        this(id, filmId, hallId, startTime, endTime, price, null);
     }
 
     public FilmSession(int id, int filmId, int hallId, LocalDateTime startTime, LocalDateTime endTime, int price, Film film) {
+        this(id, filmId, hallId, startTime, endTime, price, film, null);
+    }
+
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    public FilmSession(int id, int filmId, int hallId, LocalDateTime startTime, LocalDateTime endTime, int price,
+                       Film film, String hallName) {
         this.id = id;
         this.filmId = filmId;
         this.hallId = hallId;
@@ -44,62 +39,43 @@ public class FilmSession {
         this.endTime = endTime;
         this.price = price;
         this.film = film;
+        this.hallName = hallName;
     }
 
-    public int getId() {
-        return id;
+    public FilmSession withFilm(Film film) {
+        return new FilmSession(id, filmId, hallId, startTime, endTime, price, film, hallName);
     }
 
-    public void setId(int id) {
-        this.id = id;
+    public int getId() {
+        return id;
     }
 
     public int getFilmId() {
         return filmId;
     }
 
-    public void setFilmId(int filmId) {
-        this.filmId = filmId;
-    }
-
     public int getHallId() {
         return hallId;
     }
 
-    public void setHallId(int hallId) {
-        this.hallId = hallId;
-    }
-
     public LocalDateTime getStartTime() {
         return startTime;
     }
 
-    public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
-    }
-
     public LocalDateTime getEndTime() {
         return endTime;
     }
 
-    public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
-    }
-
-    public Integer getPrice() {
+    public int getPrice() {
         return price;
     }
 
-    public void setPrice(Integer price) {
-        this.price = price;
-    }
-
     public Film getFilm() {
         return film;
     }
 
-    public void setFilm(Film film) {
-        this.film = film;
+    public String getHallName() {
+        return hallName;
     }
 
     @Override
@@ -118,4 +94,4 @@ public class FilmSession {
     public int hashCode() {
         return Objects.hash(id);
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,14 @@
 package ru.job4j.cinema.model;
 
-import java.util.Map;
-import java.util.Objects;
+import net.jcip.annotations.Immutable;
 
-public class Genre {
+import java.util.Objects;
 
-    public static final Map<String, String> COLUMN_MAPPING = Map.of(
-            "id", "id",
-            "name", "name"
-    );
+@Immutable
+public final class Genre {
 
-    private int id;
-    private String name;
-
-    public Genre() {
-    }
+    private final int id;
+    private final String name;
 
     public Genre(int id, String name) {
         this.id = id;
@@ -25,18 +19,10 @@ public class Genre {
         return id;
     }
 
-    public void setId(int id) {
-        this.id = id;
-    }
-
     public String getName() {
         return name;
     }
 
-    public void setName(String name) {
-        this.name = name;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -53,4 +39,4 @@ public class Genre {
     public int hashCode() {
         return Objects.hash(id);
     }
-}
\ No newline at end of file
+}
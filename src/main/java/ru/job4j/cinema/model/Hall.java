@@ -1,26 +1,17 @@
 package ru.job4j.cinema.model;
 
-import java.util.Map;
-import java.util.Objects;
+import net.jcip.annotations.Immutable;
 
-public class Hall {
+import java.util.Objects;
 
-    public static final Map<String, String> COLUMN_MAPPING = Map.of(
-            "id", "id",
-            "name", "name",
-            "row_count", "rowCount",
-            "place_count", "placeCount",
-            "description", "description"
-    );
+@Immutable
+public final class Hall {
 
-    private int id;
-    private String name;
-    private int rowCount;
-    private int placeCount;
-    private String description;
-
-    public Hall() {
-    }
+    private final int id;
+    private final String name;
+    private final int rowCount;
+    private final int placeCount;
+    private final String description;
 
     public Hall(int id, String name, int rowCount, int placeCount, String description) {
         this.id = id;
@@ -34,42 +25,22 @@ public class Hall {
         return id;
     }
 
-    public void setId(int id) {
-        this.id = id;
-    }
-
     public String getName() {
         return name;
     }
 
-    public void setName(String name) {
-        this.name = name;
-    }
-
     public int getRowCount() {
         return rowCount;
     }
 
-    public void setRowCount(int rowCount) {
-        this.rowCount = rowCount;
-    }
-
     public int getPlaceCount() {
         return placeCount;
     }
 
-    public void setPlaceCount(int placeCount) {
-        this.placeCount = placeCount;
-    }
-
     public String getDescription() {
         return description;
     }
 
-    public void setDescription(String description) {
-        this.description = description;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -86,4 +57,4 @@ public class Hall {
     public int hashCode() {
         return Objects.hash(id);
     }
-}
\ No newline at end of file
+}
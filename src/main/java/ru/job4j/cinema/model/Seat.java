@@ -0,0 +1,61 @@
+package ru.job4j.cinema.model;
+
+import java.util.Map;
+import java.util.Objects;
+
+public class Seat {
+
+    public static final Map<String, String> COLUMN_MAPPING = Map.of(
+            "row_number", "rowNumber",
+            "place_number", "placeNumber"
+    );
+
+    private int rowNumber;
+    private int placeNumber;
+
+    public Seat() {
+    }
+
+    public Seat(int rowNumber, int placeNumber) {
+        this.rowNumber = rowNumber;
+        this.placeNumber = placeNumber;
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public void setRowNumber(int rowNumber) {
+        this.rowNumber = rowNumber;
+    }
+
+    public int getPlaceNumber() {
+        return placeNumber;
+    }
+
+    public void setPlaceNumber(int placeNumber) {
+        this.placeNumber = placeNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Seat seat = (Seat) o;
+        return rowNumber == seat.rowNumber && placeNumber == seat.placeNumber;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rowNumber, placeNumber);
+    }
+
+    @Override
+    public String toString() {
+        return rowNumber + "-" + placeNumber;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.job4j.cinema.repository;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версия расписания для ключей кэша готовых страниц: увеличивается при изменении сеансов
+ * и числа свободных мест. Страниц со списком фильмов она не касается, поэтому продажа билета
+ * их не сбрасывает; фильмы приложение не изменяет, и эти страницы устаревают по сроку жизни.
+ */
+@ThreadSafe
+@Component
+public class CatalogueVersion {
+
+    private final AtomicLong schedule = new AtomicLong();
+
+    public long currentSchedule() {
+        return schedule.get();
+    }
+
+    public void incrementSchedule() {
+        schedule.incrementAndGet();
+    }
+}
@@ -0,0 +1,18 @@
+package ru.job4j.cinema.repository;
+
+import java.util.Map;
+
+public interface ConnectionPoolMXBean {
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    int getPendingThreads();
+
+    long getWaitCount();
+
+    double getMeanWaitMillis();
+
+    Map<String, Long> getWaitHistogram();
+}
@@ -0,0 +1,128 @@
+package ru.job4j.cinema.repository;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Пул соединений с метриками. Число занятых и свободных соединений берётся у самого пула,
+ * а число потоков, ждущих соединения, и гистограмма времени ожидания getConnection()
+ * считаются здесь, одинаково для любой реализации пула. Публикуется как MXBean.
+ */
+@ThreadSafe
+public class MeteredDataSource extends DelegatingDataSource implements ConnectionPoolMXBean, AutoCloseable {
+
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1_000, 5_000};
+
+    private final IntSupplier active;
+    private final IntSupplier idle;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public MeteredDataSource(DataSource pool, IntSupplier active, IntSupplier idle) {
+        super(pool);
+        this.active = active;
+        this.idle = idle;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = begin();
+        try {
+            return super.getConnection();
+        } finally {
+            end(start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = begin();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            end(start);
+        }
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return active.getAsInt();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return idle.getAsInt();
+    }
+
+    @Override
+    public int getPendingThreads() {
+        return pending.get();
+    }
+
+    @Override
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    @Override
+    public double getMeanWaitMillis() {
+        long count = waitCount.sum();
+        return count == 0 ? 0D : waitNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public Map<String, Long> getWaitHistogram() {
+        var histogram = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            histogram.put("lt_" + BUCKET_BOUNDS_MILLIS[i] + "ms", buckets[i].sum());
+        }
+        histogram.put("lt_inf", buckets[BUCKET_BOUNDS_MILLIS.length].sum());
+        return histogram;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (getTargetDataSource() instanceof AutoCloseable pool) {
+            try {
+                pool.close();
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException("Failed to close connection pool", e);
+            }
+        }
+    }
+
+    private long begin() {
+        pending.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    private void end(long start) {
+        long nanos = System.nanoTime() - start;
+        pending.decrementAndGet();
+        waitCount.increment();
+        waitNanos.add(nanos);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MILLIS.length && millis >= BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+    }
+}
@@ -0,0 +1,213 @@
+package ru.job4j.cinema.repository;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sql2o.connectionsources.ConnectionSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Единица работы поверх пула соединений. Между begin() и end() все вызовы sql2o.open()
+ * в этом потоке получают одно соединение, которое берётся из пула при первом обращении
+ * и возвращается в end(); закрытие соединения репозиторием ничего не делает.
+ * inTransaction выполняет действие в одной транзакции этого соединения: вложенные вызовы
+ * присоединяются к внешней, commit репозитория внутри неё откладывается до её конца,
+ * а rollback помечает её на откат. Вне begin()/end() соединение берётся из пула на каждый open().
+ */
+@ThreadSafe
+public class UnitOfWork implements ConnectionSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UnitOfWork.class);
+
+    private final DataSource dataSource;
+    private final ThreadLocal<Scope> scopes = new ThreadLocal<>();
+
+    public UnitOfWork(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        var scope = scopes.get();
+        return scope == null ? dataSource.getConnection() : scope.borrow();
+    }
+
+    public void begin() {
+        var scope = scopes.get();
+        if (scope == null) {
+            scope = new Scope();
+            scopes.set(scope);
+        }
+        scope.depth++;
+    }
+
+    public void end() {
+        var scope = scopes.get();
+        if (scope == null) {
+            throw new IllegalStateException("No unit of work to end");
+        }
+        if (--scope.depth == 0) {
+            scopes.remove();
+            scope.release();
+        }
+    }
+
+    public <T> T inTransaction(Supplier<T> action) {
+        begin();
+        var scope = scopes.get();
+        if (scope.transactional) {
+            try {
+                return action.get();
+            } finally {
+                end();
+            }
+        }
+        scope.transactional = true;
+        try {
+            var result = action.get();
+            scope.complete(!scope.rollbackOnly);
+            return result;
+        } catch (RuntimeException | Error e) {
+            scope.complete(false);
+            throw e;
+        } finally {
+            scope.transactional = false;
+            scope.rollbackOnly = false;
+            end();
+        }
+    }
+
+    /**
+     * Возвращает соединение текущей единицы работы в пул, если она не в транзакции.
+     * Следующее обращение снова возьмёт соединение из пула.
+     */
+    public void release() {
+        var scope = scopes.get();
+        if (scope != null && !scope.transactional) {
+            scope.release();
+        }
+    }
+
+    public boolean isActive() {
+        return scopes.get() != null;
+    }
+
+    public boolean isTransactional() {
+        var scope = scopes.get();
+        return scope != null && scope.transactional;
+    }
+
+    private final class Scope {
+        private int depth;
+        private boolean transactional;
+        private boolean rollbackOnly;
+        private Connection connection;
+
+        private Connection borrow() throws SQLException {
+            if (connection == null) {
+                connection = dataSource.getConnection();
+            }
+            if (transactional && connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+            }
+            var handle = new Handle(this, connection);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> handle.invoke(method, args));
+        }
+
+        private void complete(boolean commit) {
+            if (connection == null) {
+                return;
+            }
+            try {
+                if (!connection.getAutoCommit()) {
+                    if (commit) {
+                        connection.commit();
+                    } else {
+                        connection.rollback();
+                    }
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                release();
+                throw new IllegalStateException("Failed to complete unit of work transaction", e);
+            }
+        }
+
+        private void release() {
+            if (connection == null) {
+                return;
+            }
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                LOG.warn("Failed to roll back unit of work connection", e);
+            }
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOG.warn("Failed to return unit of work connection to the pool", e);
+            }
+            connection = null;
+        }
+    }
+
+    /**
+     * Соединение, выданное одному sql2o.open(). Внутри транзакции единицы работы
+     * его autocommit, commit и rollback только отмечаются, как во вложенной транзакции.
+     */
+    private static final class Handle {
+        private final Scope scope;
+        private final Connection connection;
+        private boolean autoCommit = true;
+        private boolean committed;
+
+        private Handle(Scope scope, Connection connection) {
+            this.scope = scope;
+            this.connection = connection;
+        }
+
+        private Object invoke(Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName())) {
+                return null;
+            }
+            if (scope.transactional) {
+                switch (method.getName()) {
+                    case "setAutoCommit":
+                        autoCommit = (Boolean) args[0];
+                        return null;
+                    case "getAutoCommit":
+                        return autoCommit;
+                    case "commit":
+                        committed = true;
+                        return null;
+                    case "setTransactionIsolation":
+                        return null;
+                    case "rollback":
+                        if (args == null) {
+                            scope.rollbackOnly |= !committed;
+                            return null;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
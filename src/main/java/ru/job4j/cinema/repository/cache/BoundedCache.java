@@ -0,0 +1,165 @@
+package ru.job4j.cinema.repository.cache;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Ограниченный кэш с вытеснением давно не читанных записей (LRU) по суммарному весу,
+ * и сроком жизни записи. Одновременные промахи по одному ключу
+ * сводятся к одной загрузке: остальные потоки ждут её результат.
+ * Пустой результат загрузки не кэшируется. Значения должны быть неизменяемыми.
+ */
+@ThreadSafe
+public class BoundedCache<K, V> {
+
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+    private final LongSupplier clock;
+    private final Object lock = new Object();
+    @GuardedBy("lock")
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75F, true);
+    @GuardedBy("lock")
+    private long weight;
+    private final ConcurrentMap<K, Load<V>> loads = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BoundedCache(long maxWeight, long ttlMillis, ToLongFunction<V> weigher, LongSupplier clock) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        var cached = getIfPresent(key);
+        if (cached.isPresent()) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        var load = new Load<V>();
+        var running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            return running.await();
+        }
+        try {
+            var value = loader.apply(key);
+            value.ifPresent(v -> put(key, v));
+            load.future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    public Optional<V> getIfPresent(K key) {
+        long now = clock.getAsLong();
+        synchronized (lock) {
+            var entry = entries.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (entry.expiresAtMillis <= now) {
+                remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry.value);
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public long weight() {
+        synchronized (lock) {
+            return weight;
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public void put(K key, V value) {
+        long entryWeight = weigher.applyAsLong(value);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        var entry = new Entry<>(value, entryWeight, clock.getAsLong() + ttlMillis);
+        synchronized (lock) {
+            remove(key);
+            entries.put(key, entry);
+            weight += entryWeight;
+            evict();
+        }
+    }
+
+    @GuardedBy("lock")
+    private void remove(K key) {
+        var removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    @GuardedBy("lock")
+    private void evict() {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().getValue().weight;
+            eldest.remove();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expiresAtMillis;
+
+        private Entry(V value, long weight, long expiresAtMillis) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static final class Load<V> {
+        private final CompletableFuture<Optional<V>> future = new CompletableFuture<>();
+
+        private Optional<V> await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -19,12 +19,13 @@ public class Sql2oFileRepository implements FileRepository {
     public File save(File file) {
         try (var connection = sql2o.open()) {
             var sql = """
-                    INSERT INTO files(name, path)
-                    VALUES (:name, :path)
+                    INSERT INTO files(name, path, content_type)
+                    VALUES (:name, :path, :contentType)
                     """;
             var query = connection.createQuery(sql, true)
                     .addParameter("name", file.getName())
-                    .addParameter("path", file.getPath());
+                    .addParameter("path", file.getPath())
+                    .addParameter("contentType", file.getContentType());
             int generatedId = query.executeUpdate().getKey(Integer.class);
             file.setId(generatedId);
             return file;
@@ -0,0 +1,78 @@
+package ru.job4j.cinema.repository.film;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.job4j.cinema.model.Film;
+import ru.job4j.cinema.repository.cache.BoundedCache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэширует фильмы с жанром по id. Вес записи - примерный размер фильма в байтах,
+ * в основном его описание, так что лимит кэша задаётся объёмом памяти, а не числом фильмов.
+ * Приложение фильмы не изменяет, они меняются только в базе напрямую, поэтому явной инвалидации
+ * нет: устаревание ограничено сроком жизни записи ttl-seconds.
+ */
+@ThreadSafe
+@Primary
+@Repository
+public class CachedFilmRepository implements FilmRepository {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    private final FilmRepository filmRepository;
+    private final BoundedCache<Integer, Film> films;
+
+    @Autowired
+    public CachedFilmRepository(@Qualifier("sql2oFilmRepository") FilmRepository filmRepository,
+                                @Value("${app.cache.films.max-weight-bytes:4194304}") long maxWeightBytes,
+                                @Value("${app.cache.films.ttl-seconds:300}") long ttlSeconds) {
+        this(filmRepository, maxWeightBytes, TimeUnit.SECONDS.toMillis(ttlSeconds), System::currentTimeMillis);
+    }
+
+    public CachedFilmRepository(FilmRepository filmRepository, long maxWeightBytes, long ttlMillis, LongSupplier clock) {
+        this.filmRepository = filmRepository;
+        this.films = new BoundedCache<>(maxWeightBytes, ttlMillis, CachedFilmRepository::weigh, clock);
+    }
+
+    @Override
+    public Optional<Film> findById(int id) {
+        return filmRepository.findById(id);
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        return filmRepository.findAll();
+    }
+
+    @Override
+    public Optional<Film> findByIdWithGenre(int id) {
+        return films.get(id, filmRepository::findByIdWithGenre);
+    }
+
+    @Override
+    public Collection<Film> findAllWithGenre() {
+        return filmRepository.findAllWithGenre();
+    }
+
+    @Override
+    public List<Film> findPageWithGenre(int afterId, int limit) {
+        return filmRepository.findPageWithGenre(afterId, limit);
+    }
+
+    static long weigh(Film film) {
+        return ENTRY_OVERHEAD_BYTES + 2L * (length(film.getName()) + length(film.getDescription()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -3,6 +3,7 @@ package ru.job4j.cinema.repository.film;
 import ru.job4j.cinema.model.Film;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface FilmRepository {
@@ -10,4 +11,10 @@ public interface FilmRepository {
     Optional<Film> findById(int id);
 
     Collection<Film> findAll();
+
+    Optional<Film> findByIdWithGenre(int id);
+
+    Collection<Film> findAllWithGenre();
+
+    List<Film> findPageWithGenre(int afterId, int limit);
 }
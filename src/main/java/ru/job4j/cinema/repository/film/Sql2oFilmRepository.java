@@ -3,13 +3,26 @@ package ru.job4j.cinema.repository.film;
 import org.springframework.stereotype.Repository;
 import org.sql2o.Sql2o;
 import ru.job4j.cinema.model.Film;
+import ru.job4j.cinema.model.Genre;
+import ru.job4j.cinema.repository.routing.DataRoute;
+import ru.job4j.cinema.repository.routing.RouteTo;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
+@RouteTo(DataRoute.REPLICA)
 public class Sql2oFilmRepository implements FilmRepository {
 
+    private static final String FILM_WITH_GENRE_SQL = """
+            SELECT f.*, g.name AS genre_name
+            FROM films f
+            LEFT JOIN genres g ON g.id = f.genre_id
+            """;
+
     private final Sql2o sql2o;
 
     public Sql2oFilmRepository(Sql2o sql2o) {
@@ -21,8 +34,7 @@ public class Sql2oFilmRepository implements FilmRepository {
         try (var connection = sql2o.open()) {
             var query = connection.createQuery("SELECT * FROM films WHERE id = :id");
             query.addParameter("id", id);
-            var film = query.setColumnMappings(Film.COLUMN_MAPPING).executeAndFetchFirst(Film.class);
-            return Optional.ofNullable(film);
+            return query.executeAndFetch(this::mapRowToFilm).stream().findFirst();
         }
     }
 
@@ -30,7 +42,53 @@ public class Sql2oFilmRepository implements FilmRepository {
     public Collection<Film> findAll() {
         try (var connection = sql2o.open()) {
             var query = connection.createQuery("SELECT * FROM films");
-            return query.setColumnMappings(Film.COLUMN_MAPPING).executeAndFetch(Film.class);
+            return query.executeAndFetch(this::mapRowToFilm);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Optional<Film> findByIdWithGenre(int id) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(FILM_WITH_GENRE_SQL + "WHERE f.id = :id");
+            query.addParameter("id", id);
+            return query.executeAndFetch(this::mapRowToFilmWithGenre).stream().findFirst();
+        }
+    }
+
+    @Override
+    public Collection<Film> findAllWithGenre() {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(FILM_WITH_GENRE_SQL);
+            return query.executeAndFetch(this::mapRowToFilmWithGenre);
+        }
+    }
+
+    @Override
+    public List<Film> findPageWithGenre(int afterId, int limit) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(FILM_WITH_GENRE_SQL + "WHERE f.id > :afterId ORDER BY f.id LIMIT :limit");
+            query.addParameter("afterId", afterId);
+            query.addParameter("limit", limit);
+            return query.executeAndFetch(this::mapRowToFilmWithGenre);
+        }
+    }
+
+    private Film mapRowToFilmWithGenre(ResultSet rs) throws SQLException {
+        var film = mapRowToFilm(rs);
+        var genreName = rs.getString("genre_name");
+        return genreName == null ? film : film.withGenre(new Genre(film.getGenreId(), genreName));
+    }
+
+    private Film mapRowToFilm(ResultSet rs) throws SQLException {
+        return new Film(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getInt("release_year"),
+                rs.getInt("genre_id"),
+                rs.getInt("minimal_age"),
+                rs.getInt("duration_in_minutes"),
+                rs.getInt("file_id")
+        );
+    }
+}
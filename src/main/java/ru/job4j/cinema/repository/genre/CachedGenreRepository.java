@@ -0,0 +1,30 @@
+package ru.job4j.cinema.repository.genre;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.job4j.cinema.model.Genre;
+import ru.job4j.cinema.repository.reference.ReferenceDataCache;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Primary
+@Repository
+public class CachedGenreRepository implements GenreRepository {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    public CachedGenreRepository(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @Override
+    public Optional<Genre> findById(int id) {
+        return referenceDataCache.findGenre(id);
+    }
+
+    @Override
+    public Collection<Genre> findAll() {
+        return referenceDataCache.findAllGenres();
+    }
+}
@@ -2,9 +2,12 @@ package ru.job4j.cinema.repository.genre;
 
 import ru.job4j.cinema.model.Genre;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface GenreRepository {
 
     Optional<Genre> findById(int id);
+
+    Collection<Genre> findAll();
 }
\ No newline at end of file
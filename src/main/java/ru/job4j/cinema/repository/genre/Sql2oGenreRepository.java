@@ -3,10 +3,16 @@ package ru.job4j.cinema.repository.genre;
 import org.springframework.stereotype.Repository;
 import org.sql2o.Sql2o;
 import ru.job4j.cinema.model.Genre;
+import ru.job4j.cinema.repository.routing.DataRoute;
+import ru.job4j.cinema.repository.routing.RouteTo;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
+@RouteTo(DataRoute.REPLICA)
 public class Sql2oGenreRepository implements GenreRepository {
 
     private final Sql2o sql2o;
@@ -20,8 +26,19 @@ public class Sql2oGenreRepository implements GenreRepository {
         try (var connection = sql2o.open()) {
             var query = connection.createQuery("SELECT * FROM genres WHERE id = :id");
             query.addParameter("id", id);
-            var genre = query.setColumnMappings(Genre.COLUMN_MAPPING).executeAndFetchFirst(Genre.class);
-            return Optional.ofNullable(genre);
+            return query.executeAndFetch(this::mapRowToGenre).stream().findFirst();
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Collection<Genre> findAll() {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("SELECT * FROM genres ORDER BY id");
+            return query.executeAndFetch(this::mapRowToGenre);
+        }
+    }
+
+    private Genre mapRowToGenre(ResultSet rs) throws SQLException {
+        return new Genre(rs.getInt("id"), rs.getString("name"));
+    }
+}
@@ -0,0 +1,30 @@
+package ru.job4j.cinema.repository.hall;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.job4j.cinema.model.Hall;
+import ru.job4j.cinema.repository.reference.ReferenceDataCache;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Primary
+@Repository
+public class CachedHallRepository implements HallRepository {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    public CachedHallRepository(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @Override
+    public Optional<Hall> findById(int id) {
+        return referenceDataCache.findHall(id);
+    }
+
+    @Override
+    public Collection<Hall> findAll() {
+        return referenceDataCache.findAllHalls();
+    }
+}
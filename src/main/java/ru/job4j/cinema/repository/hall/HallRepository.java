@@ -2,9 +2,12 @@ package ru.job4j.cinema.repository.hall;
 
 import ru.job4j.cinema.model.Hall;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface HallRepository {
 
     Optional<Hall> findById(int id);
+
+    Collection<Hall> findAll();
 }
\ No newline at end of file
@@ -3,10 +3,16 @@ package ru.job4j.cinema.repository.hall;
 import org.springframework.stereotype.Repository;
 import org.sql2o.Sql2o;
 import ru.job4j.cinema.model.Hall;
+import ru.job4j.cinema.repository.routing.DataRoute;
+import ru.job4j.cinema.repository.routing.RouteTo;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
+@RouteTo(DataRoute.REPLICA)
 public class Sql2oHallRepository implements HallRepository {
 
     private final Sql2o sql2o;
@@ -20,8 +26,20 @@ public class Sql2oHallRepository implements HallRepository {
         try (var connection = sql2o.open()) {
             var query = connection.createQuery("SELECT * FROM halls WHERE id = :id");
             query.addParameter("id", id);
-            var hall = query.setColumnMappings(Hall.COLUMN_MAPPING).executeAndFetchFirst(Hall.class);
-            return Optional.ofNullable(hall);
+            return query.executeAndFetch(this::mapRowToHall).stream().findFirst();
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Collection<Hall> findAll() {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("SELECT * FROM halls ORDER BY id");
+            return query.executeAndFetch(this::mapRowToHall);
+        }
+    }
+
+    private Hall mapRowToHall(ResultSet rs) throws SQLException {
+        return new Hall(rs.getInt("id"), rs.getString("name"), rs.getInt("row_count"),
+                rs.getInt("place_count"), rs.getString("description"));
+    }
+}
@@ -0,0 +1,63 @@
+package ru.job4j.cinema.repository.reference;
+
+import net.jcip.annotations.Immutable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Неизменяемое отображение int -> V с открытой адресацией: ключи лежат в массиве int
+ * без упаковки, поиск - одно-два чтения массива. Значения отдаются в порядке построения.
+ */
+@Immutable
+public final class ImmutableIntMap<V> {
+
+    private final int[] keys;
+    private final Object[] slots;
+    private final int mask;
+    private final List<V> values;
+
+    private ImmutableIntMap(Collection<V> items, ToIntFunction<V> key) {
+        int capacity = Integer.highestOneBit(Math.max(2, items.size() * 2) - 1) << 1;
+        this.keys = new int[capacity];
+        this.slots = new Object[capacity];
+        this.mask = capacity - 1;
+        this.values = List.copyOf(items);
+        for (var item : values) {
+            int id = key.applyAsInt(item);
+            int slot = indexOf(id);
+            if (slots[slot] != null) {
+                throw new IllegalArgumentException("Duplicate key " + id);
+            }
+            keys[slot] = id;
+            slots[slot] = item;
+        }
+    }
+
+    public static <V> ImmutableIntMap<V> of(Collection<V> items, ToIntFunction<V> key) {
+        return new ImmutableIntMap<>(items, key);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) slots[indexOf(key)];
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public List<V> values() {
+        return values;
+    }
+
+    private int indexOf(int key) {
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (slots[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,111 @@
+package ru.job4j.cinema.repository.reference;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.Genre;
+import ru.job4j.cinema.model.Hall;
+import ru.job4j.cinema.repository.genre.GenreRepository;
+import ru.job4j.cinema.repository.hall.HallRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Справочники жанров и залов в памяти. Загружаются целиком при старте и затем раз в reloadSeconds,
+ * чтобы залы и жанры, добавленные в базу на ходу, становились видны без перезапуска.
+ * Новый снимок строится в стороне и подменяется одной записью в AtomicReference,
+ * поэтому чтения не блокируются и всегда видят согласованные жанры и залы.
+ */
+@ThreadSafe
+@Component
+public class ReferenceDataCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private final GenreRepository genreRepository;
+    private final HallRepository hallRepository;
+    private final long reloadSeconds;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(
+            new Snapshot(ImmutableIntMap.of(List.of(), Genre::getId), ImmutableIntMap.of(List.of(), Hall::getId)));
+    private ScheduledExecutorService timer;
+
+    public ReferenceDataCache(@Qualifier("sql2oGenreRepository") GenreRepository genreRepository,
+                              @Qualifier("sql2oHallRepository") HallRepository hallRepository,
+                              @Value("${app.reference.reload-seconds:300}") long reloadSeconds) {
+        this.genreRepository = genreRepository;
+        this.hallRepository = hallRepository;
+        this.reloadSeconds = reloadSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        refresh();
+        if (reloadSeconds > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "reference-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(this::refreshQuietly, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    public void refresh() {
+        var genres = ImmutableIntMap.of(genreRepository.findAll(), Genre::getId);
+        var halls = ImmutableIntMap.of(hallRepository.findAll(), Hall::getId);
+        snapshot.set(new Snapshot(genres, halls));
+        LOG.info("Loaded {} genres and {} halls into reference data cache", genres.size(), halls.size());
+    }
+
+    public Optional<Genre> findGenre(int id) {
+        return Optional.ofNullable(snapshot.get().genres.get(id));
+    }
+
+    public Collection<Genre> findAllGenres() {
+        return snapshot.get().genres.values();
+    }
+
+    public Optional<Hall> findHall(int id) {
+        return Optional.ofNullable(snapshot.get().halls.get(id));
+    }
+
+    public Collection<Hall> findAllHalls() {
+        return snapshot.get().halls.values();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            LOG.warn("Reference data reload failed, keeping previous snapshot", e);
+        }
+    }
+
+    private static final class Snapshot {
+        private final ImmutableIntMap<Genre> genres;
+        private final ImmutableIntMap<Hall> halls;
+
+        private Snapshot(ImmutableIntMap<Genre> genres, ImmutableIntMap<Hall> halls) {
+            this.genres = genres;
+            this.halls = halls;
+        }
+    }
+}
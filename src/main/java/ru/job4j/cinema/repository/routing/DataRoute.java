@@ -0,0 +1,6 @@
+package ru.job4j.cinema.repository.routing;
+
+public enum DataRoute {
+    PRIMARY,
+    REPLICA
+}
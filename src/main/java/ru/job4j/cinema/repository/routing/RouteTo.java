@@ -0,0 +1,17 @@
+package ru.job4j.cinema.repository.routing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Куда направлять запросы репозитория: на класс действует для всех его методов,
+ * на методе переопределяет значение класса. Без аннотации запросы идут на основную базу.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RouteTo {
+
+    DataRoute value();
+}
@@ -0,0 +1,67 @@
+package ru.job4j.cinema.repository.routing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Оборачивает бины с аннотацией RouteTo на классе или методах в прокси,
+ * который выставляет маршрут RoutingContext на время вызова метода.
+ */
+public class RouteToBeanPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        var type = AopUtils.getTargetClass(bean);
+        if (!isRouted(type)) {
+            return bean;
+        }
+        var factory = new ProxyFactory(bean);
+        factory.addAdvice(new RouteInterceptor(type));
+        return factory.getProxy(type.getClassLoader());
+    }
+
+    private static boolean isRouted(Class<?> type) {
+        return AnnotatedElementUtils.hasAnnotation(type, RouteTo.class)
+                || Arrays.stream(ReflectionUtils.getUniqueDeclaredMethods(type))
+                .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, RouteTo.class));
+    }
+
+    private static final class RouteInterceptor implements MethodInterceptor {
+
+        private final Class<?> type;
+        private final Map<Method, DataRoute> routes = new ConcurrentHashMap<>();
+
+        private RouteInterceptor(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            var previous = RoutingContext.enter(routes.computeIfAbsent(invocation.getMethod(), this::routeOf));
+            try {
+                return invocation.proceed();
+            } finally {
+                RoutingContext.restore(previous);
+            }
+        }
+
+        private DataRoute routeOf(Method method) {
+            var annotation = AnnotatedElementUtils.findMergedAnnotation(
+                    AopUtils.getMostSpecificMethod(method, type), RouteTo.class);
+            if (annotation == null) {
+                annotation = AnnotatedElementUtils.findMergedAnnotation(type, RouteTo.class);
+            }
+            return annotation == null ? DataRoute.PRIMARY : annotation.value();
+        }
+    }
+}
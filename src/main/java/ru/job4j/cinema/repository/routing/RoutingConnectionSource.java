@@ -0,0 +1,53 @@
+package ru.job4j.cinema.repository.routing;
+
+import net.jcip.annotations.ThreadSafe;
+import org.sql2o.connectionsources.ConnectionSource;
+import ru.job4j.cinema.repository.UnitOfWork;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник соединений sql2o с разделением чтения и записи. Запрос идёт на реплику, только если
+ * текущий маршрут REPLICA, поток не закреплён за основной базой и не находится в транзакции
+ * единицы работы; реплики выбираются по кругу. Всё остальное идёт через единицу работы основной базы.
+ */
+@ThreadSafe
+public class RoutingConnectionSource implements ConnectionSource, AutoCloseable {
+
+    private final UnitOfWork primary;
+    private final List<? extends DataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public RoutingConnectionSource(UnitOfWork primary, List<? extends DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty() || RoutingContext.currentRoute() == DataRoute.PRIMARY
+                || RoutingContext.isPinnedToPrimary() || primary.isTransactional()) {
+            return primary.getConnection();
+        }
+        return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size())).getConnection();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        for (var replica : replicas) {
+            if (replica instanceof AutoCloseable pool) {
+                try {
+                    pool.close();
+                } catch (SQLException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new SQLException("Failed to close replica pool", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.job4j.cinema.repository.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Маршрут текущего потока: выбранный аннотацией RouteTo и закрепление за основной базой
+ * (read-your-writes), которое ставит фильтр на время запроса.
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<DataRoute> ROUTE = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    public static DataRoute enter(DataRoute route) {
+        var previous = ROUTE.get();
+        ROUTE.set(route);
+        return previous;
+    }
+
+    public static void restore(DataRoute previous) {
+        if (previous == null) {
+            ROUTE.remove();
+        } else {
+            ROUTE.set(previous);
+        }
+    }
+
+    public static DataRoute currentRoute() {
+        var route = ROUTE.get();
+        return route == null ? DataRoute.PRIMARY : route;
+    }
+
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PINNED.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    /**
+     * Выполняет действие с чтением из основной базы и восстанавливает прежнее закрепление.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean pinned = isPinnedToPrimary();
+        pinToPrimary();
+        try {
+            return action.get();
+        } finally {
+            if (!pinned) {
+                unpin();
+            }
+        }
+    }
+}
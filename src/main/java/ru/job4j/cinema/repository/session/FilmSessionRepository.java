@@ -1,8 +1,12 @@
 package ru.job4j.cinema.repository.session;
 
+import ru.job4j.cinema.dto.SeatAvailability;
 import ru.job4j.cinema.model.FilmSession;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface FilmSessionRepository {
@@ -10,4 +14,20 @@ public interface FilmSessionRepository {
     Optional<FilmSession> findById(int id);
 
     Collection<FilmSession> findAll();
+
+    Optional<FilmSession> findByIdWithFilm(int id);
+
+    Collection<FilmSession> findAllWithFilm();
+
+    List<FilmSession> findPageWithFilm(LocalDateTime afterStartTime, int afterId, int limit);
+
+    Collection<FilmSession> findBetween(LocalDateTime from, LocalDateTime to);
+
+    List<FilmSession> findUpcoming(LocalDateTime from, int limit);
+
+    Collection<FilmSession> findByFilmAndDay(int filmId, LocalDate day);
+
+    Collection<SeatAvailability> findSeatAvailabilityEndingAfter(LocalDateTime from);
+
+    Optional<SeatAvailability> findSeatAvailabilityById(int id);
 }
\ No newline at end of file
@@ -1,15 +1,56 @@
 package ru.job4j.cinema.repository.session;
 
 import org.springframework.stereotype.Repository;
+import org.sql2o.ResultSetHandler;
 import org.sql2o.Sql2o;
+import ru.job4j.cinema.dto.SeatAvailability;
+import ru.job4j.cinema.model.Film;
 import ru.job4j.cinema.model.FilmSession;
+import ru.job4j.cinema.model.Genre;
+import ru.job4j.cinema.repository.routing.DataRoute;
+import ru.job4j.cinema.repository.routing.RouteTo;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
+@RouteTo(DataRoute.REPLICA)
 public class Sql2oFilmSessionRepository implements FilmSessionRepository {
 
+    private static final String SEAT_AVAILABILITY_SQL = """
+            SELECT fs.id AS session_id, h.row_count * h.place_count AS capacity, COUNT(t.id) AS sold,
+                   fs.end_time
+            FROM film_sessions fs
+            JOIN halls h ON h.id = fs.halls_id
+            LEFT JOIN tickets t ON t.session_id = fs.id
+            """;
+
+    private static final String SESSION_WITH_FILM_SQL = """
+            SELECT fs.id, fs.film_id, fs.halls_id, fs.start_time, fs.end_time, fs.price,
+                   h.name AS hall_name,
+                   f.name AS film_name, f.description, f.release_year, f.genre_id,
+                   f.minimal_age, f.duration_in_minutes, f.file_id,
+                   g.name AS genre_name
+            FROM film_sessions fs
+            LEFT JOIN films f ON f.id = fs.film_id
+            LEFT JOIN genres g ON g.id = f.genre_id
+            LEFT JOIN halls h ON h.id = fs.halls_id
+            """;
+
+    private static final String SCHEDULE_ORDER_SQL = "ORDER BY fs.start_time, fs.id LIMIT :limit";
+
+    private static final String START_TIME_WINDOW_SQL = "fs.start_time >= :from AND fs.start_time < :to ";
+
+    private static final String GROUP_BY_SESSION_SQL = "GROUP BY fs.id, fs.end_time, h.row_count, h.place_count";
+
     private final Sql2o sql2o;
 
     public Sql2oFilmSessionRepository(Sql2o sql2o) {
@@ -21,8 +62,7 @@ public class Sql2oFilmSessionRepository implements FilmSessionRepository {
         try (var connection = sql2o.open()) {
             var query = connection.createQuery("SELECT * FROM film_sessions WHERE id = :id");
             query.addParameter("id", id);
-            var filmSession = query.setColumnMappings(FilmSession.COLUMN_MAPPING).executeAndFetchFirst(FilmSession.class);
-            return Optional.ofNullable(filmSession);
+            return query.executeAndFetch(this::mapRowToSession).stream().findFirst();
         }
     }
 
@@ -30,7 +70,150 @@ public class Sql2oFilmSessionRepository implements FilmSessionRepository {
     public Collection<FilmSession> findAll() {
         try (var connection = sql2o.open()) {
             var query = connection.createQuery("SELECT * FROM film_sessions");
-            return query.setColumnMappings(FilmSession.COLUMN_MAPPING).executeAndFetch(FilmSession.class);
+            return query.executeAndFetch(this::mapRowToSession);
+        }
+    }
+
+    @Override
+    public Optional<FilmSession> findByIdWithFilm(int id) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(SESSION_WITH_FILM_SQL + "WHERE fs.id = :id");
+            query.addParameter("id", id);
+            return query.executeAndFetch(sessionWithSharedFilmHandler()).stream().findFirst();
+        }
+    }
+
+    @Override
+    public Collection<FilmSession> findAllWithFilm() {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(SESSION_WITH_FILM_SQL);
+            return query.executeAndFetch(sessionWithSharedFilmHandler());
+        }
+    }
+
+    @Override
+    public List<FilmSession> findPageWithFilm(LocalDateTime afterStartTime, int afterId, int limit) {
+        try (var connection = sql2o.open()) {
+            var query = afterStartTime == null
+                    ? connection.createQuery(SESSION_WITH_FILM_SQL + SCHEDULE_ORDER_SQL)
+                    : connection.createQuery(SESSION_WITH_FILM_SQL
+                            + "WHERE (fs.start_time, fs.id) > (:afterStartTime, :afterId) " + SCHEDULE_ORDER_SQL)
+                    .addParameter("afterStartTime", afterStartTime)
+                    .addParameter("afterId", afterId);
+            query.addParameter("limit", limit);
+            return query.executeAndFetch(sessionWithSharedFilmHandler());
+        }
+    }
+
+    @Override
+    public Collection<FilmSession> findBetween(LocalDateTime from, LocalDateTime to) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(SESSION_WITH_FILM_SQL + "WHERE " + START_TIME_WINDOW_SQL
+                    + "ORDER BY fs.start_time, fs.id");
+            query.addParameter("from", from);
+            query.addParameter("to", to);
+            return query.executeAndFetch(sessionWithSharedFilmHandler());
+        }
+    }
+
+    @Override
+    public List<FilmSession> findUpcoming(LocalDateTime from, int limit) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(SESSION_WITH_FILM_SQL + "WHERE fs.start_time >= :from " + SCHEDULE_ORDER_SQL);
+            query.addParameter("from", from);
+            query.addParameter("limit", limit);
+            return query.executeAndFetch(sessionWithSharedFilmHandler());
+        }
+    }
+
+    @Override
+    public Collection<FilmSession> findByFilmAndDay(int filmId, LocalDate day) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(SESSION_WITH_FILM_SQL + "WHERE fs.film_id = :filmId AND "
+                    + START_TIME_WINDOW_SQL + "ORDER BY fs.start_time, fs.id");
+            query.addParameter("filmId", filmId);
+            query.addParameter("from", day.atStartOfDay());
+            query.addParameter("to", day.plusDays(1).atStartOfDay());
+            return query.executeAndFetch(sessionWithSharedFilmHandler());
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    @RouteTo(DataRoute.PRIMARY)
+    public Collection<SeatAvailability> findSeatAvailabilityEndingAfter(LocalDateTime from) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(SEAT_AVAILABILITY_SQL + "WHERE fs.end_time > :from " + GROUP_BY_SESSION_SQL);
+            query.addParameter("from", from);
+            return query.setColumnMappings(SeatAvailability.COLUMN_MAPPING).executeAndFetch(SeatAvailability.class);
+        }
+    }
+
+    @Override
+    @RouteTo(DataRoute.PRIMARY)
+    public Optional<SeatAvailability> findSeatAvailabilityById(int id) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery(SEAT_AVAILABILITY_SQL + "WHERE fs.id = :id " + GROUP_BY_SESSION_SQL);
+            query.addParameter("id", id);
+            var availability = query.setColumnMappings(SeatAvailability.COLUMN_MAPPING)
+                    .executeAndFetchFirst(SeatAvailability.class);
+            return Optional.ofNullable(availability);
+        }
+    }
+
+    private ResultSetHandler<FilmSession> sessionWithSharedFilmHandler() {
+        var films = new HashMap<Integer, Film>();
+        return rs -> mapRowToSessionWithFilm(rs, films);
+    }
+
+    private FilmSession mapRowToSession(ResultSet rs) throws SQLException {
+        return new FilmSession(
+                rs.getInt("id"),
+                rs.getInt("film_id"),
+                rs.getInt("halls_id"),
+                toLocalDateTime(rs.getTimestamp("start_time")),
+                toLocalDateTime(rs.getTimestamp("end_time")),
+                rs.getInt("price")
+        );
+    }
+
+    private FilmSession mapRowToSessionWithFilm(ResultSet rs, Map<Integer, Film> films) throws SQLException {
+        int filmId = rs.getInt("film_id");
+        Film film = null;
+        if (rs.getString("film_name") != null) {
+            film = films.get(filmId);
+            if (film == null) {
+                film = mapRowToFilm(rs, filmId);
+                films.put(film.getId(), film);
+            }
+        }
+        return new FilmSession(
+                rs.getInt("id"),
+                filmId,
+                rs.getInt("halls_id"),
+                toLocalDateTime(rs.getTimestamp("start_time")),
+                toLocalDateTime(rs.getTimestamp("end_time")),
+                rs.getInt("price"),
+                film,
+                rs.getString("hall_name")
+        );
+    }
+
+    private Film mapRowToFilm(ResultSet rs, int filmId) throws SQLException {
+        var genreName = rs.getString("genre_name");
+        return new Film(
+                filmId,
+                rs.getString("film_name"),
+                rs.getString("description"),
+                rs.getInt("release_year"),
+                rs.getInt("genre_id"),
+                rs.getInt("minimal_age"),
+                rs.getInt("duration_in_minutes"),
+                rs.getInt("file_id"),
+                genreName == null ? null : new Genre(rs.getInt("genre_id"), genreName)
+        );
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -1,25 +1,64 @@
 package ru.job4j.cinema.repository.ticket;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
+import org.sql2o.Connection;
 import org.sql2o.Sql2o;
+import ru.job4j.cinema.dto.GroupReservationResult;
+import ru.job4j.cinema.dto.ReservationStatus;
 import ru.job4j.cinema.dto.TicketWithDetails;
-import ru.job4j.cinema.model.Film;
-import ru.job4j.cinema.model.FilmSession;
-import ru.job4j.cinema.model.Genre;
+import ru.job4j.cinema.model.Seat;
 import ru.job4j.cinema.model.Ticket;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public class Sql2oTicketRepository implements TicketRepository {
 
-    private static final Logger LOG = LoggerFactory.getLogger(Sql2oTicketRepository.class);
+    private static final String TICKET_WITH_DETAILS_SQL = """
+            SELECT t.id AS ticket_id, t.session_id, t.row_number, t.place_number,
+                   fs.start_time, fs.price, h.name AS hall_name,
+                   f.name AS film_name, g.name AS genre_name
+            FROM tickets t
+            JOIN film_sessions fs ON fs.id = t.session_id
+            JOIN films f ON f.id = fs.film_id
+            LEFT JOIN genres g ON g.id = f.genre_id
+            LEFT JOIN halls h ON h.id = fs.halls_id
+            """;
+
+    private static final String NEWEST_FIRST_SQL = "ORDER BY fs.start_time DESC, t.id DESC";
+
+    private static final String INSERT_TICKET_SQL = """
+            INSERT INTO tickets(session_id, row_number, place_number, user_id)
+            VALUES (:sessionId, :rowNumber, :placeNumber, :userId)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String RESERVE_TICKET_SQL = """
+            INSERT INTO tickets(session_id, row_number, place_number, user_id)
+            SELECT fs.id, :rowNumber, :placeNumber, :userId
+            FROM film_sessions fs
+            JOIN halls h ON h.id = fs.halls_id
+            WHERE fs.id = :sessionId
+              AND :rowNumber BETWEEN 1 AND h.row_count
+              AND :placeNumber BETWEEN 1 AND h.place_count
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String HALL_OF_SESSION_SQL = """
+            SELECT h.row_count, h.place_count
+            FROM film_sessions fs
+            JOIN halls h ON h.id = fs.halls_id
+            WHERE fs.id = :sessionId
+            """;
+
     private final Sql2o sql2o;
 
     public Sql2oTicketRepository(Sql2o sql2o) {
@@ -43,22 +82,99 @@ public class Sql2oTicketRepository implements TicketRepository {
     }
 
     @Override
-    public boolean reserveTicket(int sessionId, int rowNumber, int placeNumber, int userId) {
+    public ReservationStatus reserveTicket(int sessionId, int rowNumber, int placeNumber, int userId) {
         try (var connection = sql2o.open()) {
-            var sql = """
-                    INSERT INTO tickets(session_id, row_number, place_number, user_id)
-                    VALUES (:sessionId, :rowNumber, :placeNumber, :userId)
-                    """;
-            var query = connection.createQuery(sql)
+            var query = connection.createQuery(RESERVE_TICKET_SQL)
                     .addParameter("sessionId", sessionId)
                     .addParameter("rowNumber", rowNumber)
                     .addParameter("placeNumber", placeNumber)
                     .addParameter("userId", userId);
-            return query.executeUpdate().getResult() > 0;
-        } catch (Exception e) {
-            LOG.error("Failed to reserve ticket: sessionId={}, row={}, place={}, userId={}",
-                    sessionId, rowNumber, placeNumber, userId, e);
-            return false;
+            if (query.executeUpdate().getResult() > 0) {
+                return ReservationStatus.RESERVED;
+            }
+            var hall = findHallOfSession(connection, sessionId);
+            if (hall.isEmpty()) {
+                return ReservationStatus.SESSION_NOT_FOUND;
+            }
+            return hall.get().contains(rowNumber, placeNumber)
+                    ? ReservationStatus.SEAT_TAKEN
+                    : ReservationStatus.OUT_OF_HALL_BOUNDS;
+        }
+    }
+
+    @Override
+    public GroupReservationResult reserveTickets(int sessionId, List<Seat> seats, int userId) {
+        try (var connection = sql2o.beginTransaction()) {
+            var query = connection.createQuery(RESERVE_TICKET_SQL);
+            for (var seat : seats) {
+                query.addParameter("sessionId", sessionId)
+                        .addParameter("rowNumber", seat.getRowNumber())
+                        .addParameter("placeNumber", seat.getPlaceNumber())
+                        .addParameter("userId", userId)
+                        .addToBatch();
+            }
+            var inserted = query.executeBatch().getBatchResult();
+            var rejected = new ArrayList<Seat>();
+            for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i] == 0) {
+                    rejected.add(seats.get(i));
+                }
+            }
+            if (rejected.isEmpty()) {
+                connection.commit();
+                return GroupReservationResult.reserved(seats);
+            }
+            var result = rejection(connection, sessionId, seats, rejected);
+            connection.rollback();
+            return result;
+        }
+    }
+
+    /**
+     * Объясняет, почему часть мест не вставилась: сеанса нет, место вне зала или оно уже продано.
+     */
+    private GroupReservationResult rejection(Connection connection, int sessionId, List<Seat> seats,
+                                             List<Seat> rejected) {
+        var hall = findHallOfSession(connection, sessionId);
+        if (hall.isEmpty()) {
+            return GroupReservationResult.sessionNotFound(seats);
+        }
+        var outOfHall = rejected.stream()
+                .filter(seat -> !hall.get().contains(seat.getRowNumber(), seat.getPlaceNumber()))
+                .toList();
+        return outOfHall.isEmpty()
+                ? GroupReservationResult.conflicted(seats, rejected)
+                : GroupReservationResult.outOfHallBounds(seats, outOfHall);
+    }
+
+    private Optional<HallSize> findHallOfSession(Connection connection, int sessionId) {
+        var rows = connection.createQuery(HALL_OF_SESSION_SQL)
+                .addParameter("sessionId", sessionId)
+                .executeAndFetchTable()
+                .rows();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new HallSize(rows.get(0).getInteger("row_count"), rows.get(0).getInteger("place_count")));
+    }
+
+    @Override
+    public int saveAll(Collection<Ticket> tickets) {
+        if (tickets.isEmpty()) {
+            return 0;
+        }
+        try (var connection = sql2o.beginTransaction()) {
+            var query = connection.createQuery(INSERT_TICKET_SQL);
+            for (var ticket : tickets) {
+                query.addParameter("sessionId", ticket.getSessionId())
+                        .addParameter("rowNumber", ticket.getRowNumber())
+                        .addParameter("placeNumber", ticket.getPlaceNumber())
+                        .addParameter("userId", ticket.getUserId())
+                        .addToBatch();
+            }
+            var inserted = Arrays.stream(query.executeBatch().getBatchResult()).sum();
+            connection.commit();
+            return inserted;
         }
     }
 
@@ -71,79 +187,70 @@ public class Sql2oTicketRepository implements TicketRepository {
         }
     }
 
+    @Override
+    public Collection<Seat> findSeatsBySessionId(int sessionId) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("SELECT row_number, place_number FROM tickets WHERE session_id = :sessionId");
+            query.addParameter("sessionId", sessionId);
+            return query.setColumnMappings(Seat.COLUMN_MAPPING).executeAndFetch(Seat.class);
+        }
+    }
+
     @Override
     public Collection<TicketWithDetails> findTicketsWithDetailsByUserId(int userId) {
         try (var connection = sql2o.open()) {
-            var sql = """
-                SELECT t.*, fs.*, f.*, g.id as genre_id, g.name as genre_name
-                FROM tickets t
-                JOIN film_sessions fs ON t.session_id = fs.id
-                JOIN films f ON fs.film_id = f.id
-                LEFT JOIN genres g ON f.genre_id = g.id
-                WHERE t.user_id = :userId
-                ORDER BY fs.start_time DESC
-                """;
-            var query = connection.createQuery(sql).addParameter("userId", userId);
+            var query = connection.createQuery(TICKET_WITH_DETAILS_SQL + "WHERE t.user_id = :userId " + NEWEST_FIRST_SQL)
+                    .addParameter("userId", userId);
 
             return query.executeAndFetch(this::mapRowToTicketWithDetails);
         }
     }
 
-    private TicketWithDetails mapRowToTicketWithDetails(ResultSet rs) throws SQLException {
-        Ticket ticket = mapRowToTicket(rs);
-        FilmSession filmSession = mapRowToFilmSession(rs);
-        Film film = mapRowToFilm(rs);
+    @Override
+    public List<TicketWithDetails> findTicketsWithDetailsPageByUserId(int userId, LocalDateTime beforeStartTime,
+                                                                      int beforeTicketId, int limit) {
+        try (var connection = sql2o.open()) {
+            var query = beforeStartTime == null
+                    ? connection.createQuery(TICKET_WITH_DETAILS_SQL + "WHERE t.user_id = :userId "
+                            + NEWEST_FIRST_SQL + " LIMIT :limit")
+                    : connection.createQuery(TICKET_WITH_DETAILS_SQL + "WHERE t.user_id = :userId "
+                            + "AND (fs.start_time, t.id) < (:beforeStartTime, :beforeTicketId) "
+                            + NEWEST_FIRST_SQL + " LIMIT :limit")
+                    .addParameter("beforeStartTime", beforeStartTime)
+                    .addParameter("beforeTicketId", beforeTicketId);
+            query.addParameter("userId", userId);
+            query.addParameter("limit", limit);
 
-        return new TicketWithDetails(ticket, filmSession, film);
+            return query.executeAndFetch(this::mapRowToTicketWithDetails);
+        }
     }
 
-    private Ticket mapRowToTicket(ResultSet rs) throws SQLException {
-        Ticket ticket = new Ticket();
-        ticket.setId(rs.getInt("t.id"));
-        ticket.setSessionId(rs.getInt("t.session_id"));
-        ticket.setRowNumber(rs.getInt("t.row_number"));
-        ticket.setPlaceNumber(rs.getInt("t.place_number"));
-        ticket.setUserId(rs.getInt("t.user_id"));
-        return ticket;
+    private TicketWithDetails mapRowToTicketWithDetails(ResultSet rs) throws SQLException {
+        Timestamp startTime = rs.getTimestamp("start_time");
+        return new TicketWithDetails(
+                rs.getInt("ticket_id"),
+                rs.getInt("session_id"),
+                rs.getInt("row_number"),
+                rs.getInt("place_number"),
+                startTime == null ? null : startTime.toLocalDateTime(),
+                rs.getInt("price"),
+                rs.getString("hall_name"),
+                rs.getString("film_name"),
+                rs.getString("genre_name")
+        );
     }
 
-    private FilmSession mapRowToFilmSession(ResultSet rs) throws SQLException {
-        FilmSession filmSession = new FilmSession();
-        filmSession.setId(rs.getInt("fs.id"));
-        filmSession.setFilmId(rs.getInt("fs.film_id"));
-        filmSession.setHallId(rs.getInt("fs.hall_id"));
+    private static final class HallSize {
+        private final int rowCount;
+        private final int placeCount;
 
-        Timestamp startTimestamp = rs.getTimestamp("fs.start_time");
-        Timestamp endTimestamp = rs.getTimestamp("fs.end_time");
-        if (startTimestamp != null) {
-            filmSession.setStartTime(startTimestamp.toLocalDateTime());
-        }
-        if (endTimestamp != null) {
-            filmSession.setEndTime(endTimestamp.toLocalDateTime());
+        private HallSize(int rowCount, int placeCount) {
+            this.rowCount = rowCount;
+            this.placeCount = placeCount;
         }
 
-        filmSession.setPrice(rs.getInt("fs.price"));
-        return filmSession;
-    }
-
-    private Film mapRowToFilm(ResultSet rs) throws SQLException {
-        Film film = new Film();
-        film.setId(rs.getInt("f.id"));
-        film.setName(rs.getString("f.name"));
-        film.setDescription(rs.getString("f.description"));
-        film.setReleaseYear(rs.getInt("f.release_year"));
-        film.setGenreId(rs.getInt("f.genre_id"));
-        film.setMinimalAge(rs.getInt("f.minimal_age"));
-        film.setDurationInMinutes(rs.getInt("f.duration_in_minutes"));
-        film.setFileId(rs.getInt("f.file_id"));
-
-        if (rs.getObject("genre_id") != null) {
-            var genre = new Genre();
-            genre.setId(rs.getInt("genre_id"));
-            genre.setName(rs.getString("genre_name"));
-            film.setGenre(genre);
+        private boolean contains(int rowNumber, int placeNumber) {
+            return rowNumber >= 1 && rowNumber <= rowCount && placeNumber >= 1 && placeNumber <= placeCount;
         }
-
-        return film;
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,32 @@
 package ru.job4j.cinema.repository.ticket;
 
+import ru.job4j.cinema.dto.GroupReservationResult;
+import ru.job4j.cinema.dto.ReservationStatus;
 import ru.job4j.cinema.dto.TicketWithDetails;
+import ru.job4j.cinema.model.Seat;
 import ru.job4j.cinema.model.Ticket;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface TicketRepository {
 
     Optional<Ticket> findBySessionIdAndRowAndPlace(int sessionId, int rowNumber, int placeNumber);
 
-    boolean reserveTicket(int sessionId, int rowNumber, int placeNumber, int userId);
+    ReservationStatus reserveTicket(int sessionId, int rowNumber, int placeNumber, int userId);
+
+    GroupReservationResult reserveTickets(int sessionId, List<Seat> seats, int userId);
+
+    int saveAll(Collection<Ticket> tickets);
 
     Collection<Ticket> findByUserId(int userId);
 
+    Collection<Seat> findSeatsBySessionId(int sessionId);
+
     Collection<TicketWithDetails> findTicketsWithDetailsByUserId(int userId);
+
+    List<TicketWithDetails> findTicketsWithDetailsPageByUserId(int userId, LocalDateTime beforeStartTime,
+                                                               int beforeTicketId, int limit);
 }
\ No newline at end of file
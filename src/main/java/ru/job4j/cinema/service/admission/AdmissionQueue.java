@@ -0,0 +1,105 @@
+package ru.job4j.cinema.service.admission;
+
+import net.jcip.annotations.ThreadSafe;
+import ru.job4j.cinema.dto.AdmissionStatus;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Очередь допуска к покупке билетов на один сеанс.
+ * Одновременно к покупке допущено не больше maxActive пользователей, новые пропуска
+ * выдаются из головы очереди не быстрее ratePerSecond в секунду (token bucket).
+ * Пропуск действует passMillis; ожидающий, не обращавшийся дольше abandonMillis,
+ * считается ушедшим и снимается с очереди, когда до него доходит ход.
+ * После покупки или ухода со страницы покупки пропуск возвращается через release(),
+ * не дожидаясь истечения passMillis.
+ */
+@ThreadSafe
+public class AdmissionQueue {
+
+    private final int maxActive;
+    private final double tokensPerMillis;
+    private final double burst;
+    private final long passMillis;
+    private final long abandonMillis;
+    private final Map<Integer, Long> active = new HashMap<>();
+    private final LinkedHashMap<Integer, Waiter> waiting = new LinkedHashMap<>();
+    private long nextSequence;
+    private double tokens;
+    private long refilledAtMillis;
+
+    public AdmissionQueue(int maxActive, double ratePerSecond, long passMillis, long abandonMillis, long nowMillis) {
+        if (maxActive <= 0 || ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Admission limit and rate must be positive");
+        }
+        this.maxActive = maxActive;
+        this.tokensPerMillis = ratePerSecond / 1000D;
+        this.burst = Math.max(ratePerSecond, 1D);
+        this.passMillis = passMillis;
+        this.abandonMillis = abandonMillis;
+        this.tokens = burst;
+        this.refilledAtMillis = nowMillis;
+    }
+
+    public synchronized AdmissionStatus admit(int userId, long nowMillis) {
+        active.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+        if (active.containsKey(userId)) {
+            return AdmissionStatus.admitted();
+        }
+        var waiter = waiting.computeIfAbsent(userId, id -> new Waiter(nextSequence++));
+        waiter.lastSeenMillis = nowMillis;
+        promote(nowMillis);
+        if (active.containsKey(userId)) {
+            return AdmissionStatus.admitted();
+        }
+        var head = waiting.values().iterator().next();
+        return AdmissionStatus.waiting(waiter.sequence - head.sequence + 1);
+    }
+
+    /**
+     * Снимает пользователя с очереди и освобождает его пропуск для следующего ожидающего.
+     */
+    public synchronized void release(int userId) {
+        active.remove(userId);
+        waiting.remove(userId);
+    }
+
+    public synchronized int getActiveCount() {
+        return active.size();
+    }
+
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    private void promote(long nowMillis) {
+        refill(nowMillis);
+        var iterator = waiting.entrySet().iterator();
+        while (iterator.hasNext() && active.size() < maxActive && tokens >= 1D) {
+            var entry = iterator.next();
+            iterator.remove();
+            if (entry.getValue().lastSeenMillis + abandonMillis >= nowMillis) {
+                active.put(entry.getKey(), nowMillis + passMillis);
+                tokens -= 1D;
+            }
+        }
+    }
+
+    private void refill(long nowMillis) {
+        if (nowMillis > refilledAtMillis) {
+            tokens = Math.min(burst, tokens + (nowMillis - refilledAtMillis) * tokensPerMillis);
+            refilledAtMillis = nowMillis;
+        }
+    }
+
+    private static final class Waiter {
+        private final long sequence;
+        private long lastSeenMillis;
+
+        private Waiter(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
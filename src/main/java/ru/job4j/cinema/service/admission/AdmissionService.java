@@ -0,0 +1,16 @@
+package ru.job4j.cinema.service.admission;
+
+import ru.job4j.cinema.dto.AdmissionStatus;
+
+public interface AdmissionService {
+
+    boolean isEnabled(int sessionId);
+
+    void enable(int sessionId);
+
+    void disable(int sessionId);
+
+    AdmissionStatus admit(int sessionId, int userId);
+
+    void release(int sessionId, int userId);
+}
@@ -0,0 +1,75 @@
+package ru.job4j.cinema.service.admission;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.job4j.cinema.dto.AdmissionStatus;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+@ThreadSafe
+@Service
+public class SimpleAdmissionService implements AdmissionService {
+
+    private final ConcurrentMap<Integer, AdmissionQueue> queues = new ConcurrentHashMap<>();
+    private final int maxActive;
+    private final double ratePerSecond;
+    private final long passMillis;
+    private final long abandonMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public SimpleAdmissionService(@Value("${app.admission.sessions:}") List<Integer> sessionIds,
+                                  @Value("${app.admission.max-active:100}") int maxActive,
+                                  @Value("${app.admission.rate-per-second:5}") double ratePerSecond,
+                                  @Value("${app.admission.pass-seconds:600}") long passSeconds,
+                                  @Value("${app.admission.abandon-seconds:30}") long abandonSeconds) {
+        this(maxActive, ratePerSecond, TimeUnit.SECONDS.toMillis(passSeconds),
+                TimeUnit.SECONDS.toMillis(abandonSeconds), System::currentTimeMillis);
+        sessionIds.forEach(this::enable);
+    }
+
+    public SimpleAdmissionService(int maxActive, double ratePerSecond, long passMillis, long abandonMillis,
+                                  LongSupplier clock) {
+        this.maxActive = maxActive;
+        this.ratePerSecond = ratePerSecond;
+        this.passMillis = passMillis;
+        this.abandonMillis = abandonMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean isEnabled(int sessionId) {
+        return queues.containsKey(sessionId);
+    }
+
+    @Override
+    public void enable(int sessionId) {
+        queues.computeIfAbsent(sessionId,
+                id -> new AdmissionQueue(maxActive, ratePerSecond, passMillis, abandonMillis, clock.getAsLong()));
+    }
+
+    @Override
+    public void disable(int sessionId) {
+        queues.remove(sessionId);
+    }
+
+    @Override
+    public AdmissionStatus admit(int sessionId, int userId) {
+        var queue = queues.get(sessionId);
+        return queue == null ? AdmissionStatus.admitted() : queue.admit(userId, clock.getAsLong());
+    }
+
+    @Override
+    public void release(int sessionId, int userId) {
+        var queue = queues.get(sessionId);
+        if (queue != null) {
+            queue.release(userId);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package ru.job4j.cinema.service.file;
 
 import ru.job4j.cinema.dto.FileDto;
+import ru.job4j.cinema.dto.StoredFile;
 import ru.job4j.cinema.model.File;
 
 import java.util.Optional;
@@ -9,5 +10,5 @@ public interface FileService {
 
     File save(FileDto fileDto);
 
-    Optional<FileDto> getFileById(int id);
+    Optional<StoredFile> findStoredFile(int id);
 }
\ No newline at end of file
@@ -2,15 +2,21 @@ package ru.job4j.cinema.service.file;
 
 import net.jcip.annotations.ThreadSafe;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import ru.job4j.cinema.dto.FileDto;
+import ru.job4j.cinema.dto.StoredFile;
 import ru.job4j.cinema.model.File;
 import ru.job4j.cinema.repository.file.FileRepository;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -49,18 +55,20 @@ public class SimpleFileService implements FileService {
         File file = new File();
         file.setName(fileName);
         file.setPath(filePath);
+        file.setContentType(detectContentType(fileDto));
         return fileRepository.save(file);
     }
 
     @Override
-    public Optional<FileDto> getFileById(int id) {
+    public Optional<StoredFile> findStoredFile(int id) {
         var fileOptional = fileRepository.findById(id);
         if (fileOptional.isPresent()) {
             var file = fileOptional.get();
             Path fullPath = Paths.get(file.getPath());
             try {
-                byte[] content = Files.readAllBytes(fullPath);
-                return Optional.of(new FileDto(file.getName(), content));
+                var attributes = Files.readAttributes(fullPath, BasicFileAttributes.class);
+                return Optional.of(new StoredFile(file.getId(), fullPath, file.getContentType(),
+                        attributes.size(), attributes.lastModifiedTime().toMillis()));
             } catch (IOException e) {
                 throw new RuntimeException("Failed to read file", e);
             }
@@ -68,6 +76,23 @@ public class SimpleFileService implements FileService {
         return Optional.empty();
     }
 
+    /**
+     * Тип определяется один раз при загрузке: сначала по сигнатуре содержимого, затем по расширению имени.
+     */
+    static String detectContentType(FileDto fileDto) {
+        try (var content = new ByteArrayInputStream(fileDto.getContent())) {
+            var sniffed = URLConnection.guessContentTypeFromStream(content);
+            if (sniffed != null) {
+                return sniffed;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to detect content type", e);
+        }
+        return MediaTypeFactory.getMediaType(fileDto.getName())
+                .map(MediaType::toString)
+                .orElse(File.DEFAULT_CONTENT_TYPE);
+    }
+
     void setUploadPath(String uploadPath) {
         this.uploadPath = uploadPath;
     }
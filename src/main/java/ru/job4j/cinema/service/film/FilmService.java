@@ -1,5 +1,6 @@
 package ru.job4j.cinema.service.film;
 
+import ru.job4j.cinema.dto.KeysetPage;
 import ru.job4j.cinema.model.Film;
 
 import java.util.Collection;
@@ -10,4 +11,6 @@ public interface FilmService {
     Optional<Film> findById(int id);
 
     Collection<Film> findAll();
+
+    KeysetPage<Film> findPage(int afterId, int limit);
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package ru.job4j.cinema.service.session;
 
+import ru.job4j.cinema.dto.KeysetPage;
 import ru.job4j.cinema.model.FilmSession;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface FilmSessionService {
@@ -10,4 +14,16 @@ public interface FilmSessionService {
     Optional<FilmSession> findById(int id);
 
     Collection<FilmSession> findAll();
+
+    KeysetPage<FilmSession> findPage(LocalDateTime afterStartTime, int afterId, int limit);
+
+    Collection<FilmSession> findBetween(LocalDateTime from, LocalDateTime to);
+
+    Collection<FilmSession> findUpcoming(int limit);
+
+    Collection<FilmSession> findByFilmAndDay(int filmId, LocalDate day);
+
+    Map<Integer, Integer> findFreeSeatCounts(Collection<FilmSession> sessions);
+
+    boolean isSoldOut(int id);
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package ru.job4j.cinema.service.session;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.repository.CatalogueVersion;
+import ru.job4j.cinema.repository.routing.RoutingContext;
+import ru.job4j.cinema.repository.session.FilmSessionRepository;
+import ru.job4j.cinema.service.ticket.SeatOccupancyIndex;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Публикует {@link ScheduleSnapshot} через AtomicReference: читатели берут текущий снимок
+ * без блокировок и без обращений к базе. Перестройка (целиком при старте и по таймеру,
+ * по одному дню через refreshDay) идёт под монитором, чтобы два писателя не потеряли изменения друг друга.
+ * Снимок держит только окно от pastDays дней назад до futureDays дней вперёд; версия расписания
+ * увеличивается, только если расписание действительно изменилось.
+ * Тот же таймер удаляет из {@link SeatOccupancyIndex} карты мест и из {@link SessionSeatCounters}
+ * счётчики закончившихся сеансов.
+ */
+@ThreadSafe
+@Component
+public class ScheduleCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScheduleCache.class);
+
+    private final FilmSessionRepository filmSessionRepository;
+    private final CatalogueVersion catalogueVersion;
+    private final SeatOccupancyIndex seatOccupancyIndex;
+    private final SessionSeatCounters sessionSeatCounters;
+    private final long reloadSeconds;
+    private final int pastDays;
+    private final int futureDays;
+    private final AtomicReference<ScheduleSnapshot> snapshot = new AtomicReference<>(ScheduleSnapshot.of(List.of()));
+    private ScheduledExecutorService timer;
+
+    public ScheduleCache(FilmSessionRepository filmSessionRepository, CatalogueVersion catalogueVersion,
+                         SeatOccupancyIndex seatOccupancyIndex, SessionSeatCounters sessionSeatCounters,
+                         @Value("${app.schedule.reload-seconds:300}") long reloadSeconds,
+                         @Value("${app.schedule.past-days:1}") int pastDays,
+                         @Value("${app.schedule.future-days:30}") int futureDays) {
+        this.filmSessionRepository = filmSessionRepository;
+        this.catalogueVersion = catalogueVersion;
+        this.seatOccupancyIndex = seatOccupancyIndex;
+        this.sessionSeatCounters = sessionSeatCounters;
+        this.reloadSeconds = reloadSeconds;
+        this.pastDays = pastDays;
+        this.futureDays = futureDays;
+    }
+
+    @PostConstruct
+    public void start() {
+        reload();
+        if (reloadSeconds > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "schedule-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(this::reloadQuietly, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    public ScheduleSnapshot current() {
+        return snapshot.get();
+    }
+
+    /**
+     * Перечитывает окно расписания; позже окна запрашивается один сеанс, чтобы знать, есть ли там что-то ещё.
+     */
+    public synchronized void reload() {
+        var today = LocalDate.now();
+        var firstDay = today.minusDays(pastDays);
+        var end = today.plusDays(futureDays + 1L).atStartOfDay();
+        var sessions = filmSessionRepository.findBetween(firstDay.atStartOfDay(), end);
+        var lastDay = filmSessionRepository.findUpcoming(end, 1).isEmpty() ? LocalDate.MAX : end.toLocalDate().minusDays(1);
+        publish(ScheduleSnapshot.of(firstDay, lastDay, sessions));
+        var now = LocalDateTime.now();
+        seatOccupancyIndex.evictEndedBefore(now);
+        sessionSeatCounters.evictEndedBefore(now);
+    }
+
+    /**
+     * Перечитывает из основной базы сеансы одного дня и публикует снимок, отличающийся только этим днём.
+     * День вне окна снимка не загружается: снимок не должен разрастаться между полными перестройками.
+     */
+    public synchronized void refreshDay(LocalDate day) {
+        if (!snapshot.get().covers(day)) {
+            return;
+        }
+        var sessions = RoutingContext.onPrimary(() ->
+                filmSessionRepository.findBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        publish(snapshot.get().withDay(day, sessions));
+    }
+
+    private void publish(ScheduleSnapshot next) {
+        var previous = snapshot.getAndSet(next);
+        if (!next.sameContentAs(previous)) {
+            catalogueVersion.incrementSchedule();
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            LOG.warn("Schedule reload failed, keeping previous snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ru.job4j.cinema.service.session;
+
+import net.jcip.annotations.Immutable;
+import ru.job4j.cinema.model.FilmSession;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Неизменяемый снимок расписания: сеансы разбиты по календарным дням и внутри дня
+ * упорядочены по времени начала и id. Каждый день хранит свой список и индекс по id,
+ * поэтому замена одного дня строит только его, а остальные дни переиспользуются как есть.
+ * Снимок покрывает окно дней [firstDay, lastDay]; о сеансах вне окна он ничего не знает.
+ * Сеансы неизменяемы, поэтому снимок отдаёт их вызывающим без копирования.
+ */
+@Immutable
+public final class ScheduleSnapshot {
+
+    private static final Comparator<FilmSession> SCHEDULE_ORDER = Comparator.comparing(FilmSession::getStartTime)
+            .thenComparingInt(FilmSession::getId);
+
+    private final LocalDate firstDay;
+    private final LocalDate lastDay;
+    private final NavigableMap<LocalDate, Day> days;
+
+    private ScheduleSnapshot(LocalDate firstDay, LocalDate lastDay, NavigableMap<LocalDate, Day> days) {
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.days = Collections.unmodifiableNavigableMap(days);
+    }
+
+    public static ScheduleSnapshot of(Collection<FilmSession> sessions) {
+        return of(LocalDate.MIN, LocalDate.MAX, sessions);
+    }
+
+    /**
+     * Снимок окна дней [firstDay, lastDay]; LocalDate.MAX в lastDay означает, что позже окна сеансов нет.
+     */
+    public static ScheduleSnapshot of(LocalDate firstDay, LocalDate lastDay, Collection<FilmSession> sessions) {
+        var grouped = new TreeMap<LocalDate, List<FilmSession>>();
+        for (var session : sessions) {
+            grouped.computeIfAbsent(session.getStartTime().toLocalDate(), day -> new ArrayList<>()).add(session);
+        }
+        var days = new TreeMap<LocalDate, Day>();
+        grouped.forEach((day, daySessions) -> days.put(day, new Day(daySessions)));
+        return new ScheduleSnapshot(firstDay, lastDay, days);
+    }
+
+    /**
+     * Снимок, в котором сеансы дня day заменены на sessions; остальные дни берутся из этого снимка.
+     */
+    public ScheduleSnapshot withDay(LocalDate day, Collection<FilmSession> sessions) {
+        var copy = new TreeMap<>(days);
+        if (sessions.isEmpty()) {
+            copy.remove(day);
+        } else {
+            copy.put(day, new Day(sessions));
+        }
+        return new ScheduleSnapshot(firstDay, lastDay, copy);
+    }
+
+    public boolean covers(LocalDate day) {
+        return !day.isBefore(firstDay) && !day.isAfter(lastDay);
+    }
+
+    /**
+     * Известно ли, что после последнего дня снимка сеансов нет.
+     */
+    public boolean coversUntilEnd() {
+        return LocalDate.MAX.equals(lastDay);
+    }
+
+    /**
+     * Совпадает ли расписание с другим снимком: окно, дни и поля сеансов, которые видит посетитель.
+     * Неизменённые дни, общие у двух снимков, сравниваются по ссылке.
+     */
+    public boolean sameContentAs(ScheduleSnapshot other) {
+        if (!firstDay.equals(other.firstDay) || !lastDay.equals(other.lastDay)
+                || !days.keySet().equals(other.days.keySet())) {
+            return false;
+        }
+        for (var entry : days.entrySet()) {
+            if (!entry.getValue().sameContentAs(other.days.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Optional<FilmSession> findById(int id) {
+        for (var day : days.values()) {
+            var session = day.sessionsById.get(id);
+            if (session != null) {
+                return Optional.of(session);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public List<FilmSession> findAll() {
+        var all = new ArrayList<FilmSession>();
+        for (var day : days.values()) {
+            all.addAll(day.sessions);
+        }
+        return all;
+    }
+
+    public List<FilmSession> findByDay(LocalDate day) {
+        var found = days.get(day);
+        return found == null ? List.of() : found.sessions;
+    }
+
+    public List<FilmSession> findByFilmAndDay(int filmId, LocalDate day) {
+        return findByDay(day).stream().filter(session -> session.getFilmId() == filmId).toList();
+    }
+
+    public List<FilmSession> findBetween(LocalDateTime from, LocalDateTime to) {
+        return collect(from.toLocalDate(), to.toLocalDate(), session -> !session.getStartTime().isBefore(from)
+                && session.getStartTime().isBefore(to), Integer.MAX_VALUE);
+    }
+
+    public List<FilmSession> findUpcoming(LocalDateTime from, int limit) {
+        return collect(from.toLocalDate(), days.isEmpty() ? from.toLocalDate() : days.lastKey(),
+                session -> !session.getStartTime().isBefore(from), limit);
+    }
+
+    /**
+     * Сеансы строго после курсора (startTime, id) в порядке расписания.
+     */
+    public List<FilmSession> findPage(LocalDateTime afterStartTime, int afterId, int limit) {
+        return collect(afterStartTime.toLocalDate(), days.isEmpty() ? afterStartTime.toLocalDate() : days.lastKey(),
+                session -> session.getStartTime().isAfter(afterStartTime)
+                        || session.getStartTime().isEqual(afterStartTime) && session.getId() > afterId, limit);
+    }
+
+    private List<FilmSession> collect(LocalDate firstDay, LocalDate lastDay, Predicate<FilmSession> filter, int limit) {
+        var result = new ArrayList<FilmSession>();
+        if (lastDay.isBefore(firstDay)) {
+            return result;
+        }
+        for (var day : days.subMap(firstDay, true, lastDay, true).values()) {
+            for (var session : day.sessions) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                if (filter.test(session)) {
+                    result.add(session);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean sameContent(FilmSession left, FilmSession right) {
+        return left.getId() == right.getId()
+                && left.getFilmId() == right.getFilmId()
+                && left.getHallId() == right.getHallId()
+                && Objects.equals(left.getStartTime(), right.getStartTime())
+                && Objects.equals(left.getEndTime(), right.getEndTime())
+                && left.getPrice() == right.getPrice()
+                && Objects.equals(left.getHallName(), right.getHallName());
+    }
+
+    private static final class Day {
+
+        private final List<FilmSession> sessions;
+        private final Map<Integer, FilmSession> sessionsById;
+
+        private Day(Collection<FilmSession> sessions) {
+            var list = new ArrayList<>(sessions);
+            list.sort(SCHEDULE_ORDER);
+            this.sessions = List.copyOf(list);
+            var byId = new HashMap<Integer, FilmSession>();
+            for (var session : list) {
+                byId.put(session.getId(), session);
+            }
+            this.sessionsById = Map.copyOf(byId);
+        }
+
+        private boolean sameContentAs(Day other) {
+            if (this == other) {
+                return true;
+            }
+            if (sessions.size() != other.sessions.size()) {
+                return false;
+            }
+            for (int i = 0; i < sessions.size(); i++) {
+                if (!sameContent(sessions.get(i), other.sessions.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
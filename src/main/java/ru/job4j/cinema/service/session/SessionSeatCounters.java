@@ -0,0 +1,112 @@
+package ru.job4j.cinema.service.session;
+
+import jakarta.annotation.PostConstruct;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.dto.SeatAvailability;
+import ru.job4j.cinema.repository.CatalogueVersion;
+import ru.job4j.cinema.repository.session.FilmSessionRepository;
+import ru.job4j.cinema.service.ticket.TicketJournal;
+
+import java.time.LocalDateTime;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Счётчики проданных мест по сеансам. Заполняются при старте одним запросом с GROUP BY
+ * по ещё не закончившимся сеансам и дальше увеличиваются при каждой успешной покупке,
+ * поэтому расписание и проверка распроданного сеанса не обращаются к tickets.
+ * Сеанс, которого не было при старте, загружается при первом обращении внутри computeIfAbsent:
+ * покупка, завершившаяся во время загрузки, ждёт её окончания и добавляется к загруженному значению.
+ * Места из журнала читаются до запроса к tickets, поэтому счётчик может ошибиться только в сторону
+ * "продано больше": покупка или перенос журнала между двумя чтениями будут учтены дважды.
+ * Такой счётчик не должен отказывать в покупке, поэтому распроданность перепроверяется по базе
+ * через {@link #recount(int)}. Счётчики закончившихся сеансов удаляются {@link #evictEndedBefore(LocalDateTime)}.
+ */
+@ThreadSafe
+@Component
+public class SessionSeatCounters {
+
+    private final ConcurrentMap<Integer, Counter> counters = new ConcurrentHashMap<>();
+    private final FilmSessionRepository filmSessionRepository;
+    private final TicketJournal ticketJournal;
+    private final CatalogueVersion catalogueVersion;
+
+    public SessionSeatCounters(FilmSessionRepository filmSessionRepository, TicketJournal ticketJournal,
+                               CatalogueVersion catalogueVersion) {
+        this.filmSessionRepository = filmSessionRepository;
+        this.ticketJournal = ticketJournal;
+        this.catalogueVersion = catalogueVersion;
+    }
+
+    @PostConstruct
+    public void load() {
+        var journaled = ticketJournal.countPendingSeats();
+        for (var availability : filmSessionRepository.findSeatAvailabilityEndingAfter(LocalDateTime.now())) {
+            counters.put(availability.getSessionId(),
+                    counterOf(availability, journaled.getOrDefault(availability.getSessionId(), 0)));
+        }
+    }
+
+    public OptionalInt findFreeCount(int sessionId) {
+        return freeCountOf(counters.computeIfAbsent(sessionId, this::loadCounter));
+    }
+
+    /**
+     * Перечитывает счётчик сеанса из базы, заменяя накопленное значение.
+     */
+    public OptionalInt recount(int sessionId) {
+        return freeCountOf(counters.compute(sessionId, (id, current) -> loadCounter(id)));
+    }
+
+    public void increment(int sessionId, int sold) {
+        counters.computeIfPresent(sessionId, (id, counter) -> {
+            counter.sold.addAndGet(sold);
+            return counter;
+        });
+        catalogueVersion.incrementSchedule();
+    }
+
+    /**
+     * Удаляет счётчики сеансов, закончившихся раньше now.
+     *
+     * @return число удалённых счётчиков
+     */
+    public int evictEndedBefore(LocalDateTime now) {
+        int before = counters.size();
+        counters.values().removeIf(counter -> counter.endTime != null && counter.endTime.isBefore(now));
+        return before - counters.size();
+    }
+
+    private Counter loadCounter(int sessionId) {
+        int journaled = ticketJournal.findPendingSeats(sessionId).size();
+        return filmSessionRepository.findSeatAvailabilityById(sessionId)
+                .map(availability -> counterOf(availability, journaled))
+                .orElse(null);
+    }
+
+    private static OptionalInt freeCountOf(Counter counter) {
+        if (counter == null) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(Math.max(counter.capacity - counter.sold.get(), 0));
+    }
+
+    private static Counter counterOf(SeatAvailability availability, int journaled) {
+        return new Counter(availability.getCapacity(), availability.getSold() + journaled, availability.getEndTime());
+    }
+
+    private static final class Counter {
+        private final int capacity;
+        private final AtomicInteger sold;
+        private final LocalDateTime endTime;
+
+        private Counter(int capacity, int sold, LocalDateTime endTime) {
+            this.capacity = capacity;
+            this.sold = new AtomicInteger(sold);
+            this.endTime = endTime;
+        }
+    }
+}
@@ -2,11 +2,15 @@ package ru.job4j.cinema.service.session;
 
 import net.jcip.annotations.ThreadSafe;
 import org.springframework.stereotype.Service;
+import ru.job4j.cinema.dto.KeysetPage;
 import ru.job4j.cinema.model.FilmSession;
-import ru.job4j.cinema.repository.film.FilmRepository;
 import ru.job4j.cinema.repository.session.FilmSessionRepository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @ThreadSafe
@@ -14,36 +18,107 @@ import java.util.Optional;
 public class SimpleFilmSessionService implements FilmSessionService {
 
     private final FilmSessionRepository filmSessionRepository;
-    private final FilmRepository filmRepository;
+    private final ScheduleCache scheduleCache;
+    private final SessionSeatCounters sessionSeatCounters;
 
-    public SimpleFilmSessionService(FilmSessionRepository filmSessionRepository, FilmRepository filmRepository) {
+    public SimpleFilmSessionService(FilmSessionRepository filmSessionRepository,
+                                    ScheduleCache scheduleCache,
+                                    SessionSeatCounters sessionSeatCounters) {
         this.filmSessionRepository = filmSessionRepository;
-        this.filmRepository = filmRepository;
+        this.scheduleCache = scheduleCache;
+        this.sessionSeatCounters = sessionSeatCounters;
     }
 
+    /**
+     * Сеанс, которого ещё нет в снимке расписания, ищется в базе. Найденный сеанс из окна снимка
+     * подтягивает в снимок свой день; сеанс вне окна просто возвращается и в снимок не попадает.
+     */
     @Override
     public Optional<FilmSession> findById(int id) {
-        var sessionOptional = filmSessionRepository.findById(id);
-        if (sessionOptional.isPresent()) {
-            var session = sessionOptional.get();
-            var filmOptional = filmRepository.findById(session.getFilmId());
-            if (filmOptional.isPresent()) {
-                session.setFilm(filmOptional.get());
-            }
-            return Optional.of(session);
+        var snapshot = scheduleCache.current();
+        var cached = snapshot.findById(id);
+        if (cached.isPresent()) {
+            return cached;
         }
-        return Optional.empty();
+        var loaded = filmSessionRepository.findByIdWithFilm(id);
+        loaded.map(session -> session.getStartTime().toLocalDate())
+                .filter(snapshot::covers)
+                .ifPresent(scheduleCache::refreshDay);
+        return loaded;
     }
 
+    /**
+     * Сеансы окна снимка расписания.
+     */
     @Override
     public Collection<FilmSession> findAll() {
-        var sessions = filmSessionRepository.findAll();
-        for (var session : sessions) {
-            var filmOptional = filmRepository.findById(session.getFilmId());
-            if (filmOptional.isPresent()) {
-                session.setFilm(filmOptional.get());
+        return scheduleCache.current().findAll();
+    }
+
+    /**
+     * Страница, которая начинается до окна снимка или упирается в его конец, читается из базы.
+     */
+    @Override
+    public KeysetPage<FilmSession> findPage(LocalDateTime afterStartTime, int afterId, int limit) {
+        var from = afterStartTime == null ? LocalDateTime.now() : afterStartTime;
+        var snapshot = scheduleCache.current();
+        if (snapshot.covers(from.toLocalDate())) {
+            var items = snapshot.findPage(from, afterId, limit + 1);
+            if (items.size() > limit || snapshot.coversUntilEnd()) {
+                return KeysetPage.of(items, limit);
             }
         }
-        return sessions;
+        return KeysetPage.of(filmSessionRepository.findPageWithFilm(from, afterId, limit + 1), limit);
+    }
+
+    @Override
+    public Collection<FilmSession> findBetween(LocalDateTime from, LocalDateTime to) {
+        var snapshot = scheduleCache.current();
+        if (snapshot.covers(from.toLocalDate()) && snapshot.covers(to.toLocalDate())) {
+            return snapshot.findBetween(from, to);
+        }
+        return filmSessionRepository.findBetween(from, to);
+    }
+
+    @Override
+    public Collection<FilmSession> findUpcoming(int limit) {
+        var now = LocalDateTime.now();
+        var snapshot = scheduleCache.current();
+        var upcoming = snapshot.findUpcoming(now, limit);
+        if (upcoming.size() == limit || snapshot.coversUntilEnd()) {
+            return upcoming;
+        }
+        return filmSessionRepository.findUpcoming(now, limit);
+    }
+
+    @Override
+    public Collection<FilmSession> findByFilmAndDay(int filmId, LocalDate day) {
+        var snapshot = scheduleCache.current();
+        if (snapshot.covers(day)) {
+            return snapshot.findByFilmAndDay(filmId, day);
+        }
+        return filmSessionRepository.findByFilmAndDay(filmId, day);
+    }
+
+    @Override
+    public Map<Integer, Integer> findFreeSeatCounts(Collection<FilmSession> sessions) {
+        var freeSeatCounts = new HashMap<Integer, Integer>();
+        for (var session : sessions) {
+            sessionSeatCounters.findFreeCount(session.getId())
+                    .ifPresent(freeCount -> freeSeatCounts.put(session.getId(), freeCount));
+        }
+        return freeSeatCounts;
+    }
+
+    /**
+     * Счётчик может завышать число проданных мест, поэтому распроданный по счётчику сеанс
+     * перепроверяется по базе, прежде чем отказать в покупке.
+     */
+    @Override
+    public boolean isSoldOut(int id) {
+        if (sessionSeatCounters.findFreeCount(id).orElse(-1) != 0) {
+            return false;
+        }
+        return sessionSeatCounters.recount(id).orElse(-1) == 0;
     }
-}
\ No newline at end of file
+}
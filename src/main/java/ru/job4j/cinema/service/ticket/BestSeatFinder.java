@@ -0,0 +1,63 @@
+package ru.job4j.cinema.service.ticket;
+
+import ru.job4j.cinema.dto.SeatMap;
+import ru.job4j.cinema.model.Seat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Подбор лучшего блока из count соседних свободных мест в одном ряду.
+ * В каждом ряду перебираются только отрезки свободных мест (поиск по словам битовой карты),
+ * внутри отрезка сразу берётся позиция, ближайшая к середине ряда. Блок оценивается квадратом
+ * расстояния его центра от центра зала, расстояния считаются в полуместах, чтобы обойтись целыми.
+ */
+public final class BestSeatFinder {
+
+    private BestSeatFinder() {
+    }
+
+    public static Optional<List<Seat>> find(SeatMap seatMap, int count) {
+        int rowCount = seatMap.getRowCount();
+        int placeCount = seatMap.getPlaceCount();
+        if (count <= 0 || count > placeCount) {
+            return Optional.empty();
+        }
+        int centralPlace = (placeCount - count) / 2 + 1;
+        long bestScore = Long.MAX_VALUE;
+        int bestRow = 0;
+        int bestPlace = 0;
+        for (int row = 1; row <= rowCount; row++) {
+            long rowDistance = 2L * row - rowCount - 1;
+            long rowScore = rowDistance * rowDistance;
+            if (rowScore >= bestScore) {
+                continue;
+            }
+            int start = seatMap.nextAvailable(row, 1);
+            while (start <= placeCount - count + 1) {
+                int end = seatMap.nextUnavailable(row, start);
+                if (end - start >= count) {
+                    int place = Math.max(start, Math.min(centralPlace, end - count));
+                    long placeDistance = 2L * place + count - placeCount - 2;
+                    long score = rowScore + placeDistance * placeDistance;
+                    if (score < bestScore) {
+                        bestScore = score;
+                        bestRow = row;
+                        bestPlace = place;
+                    }
+                }
+                start = seatMap.nextAvailable(row, end);
+            }
+        }
+        return bestRow == 0 ? Optional.empty() : Optional.of(block(bestRow, bestPlace, count));
+    }
+
+    private static List<Seat> block(int rowNumber, int placeNumber, int count) {
+        var seats = new ArrayList<Seat>(count);
+        for (int place = placeNumber; place < placeNumber + count; place++) {
+            seats.add(new Seat(rowNumber, place));
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.job4j.cinema.service.ticket;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Хешированное колесо таймеров: элемент попадает в ячейку (тик дедлайна mod размер колеса)
+ * и снимается, когда стрелка проходит эту ячейку на нужном обороте.
+ * Планирование возможно из любого потока, продвижение колеса выполняет один поток-таймер.
+ */
+@ThreadSafe
+public class HashedTimingWheel<T> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final ArrayDeque<Timeout<T>>[] buckets;
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    public HashedTimingWheel(long tickMillis, int ticksPerWheel, long startMillis) {
+        if (tickMillis <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = Math.max(size, 1) - 1;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayDeque<Timeout<T>>[] wheel = new ArrayDeque[mask + 1];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.buckets = wheel;
+    }
+
+    public void schedule(T item, long deadlineMillis) {
+        pending.add(new Timeout<>(item, deadlineMillis));
+    }
+
+    public synchronized void advance(long nowMillis, Consumer<T> onExpired) {
+        long targetTick = tickOf(nowMillis);
+        transferPending();
+        if (targetTick < currentTick) {
+            return;
+        }
+        long lastTick = Math.min(targetTick, currentTick + mask);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            var bucket = buckets[(int) (tick & mask)];
+            bucket.removeIf(timeout -> {
+                if (timeout.deadlineTick > targetTick) {
+                    return false;
+                }
+                onExpired.accept(timeout.item);
+                return true;
+            });
+        }
+        currentTick = targetTick + 1;
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            long deadlineTick = tickOf(timeout.deadlineMillis + tickMillis - 1);
+            timeout.deadlineTick = Math.max(deadlineTick, currentTick);
+            buckets[(int) (timeout.deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private long tickOf(long millis) {
+        return Math.max(millis - startMillis, 0) / tickMillis;
+    }
+
+    private static final class Timeout<T> {
+        private final T item;
+        private final long deadlineMillis;
+        private long deadlineTick;
+
+        private Timeout(T item, long deadlineMillis) {
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ru.job4j.cinema.service.ticket;
+
+import jakarta.annotation.PreDestroy;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.repository.UnitOfWork;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Почтовые ящики покупок: все покупки одного сеанса выполняет один поток-писатель,
+ * выбранный по id сеанса, поэтому решения по сеансу принимаются строго по очереди,
+ * а разные сеансы обрабатываются параллельно. В выключенном режиме покупка
+ * выполняется прямо в вызывающем потоке. Перед передачей покупки писателю вызывающий поток
+ * возвращает соединение своей единицы работы в пул, чтобы ожидающие запросы не заняли весь пул,
+ * пока писателям нужны соединения.
+ */
+@ThreadSafe
+@Component
+public class ReservationMailboxes {
+
+    private final ExecutorService[] writers;
+    private final UnitOfWork unitOfWork;
+
+    public ReservationMailboxes(@Value("${app.reservations.single-writer:false}") boolean enabled,
+                                @Value("${app.reservations.writers:0}") int writerCount,
+                                UnitOfWork unitOfWork) {
+        this.unitOfWork = unitOfWork;
+        int count = !enabled ? 0 : writerCount > 0 ? writerCount : Runtime.getRuntime().availableProcessors();
+        this.writers = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            var name = "reservation-writer-" + i;
+            writers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                var thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public boolean isEnabled() {
+        return writers.length > 0;
+    }
+
+    public Executor forSession(int sessionId) {
+        if (writers.length == 0) {
+            return Runnable::run;
+        }
+        var writer = writers[Math.floorMod(sessionId, writers.length)];
+        return task -> {
+            unitOfWork.release();
+            writer.execute(task);
+        };
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (var writer : writers) {
+            writer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.job4j.cinema.service.ticket;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+public class SeatHold {
+
+    private final int sessionId;
+    private final int rowNumber;
+    private final int placeNumber;
+    private final int userId;
+    private final long expiresAtMillis;
+
+    public SeatHold(int sessionId, int rowNumber, int placeNumber, int userId, long expiresAtMillis) {
+        this.sessionId = sessionId;
+        this.rowNumber = rowNumber;
+        this.placeNumber = placeNumber;
+        this.userId = userId;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public int getPlaceNumber() {
+        return placeNumber;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault());
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,125 @@
+package ru.job4j.cinema.service.ticket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Временные удержания мест до подтверждения покупки.
+ * Истёкшие удержания снимает один поток-таймер, продвигающий {@link HashedTimingWheel};
+ * до его срабатывания истёкшее удержание просто не учитывается при чтении.
+ * Карта сеанса удаляется вместе с последним удержанием в ней, поэтому закончившиеся сеансы
+ * не накапливаются: все их удержания истекают не позже чем через ttl.
+ */
+@ThreadSafe
+@Component
+public class SeatHoldRegistry {
+
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final ConcurrentMap<Integer, ConcurrentMap<Integer, SeatHold>> holds = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<SeatHold> wheel;
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final LongSupplier clock;
+    private ScheduledExecutorService timer;
+
+    @Autowired
+    public SeatHoldRegistry(@Value("${app.holds.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${app.holds.tick-millis:1000}") long tickMillis) {
+        this(TimeUnit.SECONDS.toMillis(ttlSeconds), tickMillis, System::currentTimeMillis);
+    }
+
+    public SeatHoldRegistry(long ttlMillis, long tickMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.wheel = new HashedTimingWheel<>(tickMillis, TICKS_PER_WHEEL, clock.getAsLong());
+    }
+
+    @PostConstruct
+    public void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "seat-hold-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(() -> expire(clock.getAsLong()), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    public Optional<SeatHold> hold(int sessionId, int rowNumber, int placeNumber, int userId) {
+        long now = clock.getAsLong();
+        var hold = new SeatHold(sessionId, rowNumber, placeNumber, userId, now + ttlMillis);
+        var placed = new SeatHold[1];
+        holds.compute(sessionId, (id, seats) -> {
+            var seatsOfSession = seats != null ? seats : new ConcurrentHashMap<Integer, SeatHold>();
+            placed[0] = seatsOfSession.compute(keyOf(rowNumber, placeNumber), (key, current) ->
+                    current == null || current.isExpired(now) || current.getUserId() == userId ? hold : current);
+            return seatsOfSession;
+        });
+        if (placed[0] != hold) {
+            return Optional.empty();
+        }
+        wheel.schedule(hold, hold.getExpiresAtMillis());
+        return Optional.of(hold);
+    }
+
+    public Optional<SeatHold> find(int sessionId, int rowNumber, int placeNumber) {
+        var seats = holds.get(sessionId);
+        if (seats == null) {
+            return Optional.empty();
+        }
+        var hold = seats.get(keyOf(rowNumber, placeNumber));
+        return hold == null || hold.isExpired(clock.getAsLong()) ? Optional.empty() : Optional.of(hold);
+    }
+
+    public Collection<SeatHold> findBySessionId(int sessionId) {
+        var seats = holds.get(sessionId);
+        if (seats == null) {
+            return List.of();
+        }
+        long now = clock.getAsLong();
+        return seats.values().stream().filter(hold -> !hold.isExpired(now)).toList();
+    }
+
+    public boolean release(SeatHold hold) {
+        var released = new boolean[1];
+        holds.computeIfPresent(hold.getSessionId(), (id, seats) -> {
+            released[0] = seats.remove(keyOf(hold.getRowNumber(), hold.getPlaceNumber()), hold);
+            return seats.isEmpty() ? null : seats;
+        });
+        return released[0];
+    }
+
+    public int getSessionCount() {
+        return holds.size();
+    }
+
+    public void expire(long nowMillis) {
+        wheel.advance(nowMillis, this::release);
+    }
+
+    private static int keyOf(int rowNumber, int placeNumber) {
+        return rowNumber << 16 | placeNumber & 0xFFFF;
+    }
+}
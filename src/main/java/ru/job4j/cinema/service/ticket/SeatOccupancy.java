@@ -0,0 +1,111 @@
+package ru.job4j.cinema.service.ticket;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Битовая карта занятых мест одного сеанса: один бит на место зала,
+ * место (row, place) хранится под индексом (row - 1) * placeCount + (place - 1).
+ */
+@ThreadSafe
+public class SeatOccupancy {
+
+    private final int rowCount;
+    private final int placeCount;
+    private final AtomicLongArray words;
+    private final AtomicInteger occupiedCount = new AtomicInteger();
+
+    public SeatOccupancy(int rowCount, int placeCount) {
+        this.rowCount = Math.max(rowCount, 0);
+        this.placeCount = Math.max(placeCount, 0);
+        this.words = new AtomicLongArray((this.rowCount * this.placeCount + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getPlaceCount() {
+        return placeCount;
+    }
+
+    public int getCapacity() {
+        return rowCount * placeCount;
+    }
+
+    public int getOccupiedCount() {
+        return occupiedCount.get();
+    }
+
+    public int getFreeCount() {
+        return getCapacity() - getOccupiedCount();
+    }
+
+    public boolean contains(int rowNumber, int placeNumber) {
+        return rowNumber >= 1 && rowNumber <= rowCount && placeNumber >= 1 && placeNumber <= placeCount;
+    }
+
+    public boolean isOccupied(int rowNumber, int placeNumber) {
+        if (!contains(rowNumber, placeNumber)) {
+            return false;
+        }
+        int index = indexOf(rowNumber, placeNumber);
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Атомарно помечает место занятым.
+     *
+     * @return false, если место уже было занято или лежит за пределами зала
+     */
+    public boolean occupy(int rowNumber, int placeNumber) {
+        if (!contains(rowNumber, placeNumber)) {
+            return false;
+        }
+        int index = indexOf(rowNumber, placeNumber);
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+        occupiedCount.incrementAndGet();
+        return true;
+    }
+
+    public boolean release(int rowNumber, int placeNumber) {
+        if (!contains(rowNumber, placeNumber)) {
+            return false;
+        }
+        int index = indexOf(rowNumber, placeNumber);
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) == 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, current, current & ~mask));
+        occupiedCount.decrementAndGet();
+        return true;
+    }
+
+    public BitSet snapshot() {
+        var bits = new long[words.length()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = words.get(i);
+        }
+        return BitSet.valueOf(bits);
+    }
+
+    private int indexOf(int rowNumber, int placeNumber) {
+        return (rowNumber - 1) * placeCount + (placeNumber - 1);
+    }
+}
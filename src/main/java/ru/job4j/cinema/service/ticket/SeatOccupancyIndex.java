@@ -0,0 +1,131 @@
+package ru.job4j.cinema.service.ticket;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.repository.hall.HallRepository;
+import ru.job4j.cinema.repository.routing.RoutingContext;
+import ru.job4j.cinema.repository.session.FilmSessionRepository;
+import ru.job4j.cinema.repository.ticket.TicketRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Индекс занятости мест по сеансам. Битовая карта сеанса строится лениво
+ * при первом обращении по данным таблицы tickets и размерам зала.
+ * Карта может отставать от базы только в сторону "свободно", поэтому
+ * окончательное решение о продаже по-прежнему принимает уникальный индекс tickets.
+ * Места из журнала, ещё не перенесённые в tickets, берутся до чтения tickets,
+ * чтобы перенос между двумя чтениями не потерял место.
+ * Карты закончившихся сеансов удаляются {@link #evictEndedBefore(LocalDateTime)}.
+ * Карта строится по основной базе: только что созданный сеанс может ещё не дойти до реплики.
+ * Карта строится под блокировкой сеанса, под которой же идут покупки через журнал
+ * ({@link #withSessionLock(int, Supplier)}): покупка успевает поставить места в журнал
+ * до того, как после сброса или вытеснения будет построена новая карта, и новая карта их уже видит.
+ */
+@ThreadSafe
+@Component
+public class SeatOccupancyIndex {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final FilmSessionRepository filmSessionRepository;
+    private final HallRepository hallRepository;
+    private final TicketRepository ticketRepository;
+    private final TicketJournal ticketJournal;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public SeatOccupancyIndex(FilmSessionRepository filmSessionRepository, HallRepository hallRepository,
+                              TicketRepository ticketRepository, TicketJournal ticketJournal) {
+        this.filmSessionRepository = filmSessionRepository;
+        this.hallRepository = hallRepository;
+        this.ticketRepository = ticketRepository;
+        this.ticketJournal = ticketJournal;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public Optional<SeatOccupancy> findBySessionId(int sessionId) {
+        var entry = entries.get(sessionId);
+        if (entry != null) {
+            return Optional.of(entry.occupancy);
+        }
+        synchronized (lockOf(sessionId)) {
+            entry = entries.get(sessionId);
+            if (entry == null) {
+                var loaded = RoutingContext.onPrimary(() -> load(sessionId));
+                if (loaded.isEmpty()) {
+                    return Optional.empty();
+                }
+                entry = loaded.get();
+                entries.put(sessionId, entry);
+            }
+            return Optional.of(entry.occupancy);
+        }
+    }
+
+    /**
+     * Выполняет action под блокировкой сеанса; карта сеанса, запрошенная внутри, не может быть
+     * заменена новой, пока action не завершится.
+     */
+    public <T> T withSessionLock(int sessionId, Supplier<T> action) {
+        synchronized (lockOf(sessionId)) {
+            return action.get();
+        }
+    }
+
+    public void invalidate(int sessionId) {
+        entries.remove(sessionId);
+    }
+
+    /**
+     * Удаляет карты сеансов, закончившихся раньше now. Повторное обращение к такому сеансу
+     * просто построит карту заново.
+     *
+     * @return число удалённых карт
+     */
+    public int evictEndedBefore(LocalDateTime now) {
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.endTime != null && entry.endTime.isBefore(now));
+        return before - entries.size();
+    }
+
+    private Object lockOf(int sessionId) {
+        return locks[Math.floorMod(sessionId, locks.length)];
+    }
+
+    private Optional<Entry> load(int sessionId) {
+        var filmSession = filmSessionRepository.findById(sessionId);
+        if (filmSession.isEmpty()) {
+            return Optional.empty();
+        }
+        var hall = hallRepository.findById(filmSession.get().getHallId());
+        if (hall.isEmpty()) {
+            return Optional.empty();
+        }
+        var occupancy = new SeatOccupancy(hall.get().getRowCount(), hall.get().getPlaceCount());
+        var journaled = ticketJournal.findPendingSeats(sessionId);
+        for (var seat : ticketRepository.findSeatsBySessionId(sessionId)) {
+            occupancy.occupy(seat.getRowNumber(), seat.getPlaceNumber());
+        }
+        for (var seat : journaled) {
+            occupancy.occupy(seat.getRowNumber(), seat.getPlaceNumber());
+        }
+        return Optional.of(new Entry(occupancy, filmSession.get().getEndTime()));
+    }
+
+    private static final class Entry {
+        private final SeatOccupancy occupancy;
+        private final LocalDateTime endTime;
+
+        private Entry(SeatOccupancy occupancy, LocalDateTime endTime) {
+            this.occupancy = occupancy;
+            this.endTime = endTime;
+        }
+    }
+}
@@ -2,25 +2,230 @@ package ru.job4j.cinema.service.ticket;
 
 import net.jcip.annotations.ThreadSafe;
 import org.springframework.stereotype.Service;
+import ru.job4j.cinema.dto.GroupReservationResult;
+import ru.job4j.cinema.dto.KeysetPage;
+import ru.job4j.cinema.dto.ReservationStatus;
+import ru.job4j.cinema.dto.SeatMap;
 import ru.job4j.cinema.dto.TicketWithDetails;
+import ru.job4j.cinema.model.Seat;
 import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.repository.UnitOfWork;
 import ru.job4j.cinema.repository.ticket.TicketRepository;
+import ru.job4j.cinema.service.session.SessionSeatCounters;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
+/**
+ * Покупка мест. Проверка занятости, снятие удержания и вставка билетов выполняются
+ * в одной транзакции {@link UnitOfWork}; счётчики проданных мест обновляются только после её фиксации.
+ * Если транзакция не зафиксировалась, карта занятости сеанса сбрасывается и строится заново.
+ * В режиме журнала единственная проверка занятости - карта, поэтому места занимаются и ставятся
+ * в журнал под блокировкой сеанса; подтверждения записи на диск покупка ждёт уже без неё.
+ */
 @ThreadSafe
 @Service
 public class SimpleTicketService implements TicketService {
 
+    private static final int BEST_AVAILABLE_ATTEMPTS = 3;
+
     private final TicketRepository ticketRepository;
+    private final SeatOccupancyIndex seatOccupancyIndex;
+    private final SeatHoldRegistry seatHoldRegistry;
+    private final ReservationMailboxes reservationMailboxes;
+    private final TicketJournal ticketJournal;
+    private final SessionSeatCounters sessionSeatCounters;
+    private final UnitOfWork unitOfWork;
 
-    public SimpleTicketService(TicketRepository ticketRepository) {
+    public SimpleTicketService(TicketRepository ticketRepository, SeatOccupancyIndex seatOccupancyIndex,
+                               SeatHoldRegistry seatHoldRegistry, ReservationMailboxes reservationMailboxes,
+                               TicketJournal ticketJournal, SessionSeatCounters sessionSeatCounters,
+                               UnitOfWork unitOfWork) {
         this.ticketRepository = ticketRepository;
+        this.seatOccupancyIndex = seatOccupancyIndex;
+        this.seatHoldRegistry = seatHoldRegistry;
+        this.reservationMailboxes = reservationMailboxes;
+        this.ticketJournal = ticketJournal;
+        this.sessionSeatCounters = sessionSeatCounters;
+        this.unitOfWork = unitOfWork;
+    }
+
+    @Override
+    public ReservationStatus reserveTicket(int sessionId, int rowNumber, int placeNumber, int userId) {
+        var status = inTransaction(sessionId, () -> reserveSeat(sessionId, rowNumber, placeNumber, userId));
+        if (status == ReservationStatus.RESERVED) {
+            sessionSeatCounters.increment(sessionId, 1);
+        }
+        return status;
+    }
+
+    private ReservationStatus reserveSeat(int sessionId, int rowNumber, int placeNumber, int userId) {
+        var hold = seatHoldRegistry.find(sessionId, rowNumber, placeNumber);
+        if (hold.isPresent() && hold.get().getUserId() != userId) {
+            return ReservationStatus.SEAT_TAKEN;
+        }
+        var occupancy = seatOccupancyIndex.findBySessionId(sessionId);
+        if (occupancy.isEmpty()) {
+            return ReservationStatus.SESSION_NOT_FOUND;
+        }
+        if (!occupancy.get().contains(rowNumber, placeNumber)) {
+            return ReservationStatus.OUT_OF_HALL_BOUNDS;
+        }
+        if (hold.isEmpty() && occupancy.get().isOccupied(rowNumber, placeNumber)) {
+            return ReservationStatus.SEAT_TAKEN;
+        }
+        var status = ticketJournal.isEnabled()
+                ? journalSeats(sessionId, List.of(new Seat(rowNumber, placeNumber)), userId).getStatus()
+                : ticketRepository.reserveTicket(sessionId, rowNumber, placeNumber, userId);
+        markSold(occupancy.get(), rowNumber, placeNumber, status);
+        hold.ifPresent(seatHoldRegistry::release);
+        return status;
+    }
+
+    private <T> T inTransaction(int sessionId, Supplier<T> action) {
+        try {
+            return unitOfWork.inTransaction(action);
+        } catch (RuntimeException e) {
+            seatOccupancyIndex.invalidate(sessionId);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<ReservationStatus> reserveTicketAsync(int sessionId, int rowNumber, int placeNumber,
+                                                                   int userId) {
+        return CompletableFuture.supplyAsync(() -> reserveTicket(sessionId, rowNumber, placeNumber, userId),
+                reservationMailboxes.forSession(sessionId));
+    }
+
+    private GroupReservationResult journalSeats(int sessionId, List<Seat> seats, int userId) {
+        var claim = seatOccupancyIndex.withSessionLock(sessionId, () -> claimSeats(sessionId, seats, userId));
+        if (claim.append == null) {
+            return claim.result;
+        }
+        try {
+            claim.append.join();
+        } catch (CompletionException e) {
+            seats.forEach(seat -> claim.occupancy.release(seat.getRowNumber(), seat.getPlaceNumber()));
+            throw e;
+        }
+        return claim.result;
+    }
+
+    /**
+     * Занимает места на текущей карте сеанса и ставит их в журнал; вызывается под блокировкой сеанса.
+     */
+    private JournalClaim claimSeats(int sessionId, List<Seat> seats, int userId) {
+        var occupancy = seatOccupancyIndex.findBySessionId(sessionId);
+        if (occupancy.isEmpty()) {
+            return new JournalClaim(GroupReservationResult.sessionNotFound(seats), null, null);
+        }
+        var claimed = new ArrayList<Seat>();
+        for (var seat : seats) {
+            if (!occupancy.get().occupy(seat.getRowNumber(), seat.getPlaceNumber())) {
+                claimed.forEach(taken -> occupancy.get().release(taken.getRowNumber(), taken.getPlaceNumber()));
+                return new JournalClaim(GroupReservationResult.conflicted(seats, List.of(seat)), null, null);
+            }
+            claimed.add(seat);
+        }
+        return new JournalClaim(GroupReservationResult.reserved(seats), occupancy.get(),
+                ticketJournal.append(sessionId, seats, userId));
+    }
+
+    private void markSold(SeatOccupancy occupancy, int rowNumber, int placeNumber, ReservationStatus status) {
+        if (status == ReservationStatus.RESERVED || status == ReservationStatus.SEAT_TAKEN) {
+            occupancy.occupy(rowNumber, placeNumber);
+        }
     }
 
     @Override
-    public boolean reserveTicket(int sessionId, int rowNumber, int placeNumber, int userId) {
-        return ticketRepository.reserveTicket(sessionId, rowNumber, placeNumber, userId);
+    public Optional<SeatHold> holdSeat(int sessionId, int rowNumber, int placeNumber, int userId) {
+        var occupancy = seatOccupancyIndex.findBySessionId(sessionId);
+        if (occupancy.isEmpty() || !occupancy.get().contains(rowNumber, placeNumber)
+                || occupancy.get().isOccupied(rowNumber, placeNumber)) {
+            return Optional.empty();
+        }
+        return seatHoldRegistry.hold(sessionId, rowNumber, placeNumber, userId);
+    }
+
+    @Override
+    public GroupReservationResult reserveTickets(int sessionId, List<Seat> seats, int userId) {
+        var result = inTransaction(sessionId, () -> reserveSeats(sessionId, seats, userId));
+        if (result.isReserved()) {
+            sessionSeatCounters.increment(sessionId, seats.size());
+        }
+        return result;
+    }
+
+    private GroupReservationResult reserveSeats(int sessionId, List<Seat> seats, int userId) {
+        var occupancy = seatOccupancyIndex.findBySessionId(sessionId);
+        var outOfHall = occupancy.map(map -> seats.stream()
+                .filter(seat -> !map.contains(seat.getRowNumber(), seat.getPlaceNumber()))
+                .toList()).orElse(List.of());
+        if (!outOfHall.isEmpty()) {
+            return GroupReservationResult.outOfHallBounds(seats, outOfHall);
+        }
+        var conflicts = new ArrayList<Seat>();
+        var requested = new HashSet<Seat>();
+        for (var seat : seats) {
+            var isTaken = occupancy.isPresent() && occupancy.get().isOccupied(seat.getRowNumber(), seat.getPlaceNumber())
+                    || isHeldByOther(sessionId, seat, userId);
+            if (!requested.add(seat) || isTaken) {
+                conflicts.add(seat);
+            }
+        }
+        if (seats.isEmpty() || !conflicts.isEmpty()) {
+            return GroupReservationResult.conflicted(seats, conflicts);
+        }
+        var result = ticketJournal.isEnabled()
+                ? journalSeats(sessionId, seats, userId)
+                : insertTickets(occupancy, sessionId, seats, userId);
+        if (result.isReserved()) {
+            releaseHolds(sessionId, seats);
+        }
+        return result;
+    }
+
+    private void releaseHolds(int sessionId, List<Seat> seats) {
+        for (var seat : seats) {
+            seatHoldRegistry.find(sessionId, seat.getRowNumber(), seat.getPlaceNumber())
+                    .ifPresent(seatHoldRegistry::release);
+        }
+    }
+
+    private GroupReservationResult insertTickets(Optional<SeatOccupancy> occupancy, int sessionId, List<Seat> seats,
+                                                 int userId) {
+        var result = ticketRepository.reserveTickets(sessionId, seats, userId);
+        var sold = result.isReserved() ? result.getSeats()
+                : result.getStatus() == ReservationStatus.SEAT_TAKEN ? result.getConflicts() : List.<Seat>of();
+        occupancy.ifPresent(map -> sold.forEach(seat -> map.occupy(seat.getRowNumber(), seat.getPlaceNumber())));
+        return result;
+    }
+
+    @Override
+    public GroupReservationResult reserveBestAvailable(int sessionId, int count, int userId) {
+        var result = GroupReservationResult.conflicted(List.of(), List.of());
+        for (int attempt = 0; attempt < BEST_AVAILABLE_ATTEMPTS && !result.isReserved(); attempt++) {
+            var block = findSeatMap(sessionId).flatMap(seatMap -> BestSeatFinder.find(seatMap, count));
+            if (block.isEmpty()) {
+                break;
+            }
+            result = reserveTickets(sessionId, block.get(), userId);
+        }
+        return result;
+    }
+
+    private boolean isHeldByOther(int sessionId, Seat seat, int userId) {
+        return seatHoldRegistry.find(sessionId, seat.getRowNumber(), seat.getPlaceNumber())
+                .filter(hold -> hold.getUserId() != userId)
+                .isPresent();
     }
 
     @Override
@@ -32,4 +237,39 @@ public class SimpleTicketService implements TicketService {
     public Collection<TicketWithDetails> findTicketsWithDetailsByUserId(int userId) {
         return ticketRepository.findTicketsWithDetailsByUserId(userId);
     }
-}
\ No newline at end of file
+
+    @Override
+    public KeysetPage<TicketWithDetails> findTicketsWithDetailsPage(int userId, LocalDateTime beforeStartTime,
+                                                                    int beforeTicketId, int limit) {
+        return KeysetPage.of(ticketRepository.findTicketsWithDetailsPageByUserId(userId, beforeStartTime,
+                beforeTicketId, limit + 1), limit);
+    }
+
+    @Override
+    public Optional<SeatOccupancy> findSeatOccupancy(int sessionId) {
+        return seatOccupancyIndex.findBySessionId(sessionId);
+    }
+
+    @Override
+    public Optional<SeatMap> findSeatMap(int sessionId) {
+        return seatOccupancyIndex.findBySessionId(sessionId).map(occupancy -> {
+            var unavailable = occupancy.snapshot();
+            for (var hold : seatHoldRegistry.findBySessionId(sessionId)) {
+                unavailable.set((hold.getRowNumber() - 1) * occupancy.getPlaceCount() + hold.getPlaceNumber() - 1);
+            }
+            return new SeatMap(occupancy.getRowCount(), occupancy.getPlaceCount(), unavailable);
+        });
+    }
+
+    private static final class JournalClaim {
+        private final GroupReservationResult result;
+        private final SeatOccupancy occupancy;
+        private final CompletableFuture<Void> append;
+
+        private JournalClaim(GroupReservationResult result, SeatOccupancy occupancy, CompletableFuture<Void> append) {
+            this.result = result;
+            this.occupancy = occupancy;
+            this.append = append;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package ru.job4j.cinema.service.ticket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.Seat;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.repository.ticket.TicketRepository;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал покупок для отложенной записи в tickets.
+ * Покупка подтверждается, как только её запись попала в файл и сброшена на диск:
+ * поток-писатель раз в flushMillis пишет все накопившиеся записи одним вызовом и делает один force().
+ * Поток-сливщик переносит записи в tickets пачками через INSERT ... ON CONFLICT DO NOTHING,
+ * поэтому повторный перенос безопасен: после падения журнал целиком переигрывается при старте,
+ * а когда всё перенесено, файл обрезается до нуля. Опустевшее множество мест сеанса удаляется сразу.
+ * Пачка всегда заканчивается на границе покупки, так что места одной покупки попадают в tickets
+ * одной транзакцией; недописанная покупка в хвосте файла при старте отбрасывается целиком.
+ * Чужих билетов на журнальных местах быть не может: покупки сеанса занимают места под его
+ * блокировкой в {@link SeatOccupancyIndex}, и ON CONFLICT пропускает только уже перенесённые строки.
+ * Перенос выполняется под отдельной блокировкой, поэтому остановка не пересекается с работающим сливщиком.
+ * Запись: session_id, row_number, place_number, user_id, число мест покупки от этой записи до её конца
+ * и CRC32 этих полей, по 4 байта.
+ */
+@ThreadSafe
+@Component
+public class TicketJournal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TicketJournal.class);
+
+    private static final int RECORD_SIZE = 6 * Integer.BYTES;
+
+    private final boolean enabled;
+    private final Path path;
+    private final long flushMillis;
+    private final long drainMillis;
+    private final int batchSize;
+    private final TicketRepository ticketRepository;
+    private final ConcurrentLinkedQueue<PendingAppend> appends = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<Integer, Set<Seat>> pendingSeats = new ConcurrentHashMap<>();
+    private final Object fileLock = new Object();
+    private final Object drainLock = new Object();
+    private FileChannel channel;
+    private long durableSize;
+    private long drainedOffset;
+    private ScheduledExecutorService flusher;
+    private ScheduledExecutorService drainer;
+
+    @Autowired
+    public TicketJournal(@Value("${app.journal.enabled:false}") boolean enabled,
+                         @Value("${app.journal.path:journal/tickets.journal}") String path,
+                         @Value("${app.journal.flush-millis:5}") long flushMillis,
+                         @Value("${app.journal.drain-millis:200}") long drainMillis,
+                         @Value("${app.journal.batch-size:500}") int batchSize,
+                         TicketRepository ticketRepository) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.flushMillis = flushMillis;
+        this.drainMillis = drainMillis;
+        this.batchSize = batchSize;
+        this.ticketRepository = ticketRepository;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        open();
+        while (drain() > 0) {
+            LOG.info("Replayed ticket journal up to offset {}", drainedOffset);
+        }
+        flusher = singleThread("ticket-journal-flusher");
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        drainer = singleThread("ticket-journal-drainer");
+        drainer.scheduleWithFixedDelay(this::drainQuietly, drainMillis, drainMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (!enabled || channel == null) {
+            return;
+        }
+        shutdown(flusher);
+        shutdown(drainer);
+        flush();
+        drainQuietly();
+        channel.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<Void> append(int sessionId, List<Seat> seats, int userId) {
+        if (!enabled) {
+            throw new IllegalStateException("Ticket journal is disabled");
+        }
+        addPendingSeats(sessionId, seats);
+        var future = new CompletableFuture<Void>();
+        future.whenComplete((ignored, error) -> {
+            if (error != null) {
+                removePendingSeats(sessionId, seats);
+            }
+        });
+        appends.add(new PendingAppend(sessionId, seats, userId, future));
+        return future;
+    }
+
+    public Collection<Seat> findPendingSeats(int sessionId) {
+        var seats = pendingSeats.get(sessionId);
+        return seats == null ? List.of() : List.copyOf(seats);
+    }
+
+    /**
+     * Число ещё не перенесённых в tickets мест по сеансам.
+     */
+    public Map<Integer, Integer> countPendingSeats() {
+        var counts = new HashMap<Integer, Integer>();
+        pendingSeats.forEach((sessionId, seats) -> counts.put(sessionId, seats.size()));
+        return counts;
+    }
+
+    public void flush() {
+        var batch = new ArrayList<PendingAppend>();
+        PendingAppend append;
+        while ((append = appends.poll()) != null) {
+            batch.add(append);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        var buffer = ByteBuffer.allocate(batch.stream().mapToInt(pending -> pending.seats.size()).sum() * RECORD_SIZE);
+        for (var pending : batch) {
+            int remaining = pending.seats.size();
+            for (var seat : pending.seats) {
+                putRecord(buffer, new Ticket(0, pending.sessionId, seat.getRowNumber(), seat.getPlaceNumber(),
+                        pending.userId), remaining--);
+            }
+        }
+        buffer.flip();
+        try {
+            synchronized (fileLock) {
+                long position = durableSize;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                channel.force(false);
+                durableSize = position;
+            }
+            batch.forEach(pending -> pending.future.complete(null));
+        } catch (IOException e) {
+            LOG.error("Failed to append {} purchases to ticket journal", batch.size(), e);
+            batch.forEach(pending -> pending.future.completeExceptionally(new UncheckedIOException(e)));
+        }
+    }
+
+    public int drain() throws IOException {
+        synchronized (drainLock) {
+            return drainBatch();
+        }
+    }
+
+    private int drainBatch() throws IOException {
+        long size;
+        synchronized (fileLock) {
+            size = durableSize;
+            if (drainedOffset == size) {
+                compact();
+                return 0;
+            }
+        }
+        var tickets = new ArrayList<Ticket>();
+        int remaining = readRecords(drainedOffset, (int) Math.min((size - drainedOffset) / RECORD_SIZE, batchSize),
+                tickets);
+        if (remaining > 1) {
+            readRecords(drainedOffset + (long) tickets.size() * RECORD_SIZE, remaining - 1, tickets);
+        }
+        ticketRepository.saveAll(tickets);
+        for (var ticket : tickets) {
+            var seat = new Seat(ticket.getRowNumber(), ticket.getPlaceNumber());
+            removePendingSeats(ticket.getSessionId(), List.of(seat));
+        }
+        drainedOffset += (long) tickets.size() * RECORD_SIZE;
+        return tickets.size();
+    }
+
+    /**
+     * Читает count записей с позиции offset в tickets.
+     *
+     * @return сколько мест покупки осталось от последней прочитанной записи до её конца, включая её саму
+     */
+    private int readRecords(long offset, int count, List<Ticket> tickets) throws IOException {
+        var buffer = ByteBuffer.allocate(count * RECORD_SIZE);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Ticket journal is shorter than its durable size " + durableSize);
+            }
+        }
+        buffer.flip();
+        int remaining = 0;
+        while (buffer.hasRemaining()) {
+            tickets.add(readRecord(buffer));
+            remaining = remainingOf(buffer, buffer.position() - RECORD_SIZE);
+        }
+        return remaining;
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (Exception e) {
+            LOG.error("Failed to drain ticket journal at offset {}", drainedOffset, e);
+        }
+    }
+
+    private void addPendingSeats(int sessionId, Collection<Seat> seats) {
+        pendingSeats.compute(sessionId, (id, current) -> {
+            var seatsOfSession = current != null ? current : ConcurrentHashMap.<Seat>newKeySet();
+            seatsOfSession.addAll(seats);
+            return seatsOfSession;
+        });
+    }
+
+    private void removePendingSeats(int sessionId, Collection<Seat> seats) {
+        pendingSeats.computeIfPresent(sessionId, (id, current) -> {
+            current.removeAll(seats);
+            return current.isEmpty() ? null : current;
+        });
+    }
+
+    private void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        var buffer = ByteBuffer.allocate(RECORD_SIZE);
+        var purchase = new ArrayList<Seat>();
+        long read = 0;
+        long valid = 0;
+        while (channel.read(buffer.clear(), read) == RECORD_SIZE && isValid(buffer.flip())) {
+            var ticket = readRecord(buffer.rewind());
+            purchase.add(new Seat(ticket.getRowNumber(), ticket.getPlaceNumber()));
+            read += RECORD_SIZE;
+            if (remainingOf(buffer, 0) == 1) {
+                addPendingSeats(ticket.getSessionId(), purchase);
+                purchase.clear();
+                valid = read;
+            }
+        }
+        if (valid < channel.size()) {
+            LOG.warn("Truncating torn ticket journal tail from {} to {} bytes", channel.size(), valid);
+            channel.truncate(valid);
+            channel.force(false);
+        }
+        durableSize = valid;
+    }
+
+    private void compact() throws IOException {
+        if (durableSize > 0) {
+            channel.truncate(0);
+            channel.force(false);
+            durableSize = 0;
+            drainedOffset = 0;
+        }
+    }
+
+    private static void putRecord(ByteBuffer buffer, Ticket ticket, int remaining) {
+        int start = buffer.position();
+        buffer.putInt(ticket.getSessionId())
+                .putInt(ticket.getRowNumber())
+                .putInt(ticket.getPlaceNumber())
+                .putInt(ticket.getUserId())
+                .putInt(remaining);
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    private static Ticket readRecord(ByteBuffer buffer) {
+        var ticket = new Ticket(0, buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+        buffer.getInt();
+        buffer.getInt();
+        return ticket;
+    }
+
+    private static int remainingOf(ByteBuffer buffer, int recordStart) {
+        return buffer.getInt(recordStart + RECORD_SIZE - 2 * Integer.BYTES);
+    }
+
+    private static boolean isValid(ByteBuffer record) {
+        return checksum(record, 0) == record.getInt(RECORD_SIZE - Integer.BYTES);
+    }
+
+    private static int checksum(ByteBuffer buffer, int start) {
+        var crc = new CRC32();
+        crc.update(buffer.slice(start, RECORD_SIZE - Integer.BYTES));
+        return (int) crc.getValue();
+    }
+
+    private static ScheduledExecutorService singleThread(String name) {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void shutdown(ScheduledExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                LOG.warn("Ticket journal worker did not stop within 1 second, waiting for its current batch");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class PendingAppend {
+        private final int sessionId;
+        private final List<Seat> seats;
+        private final int userId;
+        private final CompletableFuture<Void> future;
+
+        private PendingAppend(int sessionId, List<Seat> seats, int userId, CompletableFuture<Void> future) {
+            this.sessionId = sessionId;
+            this.seats = seats;
+            this.userId = userId;
+            this.future = future;
+        }
+    }
+}
@@ -1,15 +1,39 @@
 package ru.job4j.cinema.service.ticket;
 
+import ru.job4j.cinema.dto.GroupReservationResult;
+import ru.job4j.cinema.dto.KeysetPage;
+import ru.job4j.cinema.dto.ReservationStatus;
+import ru.job4j.cinema.dto.SeatMap;
 import ru.job4j.cinema.dto.TicketWithDetails;
+import ru.job4j.cinema.model.Seat;
 import ru.job4j.cinema.model.Ticket;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface TicketService {
 
-    boolean reserveTicket(int sessionId, int rowNumber, int placeNumber, int userId);
+    ReservationStatus reserveTicket(int sessionId, int rowNumber, int placeNumber, int userId);
+
+    CompletableFuture<ReservationStatus> reserveTicketAsync(int sessionId, int rowNumber, int placeNumber, int userId);
+
+    GroupReservationResult reserveTickets(int sessionId, List<Seat> seats, int userId);
+
+    GroupReservationResult reserveBestAvailable(int sessionId, int count, int userId);
+
+    Optional<SeatHold> holdSeat(int sessionId, int rowNumber, int placeNumber, int userId);
 
     Collection<Ticket> findByUserId(int userId);
 
     Collection<TicketWithDetails> findTicketsWithDetailsByUserId(int userId);
+
+    KeysetPage<TicketWithDetails> findTicketsWithDetailsPage(int userId, LocalDateTime beforeStartTime,
+                                                             int beforeTicketId, int limit);
+
+    Optional<SeatOccupancy> findSeatOccupancy(int sessionId);
+
+    Optional<SeatMap> findSeatMap(int sessionId);
 }
\ No newline at end of file
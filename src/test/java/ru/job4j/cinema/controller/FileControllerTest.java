@@ -2,52 +2,70 @@ package ru.job4j.cinema.controller;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
-import ru.job4j.cinema.dto.FileDto;
+import ru.job4j.cinema.dto.StoredFile;
 import ru.job4j.cinema.service.file.FileService;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 class FileControllerTest {
 
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
     private MockMvc mockMvc;
     private FileService fileService;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
         fileService = mock(FileService.class);
         mockMvc = MockMvcBuilders.standaloneSetup(new FileController(fileService)).build();
     }
 
+    private StoredFile stored(int id, String name, String contentType, byte[] content) throws Exception {
+        var path = Files.write(tempDir.resolve(name), content);
+        var file = new StoredFile(id, path, contentType, content.length, LAST_MODIFIED);
+        when(fileService.findStoredFile(id)).thenReturn(Optional.of(file));
+        return file;
+    }
+
     /**
- * Тестирует сценарий: успешное выполнение при get file exists_then return file with correct headers
+ * Тестирует сценарий: файл существует_then отдаётся целиком с сохранённым типом и заголовками кэширования
  * 
- * @see #whenGetFileExists_thenReturnFileWithCorrectHeaders()
+ * @see #whenGetFileExists_thenStreamFileWithStoredContentTypeAndCacheHeaders()
  */
 
 
     @Test
 
 
-    void whenGetFileExists_thenReturnFileWithCorrectHeaders() throws Exception {
-        byte[] testContent = "test image content".getBytes();
-        FileDto fileDto = new FileDto("test.jpg", testContent);
-
-        when(fileService.getFileById(1)).thenReturn(Optional.of(fileDto));
+    void whenGetFileExists_thenStreamFileWithStoredContentTypeAndCacheHeaders() throws Exception {
+        byte[] content = "png image content".getBytes();
+        var file = stored(1, "logo.png", "image/png", content);
 
         mockMvc.perform(get("/files/1"))
                 .andExpect(status().isOk())
-                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
-                .andExpect(header().longValue("Content-Length", testContent.length))
-                .andExpect(content().bytes(testContent));
-
-        verify(fileService).getFileById(1);
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.ETAG, file.getEtag()))
+                .andExpect(content().bytes(content));
+
+        verify(fileService).findStoredFile(1);
     }
 
     /**
@@ -61,12 +79,12 @@ class FileControllerTest {
 
 
     void whenGetFileNotExists_thenReturnNotFound() throws Exception {
-        when(fileService.getFileById(999)).thenReturn(Optional.empty());
+        when(fileService.findStoredFile(999)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/files/999"))
                 .andExpect(status().isNotFound());
 
-        verify(fileService).getFileById(999);
+        verify(fileService).findStoredFile(999);
     }
 
     /**
@@ -80,52 +98,182 @@ class FileControllerTest {
 
 
     void whenGetFileWithEmptyContent_thenReturnEmptyFile() throws Exception {
-        byte[] emptyContent = new byte[0];
-        FileDto fileDto = new FileDto("empty.jpg", emptyContent);
-
-        when(fileService.getFileById(3)).thenReturn(Optional.of(fileDto));
+        stored(3, "empty.jpg", "image/jpeg", new byte[0]);
 
         mockMvc.perform(get("/files/3"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.IMAGE_JPEG))
-                .andExpect(header().longValue("Content-Length", 0))
-                .andExpect(content().bytes(emptyContent));
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 0))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    /**
+ * Тестирует сценарий: запрос с Range_then возвращается 206 с запрошенным диапазоном
+ * 
+ * @see #whenGetFileWithRange_thenReturnPartialContent()
+ */
+
+
+    @Test
+
+
+    void whenGetFileWithRange_thenReturnPartialContent() throws Exception {
+        stored(4, "digits.txt", "text/plain", "0123456789".getBytes());
 
-        verify(fileService).getFileById(3);
+        mockMvc.perform(get("/files/4").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes("2345".getBytes()));
     }
 
     /**
- * Тестирует сценарий: корректность возвращаемых данных при get file with negative id_then return not found
+ * Тестирует сценарий: запрос с суффиксным Range_then возвращаются последние байты файла
  * 
- * @see #whenGetFileWithNegativeId_thenReturnNotFound()
+ * @see #whenGetFileWithSuffixRange_thenReturnLastBytes()
  */
 
 
     @Test
 
 
-    void whenGetFileWithNegativeId_thenReturnNotFound() throws Exception {
-        mockMvc.perform(get("/files/-1"))
-                .andExpect(status().isNotFound());
+    void whenGetFileWithSuffixRange_thenReturnLastBytes() throws Exception {
+        stored(4, "digits.txt", "text/plain", "0123456789".getBytes());
+
+        mockMvc.perform(get("/files/4").header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().bytes("789".getBytes()));
     }
 
     /**
- * Тестирует сценарий: get file_then service called once
+ * Тестирует сценарий: Range за концом файла_then возвращается 416
  * 
- * @see #whenGetFile_thenServiceCalledOnce()
+ * @see #whenGetFileWithRangeBeyondEnd_thenReturnRangeNotSatisfiable()
  */
 
 
     @Test
 
 
-    void whenGetFile_thenServiceCalledOnce() throws Exception {
-        byte[] content = "content".getBytes();
-        when(fileService.getFileById(5)).thenReturn(Optional.of(new FileDto("test.jpg", content)));
+    void whenGetFileWithRangeBeyondEnd_thenReturnRangeNotSatisfiable() throws Exception {
+        stored(4, "digits.txt", "text/plain", "0123456789".getBytes());
 
-        mockMvc.perform(get("/files/5"));
+        mockMvc.perform(get("/files/4").header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    /**
+ * Тестирует сценарий: If-Range не совпадает с ETag_then Range игнорируется
+ * 
+ * @see #whenGetFileWithStaleIfRange_thenReturnWholeFile()
+ */
+
+
+    @Test
+
+
+    void whenGetFileWithStaleIfRange_thenReturnWholeFile() throws Exception {
+        stored(4, "digits.txt", "text/plain", "0123456789".getBytes());
+
+        mockMvc.perform(get("/files/4")
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("0123456789".getBytes()));
+    }
+
+    /**
+ * Тестирует сценарий: If-None-Match совпадает с ETag_then возвращается 304 без тела
+ * 
+ * @see #whenGetFileWithMatchingIfNoneMatch_thenReturnNotModified()
+ */
+
+
+    @Test
+
+
+    void whenGetFileWithMatchingIfNoneMatch_thenReturnNotModified() throws Exception {
+        var file = stored(4, "digits.txt", "text/plain", "0123456789".getBytes());
+
+        mockMvc.perform(get("/files/4").header(HttpHeaders.IF_NONE_MATCH, file.getEtag()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
 
-        verify(fileService, times(1)).getFileById(5);
-        verifyNoMoreInteractions(fileService);
+    /**
+ * Тестирует сценарий: If-Modified-Since не раньше изменения файла_then возвращается 304
+ * 
+ * @see #whenGetFileNotModifiedSince_thenReturnNotModified()
+ */
+
+
+    @Test
+
+
+    void whenGetFileNotModifiedSince_thenReturnNotModified() throws Exception {
+        stored(4, "digits.txt", "text/plain", "0123456789".getBytes());
+
+        mockMvc.perform(get("/files/4").header(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED))
+                .andExpect(status().isNotModified());
+    }
+
+    /**
+ * Тестирует сценарий: контейнер поддерживает sendfile_then тело не пишется, а передаётся контейнеру
+ * 
+ * @see #whenContainerSupportsSendfile_thenTransferDelegatedToContainer()
+ */
+
+
+    @Test
+
+
+    void whenContainerSupportsSendfile_thenTransferDelegatedToContainer() throws Exception {
+        var file = stored(4, "digits.txt", "text/plain", "0123456789".getBytes());
+
+        mockMvc.perform(get("/files/4")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE)
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(new byte[0]))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename",
+                        file.getPath().toAbsolutePath().toString()))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 2L))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 6L));
+    }
+
+    /**
+ * Тестирует сценарий: HEAD-запрос_then заголовки без тела
+ * 
+ * @see #whenHeadFile_thenHeadersWithoutBody()
+ */
+
+
+    @Test
+
+
+    void whenHeadFile_thenHeadersWithoutBody() throws Exception {
+        stored(4, "digits.txt", "text/plain", "0123456789".getBytes());
+
+        mockMvc.perform(head("/files/4"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    /**
+ * Тестирует сценарий: корректность возвращаемых данных при get file with negative id_then return not found
+ * 
+ * @see #whenGetFileWithNegativeId_thenReturnNotFound()
+ */
+
+
+    @Test
+
+
+    void whenGetFileWithNegativeId_thenReturnNotFound() throws Exception {
+        mockMvc.perform(get("/files/-1"))
+                .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+}
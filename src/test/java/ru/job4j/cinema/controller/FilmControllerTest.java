@@ -4,10 +4,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.job4j.cinema.dto.KeysetPage;
 import ru.job4j.cinema.model.Film;
 import ru.job4j.cinema.model.Genre;
 import ru.job4j.cinema.service.film.FilmService;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
@@ -36,12 +38,14 @@ class FilmControllerTest {
 
 
     void whenGetAll_thenReturnFilmsListView() throws Exception {
+        when(filmService.findPage(0, KeysetPage.DEFAULT_LIMIT)).thenReturn(KeysetPage.of(List.of(), KeysetPage.DEFAULT_LIMIT));
+
         mockMvc.perform(get("/films"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("films/list"))
                 .andExpect(model().attributeExists("films"));
 
-        verify(filmService).findAll();
+        verify(filmService).findPage(0, KeysetPage.DEFAULT_LIMIT);
     }
 
     /**
@@ -55,8 +59,7 @@ class FilmControllerTest {
 
 
     void whenGetByIdExists_thenReturnOneFilmView() throws Exception {
-        Film film = new Film(1, "Inception", "Dreams", 2010, 1, 16, 148, 1);
-        film.setGenre(new Genre(1, "Sci-Fi"));
+        Film film = new Film(1, "Inception", "Dreams", 2010, 1, 16, 148, 1, new Genre(1, "Sci-Fi"));
         when(filmService.findById(1)).thenReturn(Optional.of(film));
 
         mockMvc.perform(get("/films/1"))
@@ -105,19 +108,42 @@ class FilmControllerTest {
     }
 
     /**
- * Тестирует сценарий: get all_then service find all called once
+ * Тестирует сценарий: get all_then service find page called once
  * 
- * @see #whenGetAll_thenServiceFindAllCalledOnce()
+ * @see #whenGetAll_thenServiceFindPageCalledOnce()
  */
 
 
     @Test
 
 
-    void whenGetAll_thenServiceFindAllCalledOnce() throws Exception {
+    void whenGetAll_thenServiceFindPageCalledOnce() throws Exception {
+        when(filmService.findPage(0, KeysetPage.DEFAULT_LIMIT)).thenReturn(KeysetPage.of(List.of(), KeysetPage.DEFAULT_LIMIT));
+
         mockMvc.perform(get("/films"));
 
-        verify(filmService, times(1)).findAll();
+        verify(filmService, times(1)).findPage(0, KeysetPage.DEFAULT_LIMIT);
         verifyNoMoreInteractions(filmService);
     }
-}
\ No newline at end of file
+
+    /**
+ * Тестирует сценарий: get all with after id_then next page requested from cursor
+ * 
+ * @see #whenGetAllWithAfterId_thenNextPageRequestedFromCursor()
+ */
+
+
+    @Test
+
+
+    void whenGetAllWithAfterId_thenNextPageRequestedFromCursor() throws Exception {
+        Film film = new Film(21, "Inception", "Dreams", 2010, 1, 16, 148, 1);
+        var page = KeysetPage.of(List.of(film, new Film(22, "Tenet", "Time", 2020, 1, 16, 150, 2)), 1);
+        when(filmService.findPage(20, KeysetPage.DEFAULT_LIMIT)).thenReturn(page);
+
+        mockMvc.perform(get("/films").param("afterId", "20"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("films", List.of(film)))
+                .andExpect(model().attribute("page", page));
+    }
+}
@@ -4,19 +4,28 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.job4j.cinema.dto.KeysetPage;
+import ru.job4j.cinema.filter.PageCacheFilter;
 import ru.job4j.cinema.model.Film;
 import ru.job4j.cinema.model.FilmSession;
+import ru.job4j.cinema.repository.UnitOfWork;
+import ru.job4j.cinema.service.admission.AdmissionService;
 import ru.job4j.cinema.service.session.FilmSessionService;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(FilmSessionController.class)
+@WebMvcTest(controllers = FilmSessionController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = PageCacheFilter.class))
 class FilmSessionControllerTest {
 
     @Autowired
@@ -25,6 +34,12 @@ class FilmSessionControllerTest {
     @MockBean
     private FilmSessionService filmSessionService;
 
+    @MockBean
+    private AdmissionService admissionService;
+
+    @MockBean
+    private UnitOfWork unitOfWork;
+
     private final LocalDateTime testStartTime = LocalDateTime.of(2023, 12, 1, 18, 0);
     private final LocalDateTime testEndTime = LocalDateTime.of(2023, 12, 1, 20, 0);
 
@@ -42,7 +57,8 @@ class FilmSessionControllerTest {
         Film film = new Film(1, "Inception", "Description", 2010, 1, 16, 148, 1);
         FilmSession session = new FilmSession(1, 1, 1, testStartTime, testEndTime, 500, film);
 
-        when(filmSessionService.findAll()).thenReturn(List.of(session));
+        when(filmSessionService.findPage(null, 0, KeysetPage.DEFAULT_LIMIT))
+                .thenReturn(KeysetPage.of(List.of(session), KeysetPage.DEFAULT_LIMIT));
 
         mockMvc.perform(get("/sessions"))
                 .andExpect(status().isOk())
@@ -50,6 +66,57 @@ class FilmSessionControllerTest {
                 .andExpect(model().attributeExists("sessions"))
                 .andExpect(model().attribute("sessions", List.of(session)));
 
-        verify(filmSessionService).findAll();
+        verify(filmSessionService).findPage(null, 0, KeysetPage.DEFAULT_LIMIT);
+    }
+
+    /**
+ * Тестирует сценарий: get all with sold out session_then show sold out label
+ * 
+ * @see #whenGetAllWithSoldOutSession_thenShowSoldOutLabel()
+ */
+
+
+    @Test
+
+
+    void whenGetAllWithSoldOutSession_thenShowSoldOutLabel() throws Exception {
+        Film film = new Film(1, "Inception", "Description", 2010, 1, 16, 148, 1);
+        FilmSession soldOut = new FilmSession(1, 1, 1, testStartTime, testEndTime, 500, film);
+        FilmSession available = new FilmSession(2, 1, 1, testStartTime, testEndTime, 500, film);
+        List<FilmSession> sessions = List.of(soldOut, available);
+
+        when(filmSessionService.findPage(null, 0, KeysetPage.DEFAULT_LIMIT))
+                .thenReturn(KeysetPage.of(sessions, KeysetPage.DEFAULT_LIMIT));
+        when(filmSessionService.findFreeSeatCounts(sessions)).thenReturn(Map.of(1, 0, 2, 12));
+
+        mockMvc.perform(get("/sessions"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("freeSeats", Map.of(1, 0, 2, 12)))
+                .andExpect(content().string(containsString("Билеты проданы")))
+                .andExpect(content().string(containsString("<span>12</span>")));
+    }
+
+    /**
+ * Тестирует сценарий: get all with more sessions_then next page link carries last start time and id
+ * 
+ * @see #whenGetAllWithMoreSessions_thenNextPageLinkCarriesLastStartTimeAndId()
+ */
+
+
+    @Test
+
+
+    void whenGetAllWithMoreSessions_thenNextPageLinkCarriesLastStartTimeAndId() throws Exception {
+        Film film = new Film(1, "Inception", "Description", 2010, 1, 16, 148, 1);
+        FilmSession first = new FilmSession(7, 1, 1, testStartTime, testEndTime, 500, film);
+        FilmSession next = new FilmSession(8, 1, 1, testStartTime.plusHours(3), testEndTime.plusHours(3), 500, film);
+        LocalDateTime cursor = testStartTime.minusDays(1);
+
+        when(filmSessionService.findPage(cursor, 6, KeysetPage.DEFAULT_LIMIT)).thenReturn(KeysetPage.of(List.of(first, next), 1));
+
+        mockMvc.perform(get("/sessions").param("afterStart", cursor.toString()).param("afterId", "6"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("sessions", List.of(first)))
+                .andExpect(content().string(containsString("/sessions?afterStart=2023-12-01T18:00&amp;afterId=7")));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package ru.job4j.cinema.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ui.Model;
+import ru.job4j.cinema.dto.AdmissionStatus;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.service.admission.AdmissionService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class QueueControllerTest {
+
+    private AdmissionService admissionService;
+    private QueueController queueController;
+    private Model model;
+    private HttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        admissionService = mock(AdmissionService.class);
+        queueController = new QueueController(admissionService, 5);
+        model = mock(Model.class);
+        request = mock(HttpServletRequest.class);
+        HttpSession session = mock(HttpSession.class);
+        when(request.getSession()).thenReturn(session);
+        when(session.getAttribute("user")).thenReturn(new User(7, "John Doe", "john@example.com", "password"));
+    }
+
+    /**
+ * Тестирует сценарий: show queue when user waiting then return wait page with position
+ * 
+ * @see #whenShowQueueAndUserWaitingThenReturnWaitPageWithPosition()
+ */
+
+
+    @Test
+
+
+    void whenShowQueueAndUserWaitingThenReturnWaitPageWithPosition() {
+        when(admissionService.admit(1, 7)).thenReturn(AdmissionStatus.waiting(42));
+
+        String view = queueController.showQueue(1, model, request);
+
+        assertThat(view).isEqualTo("queue/wait");
+        verify(model).addAttribute("position", 42L);
+        verify(model).addAttribute("pollSeconds", 5);
+    }
+
+    /**
+ * Тестирует сценарий: show queue when user admitted then redirect to buy page
+ * 
+ * @see #whenShowQueueAndUserAdmittedThenRedirectToBuyPage()
+ */
+
+
+    @Test
+
+
+    void whenShowQueueAndUserAdmittedThenRedirectToBuyPage() {
+        when(admissionService.admit(1, 7)).thenReturn(AdmissionStatus.admitted());
+
+        String view = queueController.showQueue(1, model, request);
+
+        assertThat(view).isEqualTo("redirect:/tickets/buy?sessionId=1");
+        verifyNoInteractions(model);
+    }
+}
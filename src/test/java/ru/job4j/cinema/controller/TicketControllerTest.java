@@ -3,17 +3,24 @@ package ru.job4j.cinema.controller;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.ui.Model;
+import ru.job4j.cinema.dto.KeysetPage;
+import ru.job4j.cinema.dto.ReservationStatus;
+import ru.job4j.cinema.dto.SeatMap;
+import ru.job4j.cinema.dto.TicketWithDetails;
 import ru.job4j.cinema.model.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
+import ru.job4j.cinema.service.admission.AdmissionService;
 import ru.job4j.cinema.service.film.FilmService;
 import ru.job4j.cinema.service.hall.HallService;
 import ru.job4j.cinema.service.session.FilmSessionService;
+import ru.job4j.cinema.service.ticket.SeatHold;
 import ru.job4j.cinema.service.ticket.TicketService;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -25,6 +32,7 @@ class TicketControllerTest {
     private FilmSessionService filmSessionService;
     private FilmService filmService;
     private HallService hallService;
+    private AdmissionService admissionService;
     private TicketController ticketController;
     private Model model;
     private HttpServletRequest request;
@@ -36,7 +44,8 @@ class TicketControllerTest {
         filmSessionService = mock(FilmSessionService.class);
         filmService = mock(FilmService.class);
         hallService = mock(HallService.class);
-        ticketController = new TicketController(ticketService, filmSessionService, filmService, hallService);
+        admissionService = mock(AdmissionService.class);
+        ticketController = new TicketController(ticketService, filmSessionService, filmService, hallService, admissionService);
         model = mock(Model.class);
         request = mock(HttpServletRequest.class);
         session = mock(HttpSession.class);
@@ -70,6 +79,39 @@ class TicketControllerTest {
         assertThat(result).isEqualTo("tickets/buy");
     }
 
+    /**
+ * Тестирует сценарий: show buy page then add seat map with taken seats
+ * 
+ * @see #whenShowBuyPageThenAddSeatMapWithTakenSeats()
+ */
+
+
+    @Test
+
+
+    void whenShowBuyPageThenAddSeatMapWithTakenSeats() {
+        FilmSession filmSession = new FilmSession(1, 1, 1,
+                LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
+        Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        Hall hall = new Hall(1, "Main Hall", 2, 3, "Large hall");
+        BitSet taken = new BitSet();
+        taken.set(4);
+        SeatMap seatMap = new SeatMap(2, 3, taken);
+
+        when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
+        when(filmService.findById(1)).thenReturn(Optional.of(film));
+        when(hallService.findById(1)).thenReturn(Optional.of(hall));
+        when(ticketService.findSeatMap(1)).thenReturn(Optional.of(seatMap));
+
+        String result = ticketController.showBuyPage(1, model);
+
+        verify(model).addAttribute("seatMap", seatMap);
+        assertThat(seatMap.isAvailable(2, 2)).isFalse();
+        assertThat(seatMap.isAvailable(2, 1)).isTrue();
+        assertThat(seatMap.getFreeCount()).isEqualTo(5);
+        assertThat(result).isEqualTo("tickets/buy");
+    }
+
     /**
  * Тестирует сценарий: обработку ошибки при show buy page with invalid session then throw exception
  * 
@@ -149,12 +191,13 @@ class TicketControllerTest {
         FilmSession filmSession = new FilmSession(1, 1, 1,
                 LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
         Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        filmSession = filmSession.withFilm(film);
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
-        when(ticketService.reserveTicket(1, 2, 3, 1)).thenReturn(true);
+        when(ticketService.reserveTicketAsync(1, 2, 3, 1))
+                .thenReturn(CompletableFuture.completedFuture(ReservationStatus.RESERVED));
         when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.of(film));
 
         String result = ticketController.buyTicket(1, 2, 3, model, request);
 
@@ -162,6 +205,8 @@ class TicketControllerTest {
         verify(model).addAttribute("rowNumber", 2);
         verify(model).addAttribute("filmSession", filmSession);
         verify(model).addAttribute("film", film);
+        verifyNoInteractions(filmService);
+        verify(admissionService).release(1, 1);
         assertThat(result).isEqualTo("tickets/success");
     }
 
@@ -177,25 +222,18 @@ class TicketControllerTest {
 
     void whenGetUserTicketsWithUserLoggedInThenReturnMineView() {
         User user = new User(1, "John Doe", "john@example.com", "password");
-        Ticket ticket = new Ticket(1, 1, 2, 3, 1);
-        FilmSession filmSession = new FilmSession(1, 1, 1,
-                LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
-        Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        List<TicketWithDetails> tickets = List.of(new TicketWithDetails(1, 1, 2, 3,
+                LocalDateTime.now(), 500, "Red Hall", "Test Film", "Drama"));
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
-        when(ticketService.findByUserId(1)).thenReturn(List.of(ticket));
-        when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.of(film));
+        when(ticketService.findTicketsWithDetailsPage(1, null, 0, KeysetPage.DEFAULT_LIMIT))
+                .thenReturn(KeysetPage.of(tickets, KeysetPage.DEFAULT_LIMIT));
 
-        String result = ticketController.getUserTickets(model, request);
+        String result = ticketController.getUserTickets(model, request, null, 0);
 
-        verify(model).addAttribute(eq("tickets"), argThat((List<Map<String, Object>> tickets) ->
-                tickets.size() == 1 &&
-                        tickets.get(0).get("ticket") == ticket &&
-                        tickets.get(0).get("film") == film &&
-                        tickets.get(0).get("session") == filmSession
-        ));
+        verify(model).addAttribute("tickets", tickets);
+        verifyNoInteractions(filmSessionService, filmService);
         assertThat(result).isEqualTo("tickets/mine");
     }
 
@@ -214,9 +252,10 @@ class TicketControllerTest {
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
-        when(ticketService.findByUserId(1)).thenReturn(Collections.emptyList());
+        when(ticketService.findTicketsWithDetailsPage(1, null, 0, KeysetPage.DEFAULT_LIMIT))
+                .thenReturn(KeysetPage.of(Collections.emptyList(), KeysetPage.DEFAULT_LIMIT));
 
-        String result = ticketController.getUserTickets(model, request);
+        String result = ticketController.getUserTickets(model, request, null, 0);
 
         verify(model).addAttribute("tickets", Collections.emptyList());
         assertThat(result).isEqualTo("tickets/mine");
@@ -234,28 +273,18 @@ class TicketControllerTest {
 
     void whenGetUserTicketsWithPartialDataThenHandleGracefully() {
         User user = new User(1, "John Doe", "john@example.com", "password");
-        Ticket ticket1 = new Ticket(1, 1, 2, 3, 1);
-        Ticket ticket2 = new Ticket(2, 999, 4, 5, 1);
-
-        FilmSession filmSession = new FilmSession(1, 1, 1,
-                LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
-        Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        List<TicketWithDetails> tickets = List.of(new TicketWithDetails(1, 1, 2, 3,
+                LocalDateTime.now(), 500, null, "Test Film", null));
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
-        when(ticketService.findByUserId(1)).thenReturn(List.of(ticket1, ticket2));
-        when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmSessionService.findById(999)).thenReturn(Optional.empty());
-        when(filmService.findById(1)).thenReturn(Optional.of(film));
+        when(ticketService.findTicketsWithDetailsPage(1, null, 0, KeysetPage.DEFAULT_LIMIT))
+                .thenReturn(KeysetPage.of(tickets, KeysetPage.DEFAULT_LIMIT));
 
-        String result = ticketController.getUserTickets(model, request);
+        String result = ticketController.getUserTickets(model, request, null, 0);
 
-        verify(model).addAttribute(eq("tickets"), argThat((List<Map<String, Object>> tickets) ->
-                tickets.size() == 1 &&
-                        tickets.get(0).get("ticket") == ticket1 &&
-                        tickets.get(0).get("film") == film &&
-                        tickets.get(0).get("session") == filmSession
-        ));
+        verify(model).addAttribute("tickets", tickets);
+        verify(ticketService, never()).findByUserId(anyInt());
         assertThat(result).isEqualTo("tickets/mine");
     }
 
@@ -271,21 +300,16 @@ class TicketControllerTest {
 
     void whenGetUserTicketsWithMissingFilmDataThenHandleGracefully() {
         User user = new User(1, "John Doe", "john@example.com", "password");
-        Ticket ticket = new Ticket(1, 1, 2, 3, 1);
-        FilmSession filmSession = new FilmSession(1, 1, 1,
-                LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
-        when(ticketService.findByUserId(1)).thenReturn(List.of(ticket));
-        when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.empty());
+        when(ticketService.findTicketsWithDetailsPage(1, null, 0, KeysetPage.DEFAULT_LIMIT))
+                .thenReturn(KeysetPage.of(List.of(), KeysetPage.DEFAULT_LIMIT));
 
-        String result = ticketController.getUserTickets(model, request);
+        String result = ticketController.getUserTickets(model, request, null, 0);
 
-        verify(model).addAttribute(eq("tickets"), argThat((List<Map<String, Object>> tickets) ->
-                tickets.isEmpty()
-        ));
+        verify(model).addAttribute(eq("tickets"), argThat((Collection<TicketWithDetails> tickets) -> tickets.isEmpty()));
+        verifyNoInteractions(filmSessionService, filmService);
         assertThat(result).isEqualTo("tickets/mine");
     }
 
@@ -301,18 +325,15 @@ class TicketControllerTest {
 
     void whenBuyTicketSucceedsThenReturnSuccessPage() {
         User user = new User(1, "John Doe", "john@example.com", "password");
-        FilmSession filmSession = new FilmSession();
-        filmSession.setId(1);
-        filmSession.setFilmId(1);
-        Film film = new Film();
-        film.setId(1);
-        film.setName("Test Film");
+        FilmSession filmSession = new FilmSession(1, 1, 1, LocalDateTime.now(), LocalDateTime.now().plusHours(2), 300);
+        Film film = new Film(1, "Test Film", "Description", 2020, 1, 12, 120, 1);
+        filmSession = filmSession.withFilm(film);
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
-        when(ticketService.reserveTicket(1, 2, 3, 1)).thenReturn(true);
+        when(ticketService.reserveTicketAsync(1, 2, 3, 1))
+                .thenReturn(CompletableFuture.completedFuture(ReservationStatus.RESERVED));
         when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.of(film));
 
         String result = ticketController.buyTicket(1, 2, 3, model, request);
 
@@ -338,18 +359,20 @@ class TicketControllerTest {
         FilmSession filmSession = new FilmSession(1, 1, 1,
                 LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
         Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        filmSession = filmSession.withFilm(film);
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
         when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.of(film));
-        when(ticketService.reserveTicket(1, 2, 3, 1)).thenReturn(false);
+        when(ticketService.reserveTicketAsync(1, 2, 3, 1))
+                .thenReturn(CompletableFuture.completedFuture(ReservationStatus.SEAT_TAKEN));
 
         String result = ticketController.buyTicket(1, 2, 3, model, request);
 
         verify(model).addAttribute("message",
                 "Не удалось приобрести билет на заданное место. Вероятно оно уже занято.");
         assertThat(result).isEqualTo("tickets/error");
+        verify(admissionService, never()).release(anyInt(), anyInt());
     }
 
     /**
@@ -367,17 +390,17 @@ class TicketControllerTest {
         FilmSession filmSession = new FilmSession(1, 1, 1,
                 LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
         Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        filmSession = filmSession.withFilm(film);
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
         when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.of(film));
-        when(ticketService.reserveTicket(1, 0, 0, 1)).thenReturn(false);
+        when(ticketService.reserveTicketAsync(1, 0, 0, 1))
+                .thenReturn(CompletableFuture.completedFuture(ReservationStatus.OUT_OF_HALL_BOUNDS));
 
         String result = ticketController.buyTicket(1, 0, 0, model, request);
 
-        verify(model).addAttribute("message",
-                "Не удалось приобрести билет на заданное место. Вероятно оно уже занято.");
+        verify(model).addAttribute("message", "Указанного места нет в зале");
         assertThat(result).isEqualTo("tickets/error");
     }
 
@@ -396,12 +419,13 @@ class TicketControllerTest {
         FilmSession filmSession = new FilmSession(1, 1, 1,
                 LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
         Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        filmSession = filmSession.withFilm(film);
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
         when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.of(film));
-        when(ticketService.reserveTicket(1, 2, 3, 1)).thenReturn(false);
+        when(ticketService.reserveTicketAsync(1, 2, 3, 1))
+                .thenReturn(CompletableFuture.completedFuture(ReservationStatus.SEAT_TAKEN));
 
         String result = ticketController.buyTicket(1, 2, 3, model, request);
 
@@ -424,12 +448,13 @@ class TicketControllerTest {
         FilmSession filmSession = new FilmSession(1, 1, 1,
                 LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
         Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        filmSession = filmSession.withFilm(film);
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
         when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.of(film));
-        when(ticketService.reserveTicket(1, 2, 3, 1)).thenReturn(false);
+        when(ticketService.reserveTicketAsync(1, 2, 3, 1))
+                .thenReturn(CompletableFuture.completedFuture(ReservationStatus.SEAT_TAKEN));
 
         String result = ticketController.buyTicket(1, 2, 3, model, request);
 
@@ -478,11 +503,11 @@ class TicketControllerTest {
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
         when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.empty());
 
         String result = ticketController.buyTicket(1, 2, 3, model, request);
 
         verify(model).addAttribute("message", "Фильм не найден");
+        verifyNoInteractions(ticketService, filmService);
         assertThat(result).isEqualTo("tickets/error");
     }
 
@@ -501,12 +526,13 @@ class TicketControllerTest {
         FilmSession filmSession = new FilmSession(1, 1, 1,
                 LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
         Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        filmSession = filmSession.withFilm(film);
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
-        when(ticketService.reserveTicket(1, 2, 3, 1)).thenReturn(true);
+        when(ticketService.reserveTicketAsync(1, 2, 3, 1))
+                .thenReturn(CompletableFuture.completedFuture(ReservationStatus.RESERVED));
         when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
-        when(filmService.findById(1)).thenReturn(Optional.of(film));
 
         String result = ticketController.buyTicket(1, 2, 3, model, request);
 
@@ -529,25 +555,123 @@ class TicketControllerTest {
 
     void whenGetUserTicketsWithUserLoggedInThenReturnMineView2() {
         User user = new User(1, "John Doe", "john@example.com", "password");
-        Ticket ticket = new Ticket(1, 1, 2, 3, 1);
+        List<TicketWithDetails> tickets = List.of(new TicketWithDetails(1, 1, 2, 3,
+                LocalDateTime.now(), 500, "Red Hall", "Test Film", "Drama"));
+
+        when(request.getSession()).thenReturn(session);
+        when(session.getAttribute("user")).thenReturn(user);
+        when(ticketService.findTicketsWithDetailsPage(1, null, 0, KeysetPage.DEFAULT_LIMIT))
+                .thenReturn(KeysetPage.of(tickets, KeysetPage.DEFAULT_LIMIT));
+
+        String result = ticketController.getUserTickets(model, request, null, 0);
+
+        verify(model).addAttribute("tickets", tickets);
+        verifyNoInteractions(filmSessionService, filmService);
+        assertThat(result).isEqualTo("tickets/mine");
+    }
+
+    /**
+ * Тестирует сценарий: hold seat when seat free then return confirm page
+ * 
+ * @see #whenHoldSeatWhenSeatFreeThenReturnConfirmPage()
+ */
+
+
+    @Test
+
+
+    void whenHoldSeatWhenSeatFreeThenReturnConfirmPage() {
+        User user = new User(1, "John Doe", "john@example.com", "password");
         FilmSession filmSession = new FilmSession(1, 1, 1,
                 LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
         Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+        SeatHold hold = new SeatHold(1, 2, 3, 1, System.currentTimeMillis() + 300_000L);
 
         when(request.getSession()).thenReturn(session);
         when(session.getAttribute("user")).thenReturn(user);
-        when(ticketService.findByUserId(1)).thenReturn(List.of(ticket));
         when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
         when(filmService.findById(1)).thenReturn(Optional.of(film));
+        when(ticketService.holdSeat(1, 2, 3, 1)).thenReturn(Optional.of(hold));
 
-        String result = ticketController.getUserTickets(model, request);
+        String result = ticketController.holdSeat(1, 2, 3, model, request);
 
-        verify(model).addAttribute(eq("tickets"), argThat((List<Map<String, Object>> tickets) ->
-                tickets.size() == 1 &&
-                        tickets.get(0).get("ticket") == ticket &&
-                        tickets.get(0).get("film") == film &&
-                        tickets.get(0).get("session") == filmSession
-        ));
-        assertThat(result).isEqualTo("tickets/mine");
+        verify(model).addAttribute("hold", hold);
+        verify(model).addAttribute("filmSession", filmSession);
+        verify(model).addAttribute("film", film);
+        assertThat(result).isEqualTo("tickets/confirm");
+    }
+
+    /**
+ * Тестирует сценарий: обработку ошибки при hold seat when seat unavailable then return error
+ * 
+ * @see #whenHoldSeatWhenSeatUnavailableThenReturnError()
+ */
+
+
+    @Test
+
+
+    void whenHoldSeatWhenSeatUnavailableThenReturnError() {
+        User user = new User(1, "John Doe", "john@example.com", "password");
+        FilmSession filmSession = new FilmSession(1, 1, 1,
+                LocalDateTime.now(), LocalDateTime.now().plusHours(2), 500);
+        Film film = new Film(1, "Test Film", "Description", 2023, 1, 16, 120, 1);
+
+        when(request.getSession()).thenReturn(session);
+        when(session.getAttribute("user")).thenReturn(user);
+        when(filmSessionService.findById(1)).thenReturn(Optional.of(filmSession));
+        when(filmService.findById(1)).thenReturn(Optional.of(film));
+        when(ticketService.holdSeat(1, 2, 3, 1)).thenReturn(Optional.empty());
+
+        String result = ticketController.holdSeat(1, 2, 3, model, request);
+
+        verify(model).addAttribute("message",
+                "Не удалось выбрать место. Вероятно оно уже занято или удерживается другим покупателем.");
+        assertThat(result).isEqualTo("tickets/error");
+    }
+
+    /**
+ * Тестирует сценарий: buy ticket for sold out session then reject without reservation
+ * 
+ * @see #whenBuyTicketForSoldOutSessionThenRejectWithoutReservation()
+ */
+
+
+    @Test
+
+
+    void whenBuyTicketForSoldOutSessionThenRejectWithoutReservation() {
+        User user = new User(1, "John Doe", "john@example.com", "password");
+        when(request.getSession()).thenReturn(session);
+        when(session.getAttribute("user")).thenReturn(user);
+        when(filmSessionService.isSoldOut(1)).thenReturn(true);
+
+        String result = ticketController.buyTicket(1, 2, 3, model, request);
+
+        verify(model).addAttribute("message", "Все билеты на этот сеанс проданы");
+        assertThat(result).isEqualTo("tickets/error");
+        verify(filmSessionService, never()).findById(anyInt());
+        verifyNoInteractions(ticketService);
+    }
+
+    /**
+ * Тестирует сценарий: leave checkout_then release admission pass and return to schedule
+ * 
+ * @see #whenLeaveCheckoutThenReleaseAdmissionPassAndReturnToSchedule()
+ */
+
+
+    @Test
+
+
+    void whenLeaveCheckoutThenReleaseAdmissionPassAndReturnToSchedule() {
+        User user = new User(7, "John Doe", "john@example.com", "password");
+        when(request.getSession()).thenReturn(session);
+        when(session.getAttribute("user")).thenReturn(user);
+
+        String result = ticketController.leaveCheckout(1, request);
+
+        verify(admissionService).release(1, 7);
+        assertThat(result).isEqualTo("redirect:/sessions");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+package ru.job4j.cinema.filter;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.repository.CatalogueVersion;
+import ru.job4j.cinema.service.session.ScheduleCache;
+import ru.job4j.cinema.service.session.ScheduleSnapshot;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class PageCacheFilterTest {
+
+    private static final long TTL_MILLIS = 60_000;
+
+    private final CatalogueVersion catalogueVersion = new CatalogueVersion();
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicInteger renders = new AtomicInteger();
+    private PageCacheFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        var scheduleCache = mock(ScheduleCache.class);
+        when(scheduleCache.current()).thenReturn(ScheduleSnapshot.of(List.of()));
+        filter = new PageCacheFilter(catalogueVersion, scheduleCache, 1_000_000, TTL_MILLIS, now::get);
+    }
+
+    private MockHttpServletResponse perform(String uri, String userName, String ifNoneMatch) throws Exception {
+        var parts = uri.split("\\?", 2);
+        var request = new MockHttpServletRequest("GET", parts[0]);
+        if (parts.length > 1) {
+            request.setQueryString(parts[1]);
+            var parameter = parts[1].split("=", 2);
+            request.addParameter(parameter[0], parameter[1]);
+        }
+        var user = new User();
+        user.setFullName(userName);
+        request.setAttribute("user", user);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new PageServlet()));
+        return response;
+    }
+
+    /**
+ * Тестирует сценарий: page requested twice_then rendered once with same etag
+ * 
+ * @see #whenPageRequestedTwice_thenRenderedOnceWithSameEtag()
+ */
+
+
+    @Test
+
+
+    void whenPageRequestedTwice_thenRenderedOnceWithSameEtag() throws Exception {
+        var first = perform("/films", "Гость", null);
+        var second = perform("/films", "Гость", null);
+
+        assertThat(renders).hasValue(1);
+        assertThat(second.getContentAsString()).isEqualTo(first.getContentAsString()).contains("Гость");
+        assertThat(first.getHeader("ETag")).startsWith("\"").endsWith("\"").isEqualTo(second.getHeader("ETag"));
+        assertThat(second.getContentType()).startsWith("text/html");
+    }
+
+    /**
+ * Тестирует сценарий: etag matches_then not modified without render
+ * 
+ * @see #whenEtagMatches_thenNotModifiedWithoutRender()
+ */
+
+
+    @Test
+
+
+    void whenEtagMatches_thenNotModifiedWithoutRender() throws Exception {
+        var etag = perform("/sessions", "Гость", null).getHeader("ETag");
+
+        var revalidated = perform("/sessions", "Гость", "\"other\", " + etag);
+
+        assertThat(revalidated.getStatus()).isEqualTo(304);
+        assertThat(revalidated.getContentAsByteArray()).isEmpty();
+        assertThat(revalidated.getHeader("ETag")).isEqualTo(etag);
+        assertThat(renders).hasValue(1);
+    }
+
+    /**
+ * Тестирует сценарий: catalogue changed_then page rendered again
+ * 
+ * @see #whenCatalogueChanged_thenPageRenderedAgain()
+ */
+
+
+    @Test
+
+
+    void whenCatalogueChanged_thenPageRenderedAgain() throws Exception {
+        var etag = perform("/sessions", "Гость", null).getHeader("ETag");
+
+        catalogueVersion.incrementSchedule();
+        var afterSale = perform("/sessions", "Гость", etag);
+
+        assertThat(renders).hasValue(2);
+        assertThat(afterSale.getStatus()).isEqualTo(200);
+        assertThat(afterSale.getHeader("ETag")).isNotEqualTo(etag);
+    }
+
+    /**
+ * Тестирует сценарий: ticket sold_then films page still cached until it expires
+ * 
+ * @see #whenTicketSold_thenFilmsPageStillCachedUntilItExpires()
+ */
+
+
+    @Test
+
+
+    void whenTicketSold_thenFilmsPageStillCachedUntilItExpires() throws Exception {
+        perform("/films", "Гость", null);
+        perform("/sessions", "Гость", null);
+
+        catalogueVersion.incrementSchedule();
+        perform("/films", "Гость", null);
+        perform("/sessions", "Гость", null);
+
+        assertThat(renders).hasValue(3);
+
+        now.addAndGet(TTL_MILLIS);
+        perform("/films", "Гость", null);
+        perform("/sessions", "Гость", null);
+
+        assertThat(renders).hasValue(5);
+    }
+
+    /**
+ * Тестирует сценарий: different users and pages_then cached separately
+ * 
+ * @see #whenDifferentUsersAndPages_thenCachedSeparately()
+ */
+
+
+    @Test
+
+
+    void whenDifferentUsersAndPages_thenCachedSeparately() throws Exception {
+        var guest = perform("/films", "Гость", null);
+        var john = perform("/films", "John Doe", null);
+        perform("/films?afterId=5", "Гость", null);
+        perform("/films", "John Doe", null);
+
+        assertThat(renders).hasValue(3);
+        assertThat(john.getContentAsString()).contains("John Doe");
+        assertThat(john.getHeader("ETag")).isNotEqualTo(guest.getHeader("ETag"));
+    }
+
+    /**
+ * Тестирует сценарий: ttl passed_then page rendered again
+ * 
+ * @see #whenTtlPassed_thenPageRenderedAgain()
+ */
+
+
+    @Test
+
+
+    void whenTtlPassed_thenPageRenderedAgain() throws Exception {
+        perform("/films", "Гость", null);
+        now.addAndGet(TTL_MILLIS);
+        perform("/films", "Гость", null);
+
+        assertThat(renders).hasValue(2);
+    }
+
+    /**
+ * Тестирует сценарий: other page or error_then not cached
+ * 
+ * @see #whenOtherPageOrError_thenNotCached()
+ */
+
+
+    @Test
+
+
+    void whenOtherPageOrError_thenNotCached() throws Exception {
+        perform("/films/1", "Гость", null);
+        perform("/films/1", "Гость", null);
+        perform("/films?fail=true", "Гость", null);
+        var failed = perform("/films?fail=true", "Гость", null);
+
+        assertThat(renders).hasValue(4);
+        assertThat(failed.getStatus()).isEqualTo(404);
+        assertThat(failed.getHeader("ETag")).isNull();
+    }
+
+    private class PageServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            renders.incrementAndGet();
+            if (request.getQueryString() != null && request.getQueryString().contains("fail")) {
+                response.sendError(404);
+                return;
+            }
+            response.setContentType("text/html;charset=UTF-8");
+            var user = (User) request.getAttribute("user");
+            response.getWriter().write("<html><nav>" + user.getFullName() + "</nav>" + request.getRequestURI()
+                    + " v" + catalogueVersion.currentSchedule() + "</html>");
+        }
+    }
+}
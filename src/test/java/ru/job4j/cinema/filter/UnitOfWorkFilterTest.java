@@ -0,0 +1,56 @@
+package ru.job4j.cinema.filter;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.cinema.repository.UnitOfWork;
+
+import static org.mockito.Mockito.*;
+
+class UnitOfWorkFilterTest {
+
+    private final UnitOfWork unitOfWork = mock(UnitOfWork.class);
+    private final UnitOfWorkFilter filter = new UnitOfWorkFilter(unitOfWork);
+
+    /**
+ * Тестирует сценарий: page request_then wrapped in unit of work
+ * 
+ * @see #whenPageRequest_thenWrappedInUnitOfWork()
+ */
+
+
+    @Test
+
+
+    void whenPageRequest_thenWrappedInUnitOfWork() throws Exception {
+        var chain = mock(FilterChain.class);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/tickets/mine"), new MockHttpServletResponse(), chain);
+
+        var order = inOrder(unitOfWork, chain);
+        order.verify(unitOfWork).begin();
+        order.verify(chain).doFilter(any(), any());
+        order.verify(unitOfWork).end();
+    }
+
+    /**
+ * Тестирует сценарий: file or static request_then no unit of work
+ * 
+ * @see #whenFileOrStaticRequest_thenNoUnitOfWork()
+ */
+
+
+    @Test
+
+
+    void whenFileOrStaticRequest_thenNoUnitOfWork() throws Exception {
+        var chain = mock(FilterChain.class);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/files/1"), new MockHttpServletResponse(), chain);
+        filter.doFilter(new MockHttpServletRequest("GET", "/css/app.css"), new MockHttpServletResponse(), chain);
+
+        verify(chain, times(2)).doFilter(any(), any());
+        verifyNoInteractions(unitOfWork);
+    }
+}
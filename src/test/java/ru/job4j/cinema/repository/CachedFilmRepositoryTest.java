@@ -0,0 +1,173 @@
+package ru.job4j.cinema.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.Film;
+import ru.job4j.cinema.model.Genre;
+import ru.job4j.cinema.repository.film.CachedFilmRepository;
+import ru.job4j.cinema.repository.film.FilmRepository;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class CachedFilmRepositoryTest {
+
+    private static final long TTL_MILLIS = 60_000;
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private FilmRepository filmRepository;
+    private CachedFilmRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        filmRepository = mock(FilmRepository.class);
+        when(filmRepository.findByIdWithGenre(anyInt())).thenAnswer(invocation -> Optional.of(film(invocation.getArgument(0), "Plot")));
+        repository = new CachedFilmRepository(filmRepository, 10_000, TTL_MILLIS, now::get);
+    }
+
+    private static Film film(int id, String description) {
+        return new Film(id, "Film " + id, description, 2010, 1, 16, 148, 1, new Genre(1, "Sci-Fi"));
+    }
+
+    /**
+ * Тестирует сценарий: film read twice_then loaded once
+ * 
+ * @see #whenFilmReadTwice_thenLoadedOnce()
+ */
+
+
+    @Test
+
+
+    void whenFilmReadTwice_thenLoadedOnce() {
+        var first = repository.findByIdWithGenre(1);
+        var second = repository.findByIdWithGenre(1);
+
+        assertThat(second.get()).isSameAs(first.get());
+        assertThat(second.get().getGenre().getName()).isEqualTo("Sci-Fi");
+        verify(filmRepository, times(1)).findByIdWithGenre(1);
+    }
+
+    /**
+ * Тестирует сценарий: ttl passed_then film reloaded
+ * 
+ * @see #whenTtlPassed_thenFilmReloaded()
+ */
+
+
+    @Test
+
+
+    void whenTtlPassed_thenFilmReloaded() {
+        repository.findByIdWithGenre(1);
+        now.addAndGet(TTL_MILLIS - 1);
+        repository.findByIdWithGenre(1);
+        now.addAndGet(1);
+        repository.findByIdWithGenre(1);
+
+        verify(filmRepository, times(2)).findByIdWithGenre(1);
+    }
+
+    /**
+ * Тестирует сценарий: weight exceeded_then least recently read film evicted
+ * 
+ * @see #whenWeightExceeded_thenLeastRecentlyReadFilmEvicted()
+ */
+
+
+    @Test
+
+
+    void whenWeightExceeded_thenLeastRecentlyReadFilmEvicted() {
+        var description = "x".repeat(1_500);
+        when(filmRepository.findByIdWithGenre(anyInt())).thenAnswer(invocation -> Optional.of(film(invocation.getArgument(0), description)));
+
+        IntStream.rangeClosed(1, 3).forEach(repository::findByIdWithGenre);
+        repository.findByIdWithGenre(1);
+        repository.findByIdWithGenre(4);
+        repository.findByIdWithGenre(1);
+        repository.findByIdWithGenre(2);
+
+        verify(filmRepository, times(1)).findByIdWithGenre(1);
+        verify(filmRepository, times(2)).findByIdWithGenre(2);
+    }
+
+    /**
+ * Тестирует сценарий: film heavier than cache_then not cached
+ * 
+ * @see #whenFilmHeavierThanCache_thenNotCached()
+ */
+
+
+    @Test
+
+
+    void whenFilmHeavierThanCache_thenNotCached() {
+        when(filmRepository.findByIdWithGenre(1)).thenReturn(Optional.of(film(1, "x".repeat(10_000))));
+
+        assertThat(repository.findByIdWithGenre(1)).isPresent();
+        assertThat(repository.findByIdWithGenre(1)).isPresent();
+
+        verify(filmRepository, times(2)).findByIdWithGenre(1);
+    }
+
+    /**
+ * Тестирует сценарий: film not found_then miss not cached
+ * 
+ * @see #whenFilmNotFound_thenMissNotCached()
+ */
+
+
+    @Test
+
+
+    void whenFilmNotFound_thenMissNotCached() {
+        when(filmRepository.findByIdWithGenre(999)).thenReturn(Optional.empty());
+
+        assertThat(repository.findByIdWithGenre(999)).isEmpty();
+        assertThat(repository.findByIdWithGenre(999)).isEmpty();
+
+        verify(filmRepository, times(2)).findByIdWithGenre(999);
+    }
+
+    /**
+ * Тестирует сценарий: concurrent misses_then coalesced into one load
+ * 
+ * @see #whenConcurrentMisses_thenCoalescedIntoOneLoad()
+ */
+
+
+    @Test
+
+
+    void whenConcurrentMisses_thenCoalescedIntoOneLoad() throws Exception {
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(filmRepository.findByIdWithGenre(1)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(film(1, "Plot"));
+        });
+
+        var first = CompletableFuture.supplyAsync(() -> repository.findByIdWithGenre(1));
+        loading.await(5, TimeUnit.SECONDS);
+        var waiters = IntStream.range(0, 4)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> repository.findByIdWithGenre(1)))
+                .toList();
+        TimeUnit.MILLISECONDS.sleep(100);
+        release.countDown();
+
+        var loaded = first.get(5, TimeUnit.SECONDS).orElseThrow();
+        for (var waiter : waiters) {
+            assertThat(waiter.get(5, TimeUnit.SECONDS)).containsSame(loaded);
+        }
+        verify(filmRepository, times(1)).findByIdWithGenre(1);
+    }
+}
@@ -0,0 +1,119 @@
+package ru.job4j.cinema.repository;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class MeteredDataSourceTest {
+
+    /**
+ * Тестирует сценарий: connection borrowed_then wait recorded in histogram
+ * 
+ * @see #whenConnectionBorrowed_thenWaitRecordedInHistogram()
+ */
+
+
+    @Test
+
+
+    void whenConnectionBorrowed_thenWaitRecordedInHistogram() throws SQLException {
+        var pool = mock(DataSource.class);
+        when(pool.getConnection()).thenReturn(mock(Connection.class));
+        var dataSource = new MeteredDataSource(pool, () -> 3, () -> 7);
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThat(dataSource.getActiveConnections()).isEqualTo(3);
+        assertThat(dataSource.getIdleConnections()).isEqualTo(7);
+        assertThat(dataSource.getWaitCount()).isEqualTo(2);
+        assertThat(dataSource.getWaitHistogram().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(2);
+        assertThat(dataSource.getWaitHistogram()).containsKeys("lt_1ms", "lt_5000ms", "lt_inf");
+    }
+
+    /**
+ * Тестирует сценарий: pool exhausted_then waiting thread counted as pending
+ * 
+ * @see #whenPoolExhausted_thenWaitingThreadCountedAsPending()
+ */
+
+
+    @Test
+
+
+    void whenPoolExhausted_thenWaitingThreadCountedAsPending() throws Exception {
+        var borrowing = new CountDownLatch(1);
+        var returned = new CountDownLatch(1);
+        var pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocation -> {
+            borrowing.countDown();
+            returned.await(5, TimeUnit.SECONDS);
+            return mock(Connection.class);
+        });
+        var dataSource = new MeteredDataSource(pool, () -> 0, () -> 0);
+
+        var waiter = CompletableFuture.runAsync(() -> {
+            try {
+                dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        borrowing.await(5, TimeUnit.SECONDS);
+
+        assertThat(dataSource.getPendingThreads()).isEqualTo(1);
+        returned.countDown();
+        waiter.get(5, TimeUnit.SECONDS);
+        assertThat(dataSource.getPendingThreads()).isZero();
+        assertThat(dataSource.getWaitCount()).isEqualTo(1);
+    }
+
+    /**
+ * Тестирует сценарий: borrow fails_then pending released and wait still recorded
+ * 
+ * @see #whenBorrowFails_thenPendingReleasedAndWaitStillRecorded()
+ */
+
+
+    @Test
+
+
+    void whenBorrowFails_thenPendingReleasedAndWaitStillRecorded() throws SQLException {
+        var pool = mock(DataSource.class);
+        when(pool.getConnection()).thenThrow(new SQLException("Timeout waiting for idle object"));
+        var dataSource = new MeteredDataSource(pool, () -> 0, () -> 0);
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLException.class);
+
+        assertThat(dataSource.getPendingThreads()).isZero();
+        assertThat(dataSource.getWaitCount()).isEqualTo(1);
+    }
+
+    /**
+ * Тестирует сценарий: closed_then underlying pool closed
+ * 
+ * @see #whenClosed_thenUnderlyingPoolClosed()
+ */
+
+
+    @Test
+
+
+    void whenClosed_thenUnderlyingPoolClosed() throws Exception {
+        var pool = mock(DataSource.class, withSettings().extraInterfaces(AutoCloseable.class));
+        var dataSource = new MeteredDataSource(pool, () -> 0, () -> 0);
+
+        dataSource.close();
+
+        verify((AutoCloseable) pool).close();
+    }
+}
@@ -0,0 +1,344 @@
+package ru.job4j.cinema.repository;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+import org.sql2o.converters.Converter;
+import org.sql2o.converters.ConverterException;
+import org.sql2o.quirks.NoQuirks;
+import org.sql2o.quirks.Quirks;
+import ru.job4j.cinema.model.File;
+import ru.job4j.cinema.model.Seat;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.repository.file.Sql2oFileRepository;
+import ru.job4j.cinema.repository.film.Sql2oFilmRepository;
+import ru.job4j.cinema.repository.genre.Sql2oGenreRepository;
+import ru.job4j.cinema.repository.hall.Sql2oHallRepository;
+import ru.job4j.cinema.repository.session.Sql2oFilmSessionRepository;
+import ru.job4j.cinema.repository.ticket.Sql2oTicketRepository;
+import ru.job4j.cinema.repository.user.Sql2oUserRepository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Прогоняет EXPLAIN для запросов репозиториев на схеме из db/scripts, заполненной
+ * десятками тысяч строк, и проверяет, что выборочные запросы не читают большие таблицы целиком.
+ * Запросы, по смыслу возвращающие всю таблицу (findAll и сводка по местам), проверяются только на то,
+ * что их план строится.
+ */
+class QueryPlanTest {
+
+    private static final List<String> LARGE_TABLES = List.of("FILMS", "FILM_SESSIONS", "TICKETS", "USERS");
+    private static final LocalDateTime FIRST_START = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private static JdbcDataSource dataSource;
+    private final List<CapturedStatement> captured = new ArrayList<>();
+    private Sql2o sql2o;
+
+    @BeforeAll
+    static void createSeededDatabase() throws IOException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:query_plans;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        var sql2o = new Sql2o(dataSource);
+        try (var connection = sql2o.open();
+             Stream<Path> scripts = Files.list(Path.of("db/scripts"))) {
+            connection.createQuery("DROP ALL OBJECTS").executeUpdate();
+            for (var script : scripts.filter(path -> path.getFileName().toString().contains("_ddl_")).sorted().toList()) {
+                for (var statement : Files.readString(script).split(";")) {
+                    if (!statement.replaceAll("--.*", "").isBlank()) {
+                        connection.createQuery(statement).executeUpdate();
+                    }
+                }
+            }
+            connection.createQuery("INSERT INTO files (name, path) VALUES ('poster', 'files/poster.jpg')").executeUpdate();
+            connection.createQuery("""
+                    INSERT INTO genres (name) SELECT 'Genre ' || x FROM SYSTEM_RANGE(1, 10)
+                    """).executeUpdate();
+            connection.createQuery("""
+                    INSERT INTO halls (name, row_count, place_count, description)
+                    SELECT 'Hall ' || x, 10, 10, 'Hall' FROM SYSTEM_RANGE(1, 5)
+                    """).executeUpdate();
+            connection.createQuery("""
+                    INSERT INTO films (name, description, release_year, genre_id, minimal_age, duration_in_minutes, file_id)
+                    SELECT 'Film ' || x, 'Description', 2000, MOD(x, 10) + 1, 0, 120, 1 FROM SYSTEM_RANGE(1, 2000)
+                    """).executeUpdate();
+            connection.createQuery("""
+                    INSERT INTO film_sessions (film_id, halls_id, start_time, end_time, price)
+                    SELECT MOD(x, 2000) + 1, MOD(x, 5) + 1,
+                           DATEADD('HOUR', x, TIMESTAMP '2030-01-01 00:00:00'),
+                           DATEADD('HOUR', x + 2, TIMESTAMP '2030-01-01 00:00:00'), 500
+                    FROM SYSTEM_RANGE(1, 20000)
+                    """).executeUpdate();
+            connection.createQuery("""
+                    INSERT INTO users (full_name, email, password)
+                    SELECT 'User ' || x, 'user' || x || '@mail.ru', 'password' FROM SYSTEM_RANGE(1, 5000)
+                    """).executeUpdate();
+            connection.createQuery("""
+                    INSERT INTO tickets (session_id, row_number, place_number, user_id)
+                    SELECT MOD(x, 20000) + 1, x / 20000 + 1, 1, MOD(x, 5000) + 1 FROM SYSTEM_RANGE(1, 50000)
+                    """).executeUpdate();
+            connection.createQuery("ANALYZE").executeUpdate();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        sql2o = new Sql2o(capturingStatements(dataSource), createConverters());
+    }
+
+    private Quirks createConverters() {
+        return new NoQuirks() {
+            {
+                converters.put(LocalDateTime.class, new Converter<LocalDateTime>() {
+                    @Override
+                    public LocalDateTime convert(Object value) throws ConverterException {
+                        if (value == null) {
+                            return null;
+                        }
+                        if (!(value instanceof Timestamp)) {
+                            throw new ConverterException("Invalid value to convert");
+                        }
+                        return ((Timestamp) value).toLocalDateTime();
+                    }
+
+                    @Override
+                    public Object toDatabaseParam(LocalDateTime value) {
+                        return value == null ? null : Timestamp.valueOf(value);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+ * Тестирует сценарий: film queries_then use indexes
+ * 
+ * @see #whenFilmQueries_thenUseIndexes()
+ */
+
+
+    @Test
+
+
+    void whenFilmQueries_thenUseIndexes() throws SQLException {
+        var repository = new Sql2oFilmRepository(sql2o);
+
+        repository.findById(10);
+        repository.findByIdWithGenre(10);
+        repository.findPageWithGenre(0, 20);
+        repository.findPageWithGenre(1000, 20);
+
+        assertNoFullScans();
+    }
+
+    /**
+ * Тестирует сценарий: schedule queries_then use indexes
+ * 
+ * @see #whenScheduleQueries_thenUseIndexes()
+ */
+
+
+    @Test
+
+
+    void whenScheduleQueries_thenUseIndexes() throws SQLException {
+        var repository = new Sql2oFilmSessionRepository(sql2o);
+        var day = FIRST_START.plusDays(100);
+
+        repository.findById(10);
+        repository.findByIdWithFilm(10);
+        repository.findPageWithFilm(day, 500, 20);
+        repository.findBetween(day, day.plusDays(1));
+        repository.findUpcoming(day, 20);
+        repository.findByFilmAndDay(10, LocalDate.from(day));
+        repository.findSeatAvailabilityById(10);
+
+        assertNoFullScans();
+    }
+
+    /**
+ * Тестирует сценарий: ticket queries_then use indexes
+ * 
+ * @see #whenTicketQueries_thenUseIndexes()
+ */
+
+
+    @Test
+
+
+    void whenTicketQueries_thenUseIndexes() throws SQLException {
+        var repository = new Sql2oTicketRepository(sql2o);
+
+        repository.findBySessionIdAndRowAndPlace(10, 1, 1);
+        repository.findByUserId(10);
+        repository.findSeatsBySessionId(10);
+        repository.findTicketsWithDetailsByUserId(10);
+        repository.findTicketsWithDetailsPageByUserId(10, null, 0, 20);
+        repository.findTicketsWithDetailsPageByUserId(10, FIRST_START.plusDays(300), 100, 20);
+        repository.reserveTicket(10, 11, 1, 10);
+        repository.reserveTickets(10, List.of(new Seat(10, 1), new Seat(10, 2)), 10);
+
+        assertNoFullScans();
+    }
+
+    /**
+ * Тестирует сценарий: user, file and reference queries_then use indexes
+ * 
+ * @see #whenUserFileAndReferenceQueries_thenUseIndexes()
+ */
+
+
+    @Test
+
+
+    void whenUserFileAndReferenceQueries_thenUseIndexes() throws SQLException {
+        new Sql2oUserRepository(sql2o).findByEmailAndPassword("user10@mail.ru", "password");
+        new Sql2oUserRepository(sql2o).save(new User(0, "New User", "new.user@mail.ru", "password"));
+        new Sql2oFileRepository(sql2o).findById(1);
+        new Sql2oFileRepository(sql2o).save(new File(0, "trailer", "files/trailer.jpg"));
+        new Sql2oGenreRepository(sql2o).findById(1);
+        new Sql2oHallRepository(sql2o).findById(1);
+
+        assertNoFullScans();
+    }
+
+    /**
+ * Тестирует сценарий: full listing queries_then plans are built
+ * 
+ * @see #whenFullListingQueries_thenPlansAreBuilt()
+ */
+
+
+    @Test
+
+
+    void whenFullListingQueries_thenPlansAreBuilt() throws SQLException {
+        new Sql2oFilmRepository(sql2o).findAll();
+        new Sql2oFilmRepository(sql2o).findAllWithGenre();
+        new Sql2oFilmSessionRepository(sql2o).findAll();
+        new Sql2oFilmSessionRepository(sql2o).findAllWithFilm();
+        new Sql2oFilmSessionRepository(sql2o).findSeatAvailabilityEndingAfter(LocalDateTime.now());
+
+        assertThat(captured).hasSize(5);
+        for (var statement : captured) {
+            assertThat(explain(statement)).isNotBlank();
+        }
+    }
+
+    private void assertNoFullScans() throws SQLException {
+        assertThat(captured).isNotEmpty();
+        for (var statement : captured) {
+            var plan = explain(statement);
+            for (var table : LARGE_TABLES) {
+                assertThat(plan)
+                        .as("Full scan of %s in plan of%n%s", table, statement.sql)
+                        .doesNotContain("PUBLIC." + table + ".tableScan");
+            }
+        }
+    }
+
+    private String explain(CapturedStatement statement) throws SQLException {
+        try (var connection = dataSource.getConnection();
+             var explain = connection.prepareStatement("EXPLAIN " + statement.sql)) {
+            for (var parameter : statement.parameters) {
+                invoke(explain, parameter.method, parameter.args);
+            }
+            try (var plan = explain.executeQuery()) {
+                var text = new StringBuilder();
+                while (plan.next()) {
+                    text.append(plan.getString(1)).append(System.lineSeparator());
+                }
+                return text.toString();
+            }
+        } catch (SQLException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLException("Failed to replay parameters of " + statement.sql, e);
+        }
+    }
+
+    private DataSource capturingStatements(DataSource target) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    var result = invoke(target, method, args);
+                    if (result instanceof Connection connection) {
+                        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                                (connectionProxy, connectionMethod, connectionArgs) -> {
+                                    var statement = invoke(connection, connectionMethod, connectionArgs);
+                                    if (statement instanceof PreparedStatement prepared
+                                            && connectionMethod.getName().equals("prepareStatement")) {
+                                        return capturing(prepared, (String) connectionArgs[0]);
+                                    }
+                                    return statement;
+                                });
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement capturing(PreparedStatement target, String sql) {
+        var statement = new CapturedStatement(sql);
+        captured.add(statement);
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer && statement.parameters.size() < countParameters(sql)) {
+                        statement.parameters.add(new CapturedParameter(method, args));
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    private static long countParameters(String sql) {
+        return sql.chars().filter(ch -> ch == '?').count();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class CapturedStatement {
+        private final String sql;
+        private final List<CapturedParameter> parameters = new ArrayList<>();
+
+        private CapturedStatement(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private static final class CapturedParameter {
+        private final Method method;
+        private final Object[] args;
+
+        private CapturedParameter(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ru.job4j.cinema.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.Genre;
+import ru.job4j.cinema.model.Hall;
+import ru.job4j.cinema.repository.genre.CachedGenreRepository;
+import ru.job4j.cinema.repository.genre.GenreRepository;
+import ru.job4j.cinema.repository.hall.CachedHallRepository;
+import ru.job4j.cinema.repository.hall.HallRepository;
+import ru.job4j.cinema.repository.reference.ImmutableIntMap;
+import ru.job4j.cinema.repository.reference.ReferenceDataCache;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ReferenceDataCacheTest {
+
+    private GenreRepository genreRepository;
+    private HallRepository hallRepository;
+    private ReferenceDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        genreRepository = mock(GenreRepository.class);
+        hallRepository = mock(HallRepository.class);
+        when(genreRepository.findAll()).thenReturn(List.of(new Genre(1, "Action"), new Genre(2, "Drama")));
+        when(hallRepository.findAll()).thenReturn(List.of(new Hall(1, "Main Hall", 10, 15, "Main")));
+        cache = new ReferenceDataCache(genreRepository, hallRepository, 0);
+        cache.refresh();
+    }
+
+    /**
+ * Тестирует сценарий: repeated lookups_then served from memory
+ * 
+ * @see #whenRepeatedLookups_thenServedFromMemory()
+ */
+
+
+    @Test
+
+
+    void whenRepeatedLookups_thenServedFromMemory() {
+        var genres = new CachedGenreRepository(cache);
+        var halls = new CachedHallRepository(cache);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(genres.findById(2)).map(Genre::getName).contains("Drama");
+            assertThat(halls.findById(1)).map(Hall::getName).contains("Main Hall");
+        }
+        assertThat(genres.findAll()).extracting(Genre::getId).containsExactly(1, 2);
+        verify(genreRepository, times(1)).findAll();
+        verify(hallRepository, times(1)).findAll();
+        verify(genreRepository, never()).findById(anyInt());
+        verify(hallRepository, never()).findById(anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: unknown id_then return empty
+ * 
+ * @see #whenUnknownId_thenReturnEmpty()
+ */
+
+
+    @Test
+
+
+    void whenUnknownId_thenReturnEmpty() {
+        assertThat(cache.findGenre(999)).isEmpty();
+        assertThat(cache.findGenre(0)).isEmpty();
+        assertThat(cache.findHall(-1)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: refreshed_then new snapshot replaces old one
+ * 
+ * @see #whenRefreshed_thenNewSnapshotReplacesOldOne()
+ */
+
+
+    @Test
+
+
+    void whenRefreshed_thenNewSnapshotReplacesOldOne() {
+        var before = cache.findAllGenres();
+        when(genreRepository.findAll()).thenReturn(List.of(new Genre(3, "Comedy")));
+
+        cache.refresh();
+
+        assertThat(cache.findGenre(1)).isEmpty();
+        assertThat(cache.findGenre(3)).map(Genre::getName).contains("Comedy");
+        assertThat(before).extracting(Genre::getName).containsExactly("Action", "Drama");
+    }
+
+    /**
+ * Тестирует сценарий: refresh fails_then previous snapshot kept
+ * 
+ * @see #whenRefreshFails_thenPreviousSnapshotKept()
+ */
+
+
+    @Test
+
+
+    void whenRefreshFails_thenPreviousSnapshotKept() {
+        when(hallRepository.findAll()).thenThrow(new IllegalStateException("Database is down"));
+
+        assertThatThrownBy(cache::refresh).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.findGenre(1)).isPresent();
+        assertThat(cache.findHall(1)).isPresent();
+    }
+
+    /**
+ * Тестирует сценарий: hall added after start_then periodic reload picks it up
+ * 
+ * @see #whenHallAddedAfterStart_thenPeriodicReloadPicksItUp()
+ */
+
+
+    @Test
+
+
+    void whenHallAddedAfterStart_thenPeriodicReloadPicksItUp() {
+        var reloading = new ReferenceDataCache(genreRepository, hallRepository, 1);
+        reloading.start();
+        try {
+            assertThat(reloading.findHall(2)).isEmpty();
+            when(hallRepository.findAll()).thenReturn(List.of(new Hall(1, "Main Hall", 10, 15, "Main"),
+                    new Hall(2, "VIP Hall", 5, 8, "VIP")));
+
+            verify(hallRepository, timeout(5_000).atLeast(4)).findAll();
+
+            assertThat(reloading.findHall(2)).map(Hall::getName).contains("VIP Hall");
+        } finally {
+            reloading.stop();
+        }
+    }
+
+    /**
+ * Тестирует сценарий: many colliding keys_then every key found
+ * 
+ * @see #whenManyCollidingKeys_thenEveryKeyFound()
+ */
+
+
+    @Test
+
+
+    void whenManyCollidingKeys_thenEveryKeyFound() {
+        var genres = IntStream.range(0, 1_000).mapToObj(i -> new Genre(i * 1_024, "Genre " + i)).toList();
+        var map = ImmutableIntMap.of(genres, Genre::getId);
+
+        assertThat(map.size()).isEqualTo(1_000);
+        for (var genre : genres) {
+            assertThat(map.get(genre.getId())).isSameAs(genre);
+        }
+        assertThat(map.get(1)).isNull();
+        assertThatThrownBy(() -> ImmutableIntMap.of(List.of(new Genre(1, "a"), new Genre(1, "b")), Genre::getId))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
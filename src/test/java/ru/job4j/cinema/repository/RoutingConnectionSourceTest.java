@@ -0,0 +1,236 @@
+package ru.job4j.cinema.repository;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+import ru.job4j.cinema.model.Genre;
+import ru.job4j.cinema.repository.genre.GenreRepository;
+import ru.job4j.cinema.repository.genre.Sql2oGenreRepository;
+import ru.job4j.cinema.repository.routing.DataRoute;
+import ru.job4j.cinema.repository.routing.RouteTo;
+import ru.job4j.cinema.repository.routing.RouteToBeanPostProcessor;
+import ru.job4j.cinema.repository.routing.RoutingConnectionSource;
+import ru.job4j.cinema.repository.routing.RoutingContext;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingConnectionSourceTest {
+
+    private JdbcDataSource primary;
+    private JdbcDataSource replica;
+    private UnitOfWork unitOfWork;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("routing_primary", "Primary");
+        replica = database("routing_replica", "Replica");
+        unitOfWork = new UnitOfWork(primary);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.unpin();
+    }
+
+    private JdbcDataSource database(String name, String genreName) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        try (var connection = new Sql2o(dataSource).open()) {
+            connection.createQuery("DROP TABLE IF EXISTS genres").executeUpdate();
+            connection.createQuery("CREATE TABLE genres (id INT PRIMARY KEY, name VARCHAR NOT NULL)").executeUpdate();
+            connection.createQuery("INSERT INTO genres VALUES (1, :name)").addParameter("name", genreName).executeUpdate();
+        }
+        return dataSource;
+    }
+
+    private Sql2o routedSql2o(List<JdbcDataSource> replicas) {
+        var sql2o = new Sql2o(primary);
+        sql2o.setConnectionSource(new RoutingConnectionSource(unitOfWork, replicas));
+        return sql2o;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T routed(T bean) {
+        return (T) new RouteToBeanPostProcessor().postProcessAfterInitialization(bean, "bean");
+    }
+
+    private static String genreName(GenreRepository repository) {
+        return repository.findById(1).map(Genre::getName).orElseThrow();
+    }
+
+    /**
+ * Тестирует сценарий: replica routed repository_then reads from replica
+ * 
+ * @see #whenReplicaRoutedRepository_thenReadsFromReplica()
+ */
+
+
+    @Test
+
+
+    void whenReplicaRoutedRepository_thenReadsFromReplica() {
+        var sql2o = routedSql2o(List.of(replica));
+        GenreRepository repository = routed(new Sql2oGenreRepository(sql2o));
+
+        assertThat(genreName(repository)).isEqualTo("Replica");
+    }
+
+    /**
+ * Тестирует сценарий: repository without annotation_then reads from primary
+ * 
+ * @see #whenRepositoryWithoutAnnotation_thenReadsFromPrimary()
+ */
+
+
+    @Test
+
+
+    void whenRepositoryWithoutAnnotation_thenReadsFromPrimary() {
+        var sql2o = routedSql2o(List.of(replica));
+        var reader = new UnroutedGenreReader(sql2o);
+
+        assertThat(routed(reader)).isSameAs(reader);
+        assertThat(reader.findName()).isEqualTo("Primary");
+    }
+
+    /**
+ * Тестирует сценарий: method annotated primary_then overrides class route
+ * 
+ * @see #whenMethodAnnotatedPrimary_thenOverridesClassRoute()
+ */
+
+
+    @Test
+
+
+    void whenMethodAnnotatedPrimary_thenOverridesClassRoute() {
+        GenreReader reader = routed(new ReplicaGenreReader(routedSql2o(List.of(replica))));
+
+        assertThat(reader.findName()).isEqualTo("Replica");
+        assertThat(reader.findFreshName()).isEqualTo("Primary");
+    }
+
+    /**
+ * Тестирует сценарий: session pinned after write_then reads from primary
+ * 
+ * @see #whenSessionPinnedAfterWrite_thenReadsFromPrimary()
+ */
+
+
+    @Test
+
+
+    void whenSessionPinnedAfterWrite_thenReadsFromPrimary() {
+        var sql2o = routedSql2o(List.of(replica));
+        GenreRepository repository = routed(new Sql2oGenreRepository(sql2o));
+
+        RoutingContext.pinToPrimary();
+        var pinned = genreName(repository);
+        RoutingContext.unpin();
+
+        assertThat(pinned).isEqualTo("Primary");
+        assertThat(genreName(repository)).isEqualTo("Replica");
+    }
+
+    /**
+ * Тестирует сценарий: read inside unit of work transaction_then reads from primary
+ * 
+ * @see #whenReadInsideUnitOfWorkTransaction_thenReadsFromPrimary()
+ */
+
+
+    @Test
+
+
+    void whenReadInsideUnitOfWorkTransaction_thenReadsFromPrimary() {
+        var sql2o = routedSql2o(List.of(replica));
+        GenreRepository repository = routed(new Sql2oGenreRepository(sql2o));
+
+        assertThat(unitOfWork.inTransaction(() -> genreName(repository))).isEqualTo("Primary");
+    }
+
+    /**
+ * Тестирует сценарий: no replicas configured_then replica route reads from primary
+ * 
+ * @see #whenNoReplicasConfigured_thenReplicaRouteReadsFromPrimary()
+ */
+
+
+    @Test
+
+
+    void whenNoReplicasConfigured_thenReplicaRouteReadsFromPrimary() {
+        GenreRepository repository = routed(new Sql2oGenreRepository(routedSql2o(List.of())));
+
+        assertThat(genreName(repository)).isEqualTo("Primary");
+    }
+
+    /**
+ * Тестирует сценарий: several replicas_then reads spread round robin
+ * 
+ * @see #whenSeveralReplicas_thenReadsSpreadRoundRobin()
+ */
+
+
+    @Test
+
+
+    void whenSeveralReplicas_thenReadsSpreadRoundRobin() {
+        var secondReplica = database("routing_replica_2", "Second replica");
+        GenreRepository repository = routed(new Sql2oGenreRepository(routedSql2o(List.of(replica, secondReplica))));
+
+        assertThat(List.of(genreName(repository), genreName(repository), genreName(repository)))
+                .containsExactly("Replica", "Second replica", "Replica");
+    }
+
+    interface GenreReader {
+
+        String findName();
+
+        String findFreshName();
+    }
+
+    @RouteTo(DataRoute.REPLICA)
+    static class ReplicaGenreReader implements GenreReader {
+
+        private final Sql2o sql2o;
+
+        ReplicaGenreReader(Sql2o sql2o) {
+            this.sql2o = sql2o;
+        }
+
+        @Override
+        public String findName() {
+            try (var connection = sql2o.open()) {
+                return connection.createQuery("SELECT name FROM genres WHERE id = 1").executeScalar(String.class);
+            }
+        }
+
+        @Override
+        @RouteTo(DataRoute.PRIMARY)
+        public String findFreshName() {
+            return findName();
+        }
+    }
+
+    static class UnroutedGenreReader {
+
+        private final Sql2o sql2o;
+
+        UnroutedGenreReader(Sql2o sql2o) {
+            this.sql2o = sql2o;
+        }
+
+        String findName() {
+            try (var connection = sql2o.open()) {
+                return connection.createQuery("SELECT name FROM genres WHERE id = 1").executeScalar(String.class);
+            }
+        }
+    }
+}
@@ -39,7 +39,8 @@ class Sql2oFileRepositoryTest {
                 CREATE TABLE files (
                     id SERIAL PRIMARY KEY,
                     name VARCHAR NOT NULL,
-                    path VARCHAR NOT NULL UNIQUE
+                    path VARCHAR NOT NULL UNIQUE,
+                    content_type VARCHAR NOT NULL DEFAULT 'application/octet-stream'
                 )
             """).executeUpdate();
 
@@ -252,4 +253,21 @@ class Sql2oFileRepositoryTest {
         File result = found.get();
         assertThat(result).usingRecursiveComparison().isEqualTo(savedFile);
     }
+
+    /**
+ * Тестирует сценарий: save with content type_then content type read back
+ * 
+ * @see #whenSaveWithContentType_thenContentTypeReadBack()
+ */
+
+
+    @Test
+
+
+    void whenSaveWithContentType_thenContentTypeReadBack() {
+        var saved = fileRepository.save(new File(0, "logo.png", "/test/path/logo.png", "image/png"));
+
+        assertThat(fileRepository.findById(saved.getId())).map(File::getContentType).contains("image/png");
+        assertThat(fileRepository.findById(1)).map(File::getContentType).contains(File.DEFAULT_CONTENT_TYPE);
+    }
 }
\ No newline at end of file
@@ -2,13 +2,21 @@ package ru.job4j.cinema.repository;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.Test;
 import org.sql2o.Sql2o;
 import ru.job4j.cinema.model.Film;
+import ru.job4j.cinema.model.Genre;
 import ru.job4j.cinema.repository.film.Sql2oFilmRepository;
 
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -16,11 +24,15 @@ class Sql2oFilmRepositoryTest {
 
     private Sql2oFilmRepository filmRepository;
     private Sql2o sql2o;
+    private final AtomicInteger statements = new AtomicInteger();
 
     @BeforeEach
     void setUp() {
-        String url = "jdbc:h2:mem:test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
-        sql2o = new Sql2o(url, "sa", "");
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        sql2o = new Sql2o(countingStatements(dataSource));
         filmRepository = new Sql2oFilmRepository(sql2o);
 
         createTables();
@@ -35,6 +47,14 @@ class Sql2oFilmRepositoryTest {
     private void createTables() {
         try (var connection = sql2o.open()) {
             connection.createQuery("DROP TABLE IF EXISTS films CASCADE").executeUpdate();
+            connection.createQuery("DROP TABLE IF EXISTS genres CASCADE").executeUpdate();
+
+            connection.createQuery("""
+                CREATE TABLE genres (
+                    id SERIAL PRIMARY KEY,
+                    name VARCHAR NOT NULL UNIQUE
+                )
+            """).executeUpdate();
 
             connection.createQuery("""
                 CREATE TABLE films (
@@ -62,12 +82,40 @@ class Sql2oFilmRepositoryTest {
                 ('The Matrix', 'Virtual reality', 1999, 1, 18, 136, 2),
                 ('Comedy Movie', 'Funny story', 2022, 2, 12, 95, 3)
             """).executeUpdate();
+            connection.createQuery("INSERT INTO genres (id, name) VALUES (1, 'Sci-Fi')").executeUpdate();
         }
     }
 
     private void clearTables() {
         try (var connection = sql2o.open()) {
             connection.createQuery("DELETE FROM films").executeUpdate();
+            connection.createQuery("DELETE FROM genres").executeUpdate();
+        }
+    }
+
+    private DataSource countingStatements(DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    var result = invoke(dataSource, method, args);
+                    if (result instanceof Connection connection) {
+                        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                                (connectionProxy, connectionMethod, connectionArgs) -> {
+                                    if (connectionMethod.getName().startsWith("prepare")
+                                            || connectionMethod.getName().equals("createStatement")) {
+                                        statements.incrementAndGet();
+                                    }
+                                    return invoke(connection, connectionMethod, connectionArgs);
+                                });
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
         }
     }
 
@@ -223,4 +271,70 @@ class Sql2oFilmRepositoryTest {
         assertThat(film.getMinimalAge()).isEqualTo(12);
         assertThat(film.getDurationInMinutes()).isEqualTo(95);
     }
-}
\ No newline at end of file
+
+    /**
+ * Тестирует сценарий: find all with genre_then genres attached in single statement
+ * 
+ * @see #whenFindAllWithGenre_thenGenresAttachedInSingleStatement()
+ */
+
+
+    @Test
+
+
+    void whenFindAllWithGenre_thenGenresAttachedInSingleStatement() {
+        statements.set(0);
+
+        Collection<Film> films = filmRepository.findAllWithGenre();
+
+        assertThat(statements.get()).isEqualTo(1);
+        assertThat(films).hasSize(3);
+        assertThat(films)
+                .filteredOn(film -> film.getGenreId() == 1)
+                .extracting(Film::getGenre)
+                .containsOnly(new Genre(1, "Sci-Fi"));
+        assertThat(films)
+                .filteredOn(film -> film.getGenreId() == 2)
+                .extracting(Film::getGenre)
+                .containsOnlyNulls();
+    }
+
+    /**
+ * Тестирует сценарий: find by id with genre_then genre attached in single statement
+ * 
+ * @see #whenFindByIdWithGenre_thenGenreAttachedInSingleStatement()
+ */
+
+
+    @Test
+
+
+    void whenFindByIdWithGenre_thenGenreAttachedInSingleStatement() {
+        statements.set(0);
+
+        Optional<Film> found = filmRepository.findByIdWithGenre(2);
+
+        assertThat(statements.get()).isEqualTo(1);
+        assertThat(found).isPresent();
+        assertThat(found.get().getName()).isEqualTo("The Matrix");
+        assertThat(found.get().getFileId()).isEqualTo(2);
+        assertThat(found.get().getGenre().getName()).isEqualTo("Sci-Fi");
+        assertThat(filmRepository.findByIdWithGenre(999)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: find page with genre_then films after cursor in id order
+ * 
+ * @see #whenFindPageWithGenre_thenFilmsAfterCursorInIdOrder()
+ */
+
+
+    @Test
+
+
+    void whenFindPageWithGenre_thenFilmsAfterCursorInIdOrder() {
+        assertThat(filmRepository.findPageWithGenre(0, 2)).extracting(Film::getId).containsExactly(1, 2);
+        assertThat(filmRepository.findPageWithGenre(2, 2)).extracting(Film::getId).containsExactly(3);
+        assertThat(filmRepository.findPageWithGenre(3, 2)).isEmpty();
+    }
+}
@@ -8,6 +8,8 @@ import org.sql2o.converters.Converter;
 import org.sql2o.converters.ConverterException;
 import org.sql2o.quirks.NoQuirks;
 import org.sql2o.quirks.Quirks;
+import ru.job4j.cinema.dto.SeatAvailability;
+import ru.job4j.cinema.model.Film;
 import ru.job4j.cinema.model.FilmSession;
 import ru.job4j.cinema.repository.session.Sql2oFilmSessionRepository;
 
@@ -18,6 +20,7 @@ import java.util.Collection;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 class Sql2oFilmSessionRepositoryTest {
 
@@ -297,4 +300,228 @@ class Sql2oFilmSessionRepositoryTest {
         ).toMinutes();
         assertThat(durationMinutes).isEqualTo(120L);
     }
-}
\ No newline at end of file
+
+    /**
+ * Тестирует сценарий: find seat availability_then capacity and sold counted per session
+ * 
+ * @see #whenFindSeatAvailability_thenCapacityAndSoldCountedPerSession()
+ */
+
+
+    @Test
+
+
+    void whenFindSeatAvailability_thenCapacityAndSoldCountedPerSession() {
+        createHallsAndTickets();
+
+        Collection<SeatAvailability> availability = filmSessionRepository.findSeatAvailabilityEndingAfter(
+                testStartTime1.minusYears(1));
+
+        assertThat(availability)
+                .extracting(SeatAvailability::getSessionId, SeatAvailability::getCapacity, SeatAvailability::getSold)
+                .containsExactlyInAnyOrder(tuple(1, 50, 2), tuple(2, 50, 0), tuple(3, 12, 1));
+        assertThat(filmSessionRepository.findSeatAvailabilityEndingAfter(testEndTime1))
+                .extracting(SeatAvailability::getSessionId)
+                .doesNotContain(1)
+                .contains(3);
+        assertThat(availability).filteredOn(seats -> seats.getSessionId() == 1)
+                .extracting(SeatAvailability::getEndTime).containsExactly(testEndTime1);
+        assertThat(filmSessionRepository.findSeatAvailabilityById(1))
+                .map(SeatAvailability::getSold).contains(2);
+        assertThat(filmSessionRepository.findSeatAvailabilityById(99)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: find all with film_then films, genres and halls joined and films shared
+ * 
+ * @see #whenFindAllWithFilm_thenFilmsGenresAndHallsJoinedAndFilmsShared()
+ */
+
+
+    @Test
+
+
+    void whenFindAllWithFilm_thenFilmsGenresAndHallsJoinedAndFilmsShared() {
+        createHallsAndTickets();
+        createFilmsAndGenres();
+
+        Collection<FilmSession> sessions = filmSessionRepository.findAllWithFilm();
+
+        assertThat(sessions)
+                .extracting(FilmSession::getId, FilmSession::getHallName, FilmSession::getPrice)
+                .containsExactlyInAnyOrder(tuple(1, "Red Hall", 500), tuple(2, "Red Hall", 600), tuple(3, "Blue Hall", 450));
+        var first = sessions.stream().filter(session -> session.getId() == 1).findFirst().orElseThrow();
+        var third = sessions.stream().filter(session -> session.getId() == 3).findFirst().orElseThrow();
+        var second = sessions.stream().filter(session -> session.getId() == 2).findFirst().orElseThrow();
+        assertThat(first.getStartTime()).isEqualTo(testStartTime1);
+        assertThat(first.getFilm().getName()).isEqualTo("Inception");
+        assertThat(first.getFilm().getGenre().getName()).isEqualTo("Sci-Fi");
+        assertThat(third.getFilm()).isSameAs(first.getFilm());
+        assertThat(second.getFilm()).isNull();
+    }
+
+    /**
+ * Тестирует сценарий: find by id with film_then session with film and hall name
+ * 
+ * @see #whenFindByIdWithFilm_thenSessionWithFilmAndHallName()
+ */
+
+
+    @Test
+
+
+    void whenFindByIdWithFilm_thenSessionWithFilmAndHallName() {
+        createHallsAndTickets();
+        createFilmsAndGenres();
+
+        Optional<FilmSession> found = filmSessionRepository.findByIdWithFilm(3);
+
+        assertThat(found).isPresent();
+        assertThat(found.get().getHallName()).isEqualTo("Blue Hall");
+        assertThat(found.get().getFilm()).extracting(Film::getId, Film::getDurationInMinutes).containsExactly(1, 148);
+        assertThat(filmSessionRepository.findByIdWithFilm(99)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: find page with film_then sessions after cursor ordered by start time and id
+ * 
+ * @see #whenFindPageWithFilm_thenSessionsAfterCursorOrderedByStartTimeAndId()
+ */
+
+
+    @Test
+
+
+    void whenFindPageWithFilm_thenSessionsAfterCursorOrderedByStartTimeAndId() {
+        createHallsAndTickets();
+        createFilmsAndGenres();
+
+        assertThat(filmSessionRepository.findPageWithFilm(null, 0, 2))
+                .extracting(FilmSession::getId).containsExactly(1, 2);
+        assertThat(filmSessionRepository.findPageWithFilm(testStartTime2, 2, 2))
+                .extracting(FilmSession::getId).containsExactly(3);
+        assertThat(filmSessionRepository.findPageWithFilm(testStartTime1, 0, 5))
+                .extracting(FilmSession::getId).containsExactly(1, 2, 3);
+        assertThat(filmSessionRepository.findPageWithFilm(testStartTime1, 1, 5))
+                .extracting(FilmSession::getId).containsExactly(2, 3);
+    }
+
+    /**
+ * Тестирует сценарий: find between_then only sessions starting inside window
+ * 
+ * @see #whenFindBetween_thenOnlySessionsStartingInsideWindow()
+ */
+
+
+    @Test
+
+
+    void whenFindBetween_thenOnlySessionsStartingInsideWindow() {
+        createHallsAndTickets();
+        createFilmsAndGenres();
+
+        assertThat(filmSessionRepository.findBetween(testStartTime1, testStartTime2))
+                .extracting(FilmSession::getId).containsExactly(1);
+        assertThat(filmSessionRepository.findBetween(testStartTime1, testStartTime1.plusDays(2)))
+                .extracting(FilmSession::getId).containsExactly(1, 2, 3);
+        assertThat(filmSessionRepository.findBetween(testStartTime1.minusDays(2), testStartTime1)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: find upcoming_then sessions from moment in start order up to limit
+ * 
+ * @see #whenFindUpcoming_thenSessionsFromMomentInStartOrderUpToLimit()
+ */
+
+
+    @Test
+
+
+    void whenFindUpcoming_thenSessionsFromMomentInStartOrderUpToLimit() {
+        createHallsAndTickets();
+        createFilmsAndGenres();
+
+        assertThat(filmSessionRepository.findUpcoming(testStartTime1.plusMinutes(1), 5))
+                .extracting(FilmSession::getId).containsExactly(2, 3);
+        assertThat(filmSessionRepository.findUpcoming(testStartTime1, 1))
+                .extracting(FilmSession::getId).containsExactly(1);
+    }
+
+    /**
+ * Тестирует сценарий: find by film and day_then only that film sessions of that day
+ * 
+ * @see #whenFindByFilmAndDay_thenOnlyThatFilmSessionsOfThatDay()
+ */
+
+
+    @Test
+
+
+    void whenFindByFilmAndDay_thenOnlyThatFilmSessionsOfThatDay() {
+        createHallsAndTickets();
+        createFilmsAndGenres();
+
+        assertThat(filmSessionRepository.findByFilmAndDay(1, testStartTime1.plusDays(1).toLocalDate()))
+                .extracting(FilmSession::getId).containsExactly(3);
+        assertThat(filmSessionRepository.findByFilmAndDay(2, testStartTime1.plusDays(1).toLocalDate())).isEmpty();
+    }
+
+    private void createFilmsAndGenres() {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DROP TABLE IF EXISTS films CASCADE").executeUpdate();
+            connection.createQuery("DROP TABLE IF EXISTS genres CASCADE").executeUpdate();
+            connection.createQuery("""
+                CREATE TABLE genres (
+                    id INT PRIMARY KEY,
+                    name VARCHAR NOT NULL
+                )
+            """).executeUpdate();
+            connection.createQuery("""
+                CREATE TABLE films (
+                    id INT PRIMARY KEY,
+                    name VARCHAR NOT NULL,
+                    description TEXT NOT NULL,
+                    release_year INT NOT NULL,
+                    genre_id INT NOT NULL,
+                    minimal_age INT NOT NULL,
+                    duration_in_minutes INT NOT NULL,
+                    file_id INT NOT NULL
+                )
+            """).executeUpdate();
+            connection.createQuery("INSERT INTO genres VALUES (1, 'Sci-Fi')").executeUpdate();
+            connection.createQuery("INSERT INTO films VALUES (1, 'Inception', 'Dream within a dream', 2010, 1, 16, 148, 1)")
+                    .executeUpdate();
+        }
+    }
+
+    private void createHallsAndTickets() {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DROP TABLE IF EXISTS tickets CASCADE").executeUpdate();
+            connection.createQuery("DROP TABLE IF EXISTS halls CASCADE").executeUpdate();
+            connection.createQuery("""
+                CREATE TABLE halls (
+                    id INT PRIMARY KEY,
+                    name VARCHAR NOT NULL,
+                    row_count INT NOT NULL,
+                    place_count INT NOT NULL
+                )
+            """).executeUpdate();
+            connection.createQuery("""
+                CREATE TABLE tickets (
+                    id SERIAL PRIMARY KEY,
+                    session_id INT NOT NULL,
+                    row_number INT NOT NULL,
+                    place_number INT NOT NULL,
+                    user_id INT NOT NULL,
+                    UNIQUE(session_id, row_number, place_number)
+                )
+            """).executeUpdate();
+            connection.createQuery("INSERT INTO halls VALUES (1, 'Red Hall', 5, 10), (2, 'Blue Hall', 3, 4)")
+                    .executeUpdate();
+            connection.createQuery("""
+                INSERT INTO tickets (session_id, row_number, place_number, user_id)
+                VALUES (1, 1, 1, 100), (1, 1, 2, 100), (3, 2, 2, 200)
+            """).executeUpdate();
+        }
+    }
+}
@@ -209,4 +209,20 @@ class Sql2oGenreRepositoryTest {
         Optional<Genre> found = genreRepository.findById(1);
         assertThat(found).isEmpty();
     }
+
+    /**
+ * Тестирует сценарий: успешное выполнение при find all_then return genres ordered by id
+ * 
+ * @see #whenFindAll_thenReturnGenresOrderedById()
+ */
+
+
+    @Test
+
+
+    void whenFindAll_thenReturnGenresOrderedById() {
+        assertThat(genreRepository.findAll())
+                .extracting(Genre::getName)
+                .containsExactly("Action", "Comedy", "Drama", "Sci-Fi", "Horror");
+    }
 }
\ No newline at end of file
@@ -247,4 +247,20 @@ class Sql2oHallRepositoryTest {
         assertThat(mainHall.get().getPlaceCount()).isNotEqualTo(vipHall.get().getPlaceCount());
         assertThat(mainHall.get().getName()).isNotEqualTo(vipHall.get().getName());
     }
+
+    /**
+ * Тестирует сценарий: успешное выполнение при find all_then return halls ordered by id
+ * 
+ * @see #whenFindAll_thenReturnHallsOrderedById()
+ */
+
+
+    @Test
+
+
+    void whenFindAll_thenReturnHallsOrderedById() {
+        assertThat(hallRepository.findAll())
+                .extracting(Hall::getId)
+                .containsExactly(1, 2, 3);
+    }
 }
\ No newline at end of file
@@ -4,13 +4,20 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.sql2o.Sql2o;
+import ru.job4j.cinema.dto.GroupReservationResult;
+import ru.job4j.cinema.dto.ReservationStatus;
+import ru.job4j.cinema.dto.TicketWithDetails;
+import ru.job4j.cinema.model.Seat;
 import ru.job4j.cinema.model.Ticket;
 import ru.job4j.cinema.repository.ticket.Sql2oTicketRepository;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 class Sql2oTicketRepositoryTest {
 
@@ -136,9 +143,10 @@ class Sql2oTicketRepositoryTest {
 
 
     void whenReserveTicketForFreePlace_thenSuccess() {
-        boolean isReserved = ticketRepository.reserveTicket(3, 5, 8, 800);
+        insertSessions(3);
+        ReservationStatus isReserved = ticketRepository.reserveTicket(3, 5, 8, 800);
 
-        assertThat(isReserved).isTrue();
+        assertThat(isReserved).isEqualTo(ReservationStatus.RESERVED);
 
         Optional<Ticket> reservedTicket = ticketRepository.findBySessionIdAndRowAndPlace(3, 5, 8);
         assertThat(reservedTicket).isPresent();
@@ -159,15 +167,54 @@ class Sql2oTicketRepositoryTest {
 
 
     void whenReserveTicketForOccupiedPlace_thenFail() {
-        boolean isReserved = ticketRepository.reserveTicket(1, 1, 1, 900);
+        insertSessions(1);
+        ReservationStatus isReserved = ticketRepository.reserveTicket(1, 1, 1, 900);
 
-        assertThat(isReserved).isFalse();
+        assertThat(isReserved).isEqualTo(ReservationStatus.SEAT_TAKEN);
 
         Optional<Ticket> existingTicket = ticketRepository.findBySessionIdAndRowAndPlace(1, 1, 1);
         assertThat(existingTicket).isPresent();
         assertThat(existingTicket.get().getUserId()).isEqualTo(100);
     }
 
+    /**
+ * Тестирует сценарий: reserve ticket for unknown session_then session not found
+ * 
+ * @see #whenReserveTicketForUnknownSession_thenSessionNotFound()
+ */
+
+
+    @Test
+
+
+    void whenReserveTicketForUnknownSession_thenSessionNotFound() {
+        insertSessions(3);
+
+        ReservationStatus status = ticketRepository.reserveTicket(4, 1, 1, 800);
+
+        assertThat(status).isEqualTo(ReservationStatus.SESSION_NOT_FOUND);
+        assertThat(ticketRepository.findBySessionIdAndRowAndPlace(4, 1, 1)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket outside hall_then out of hall bounds
+ * 
+ * @see #whenReserveTicketOutsideHall_thenOutOfHallBounds()
+ */
+
+
+    @Test
+
+
+    void whenReserveTicketOutsideHall_thenOutOfHallBounds() {
+        insertSessions(3);
+
+        assertThat(ticketRepository.reserveTicket(3, 11, 1, 800)).isEqualTo(ReservationStatus.OUT_OF_HALL_BOUNDS);
+        assertThat(ticketRepository.reserveTicket(3, 1, 11, 800)).isEqualTo(ReservationStatus.OUT_OF_HALL_BOUNDS);
+        assertThat(ticketRepository.reserveTicket(3, 0, 1, 800)).isEqualTo(ReservationStatus.OUT_OF_HALL_BOUNDS);
+        assertThat(ticketRepository.findByUserId(800)).isEmpty();
+    }
+
     /**
  * Тестирует сценарий: успешное выполнение при find by user id exists_then return user tickets
  * 
@@ -234,11 +281,12 @@ class Sql2oTicketRepositoryTest {
 
 
     void whenReserveTicketWithSameSessionRowPlaceDifferentUsers_thenFirstWins() {
-        boolean firstReservation = ticketRepository.reserveTicket(50, 1, 1, 2000);
-        assertThat(firstReservation).isTrue();
+        insertSessions(50);
+        ReservationStatus firstReservation = ticketRepository.reserveTicket(50, 1, 1, 2000);
+        assertThat(firstReservation).isEqualTo(ReservationStatus.RESERVED);
 
-        boolean secondReservation = ticketRepository.reserveTicket(50, 1, 1, 2001);
-        assertThat(secondReservation).isFalse();
+        ReservationStatus secondReservation = ticketRepository.reserveTicket(50, 1, 1, 2001);
+        assertThat(secondReservation).isEqualTo(ReservationStatus.SEAT_TAKEN);
 
         Optional<Ticket> ticket = ticketRepository.findBySessionIdAndRowAndPlace(50, 1, 1);
         assertThat(ticket).isPresent();
@@ -256,8 +304,9 @@ class Sql2oTicketRepositoryTest {
 
 
     void whenReserveTicketWithMinimumValues_thenFailBecauseAlreadyExists() {
-        boolean isReserved = ticketRepository.reserveTicket(1, 1, 1, 1);
-        assertThat(isReserved).isFalse();
+        insertSessions(1);
+        ReservationStatus isReserved = ticketRepository.reserveTicket(1, 1, 1, 1);
+        assertThat(isReserved).isEqualTo(ReservationStatus.SEAT_TAKEN);
     }
 
     /**
@@ -271,9 +320,10 @@ class Sql2oTicketRepositoryTest {
 
 
     void whenReserveTicketWithNewSession_thenSuccess() {
-        boolean isReserved = ticketRepository.reserveTicket(999, 1, 1, 6000);
+        insertSessions(999);
+        ReservationStatus isReserved = ticketRepository.reserveTicket(999, 1, 1, 6000);
 
-        assertThat(isReserved).isTrue();
+        assertThat(isReserved).isEqualTo(ReservationStatus.RESERVED);
 
         Optional<Ticket> reserved = ticketRepository.findBySessionIdAndRowAndPlace(999, 1, 1);
         assertThat(reserved).isPresent();
@@ -292,13 +342,14 @@ class Sql2oTicketRepositoryTest {
 
 
     void whenUserReservesMultipleTickets_thenAllReserved() {
-        boolean ticket1 = ticketRepository.reserveTicket(10, 1, 1, 7000);
-        boolean ticket2 = ticketRepository.reserveTicket(10, 1, 2, 7000);
-        boolean ticket3 = ticketRepository.reserveTicket(10, 1, 3, 7000);
+        insertSessions(10);
+        ReservationStatus ticket1 = ticketRepository.reserveTicket(10, 1, 1, 7000);
+        ReservationStatus ticket2 = ticketRepository.reserveTicket(10, 1, 2, 7000);
+        ReservationStatus ticket3 = ticketRepository.reserveTicket(10, 1, 3, 7000);
 
-        assertThat(ticket1).isTrue();
-        assertThat(ticket2).isTrue();
-        assertThat(ticket3).isTrue();
+        assertThat(ticket1).isEqualTo(ReservationStatus.RESERVED);
+        assertThat(ticket2).isEqualTo(ReservationStatus.RESERVED);
+        assertThat(ticket3).isEqualTo(ReservationStatus.RESERVED);
 
         Collection<Ticket> userTickets = ticketRepository.findByUserId(7000);
         assertThat(userTickets).hasSize(3);
@@ -318,11 +369,12 @@ class Sql2oTicketRepositoryTest {
 
 
     void whenReserveSamePlaceInDifferentSessions_thenBothSuccess() {
-        boolean session1 = ticketRepository.reserveTicket(100, 5, 5, 8000);
-        boolean session2 = ticketRepository.reserveTicket(200, 5, 5, 8000);
+        insertSessions(100, 200);
+        ReservationStatus session1 = ticketRepository.reserveTicket(100, 5, 5, 8000);
+        ReservationStatus session2 = ticketRepository.reserveTicket(200, 5, 5, 8000);
 
-        assertThat(session1).isTrue();
-        assertThat(session2).isTrue();
+        assertThat(session1).isEqualTo(ReservationStatus.RESERVED);
+        assertThat(session2).isEqualTo(ReservationStatus.RESERVED);
 
         assertThat(ticketRepository.findBySessionIdAndRowAndPlace(100, 5, 5)).isPresent();
         assertThat(ticketRepository.findBySessionIdAndRowAndPlace(200, 5, 5)).isPresent();
@@ -347,4 +399,248 @@ class Sql2oTicketRepositoryTest {
         Optional<Ticket> ticket = ticketRepository.findBySessionIdAndRowAndPlace(1, 1, 1);
         assertThat(ticket).isEmpty();
     }
-}
\ No newline at end of file
+
+    /**
+ * Тестирует сценарий: успешное выполнение при find seats by session id_then return occupied seats
+ * 
+ * @see #whenFindSeatsBySessionId_thenReturnOccupiedSeats()
+ */
+
+
+    @Test
+
+
+    void whenFindSeatsBySessionId_thenReturnOccupiedSeats() {
+        Collection<Seat> seats = ticketRepository.findSeatsBySessionId(1);
+
+        assertThat(seats).containsExactlyInAnyOrder(new Seat(1, 1), new Seat(1, 2), new Seat(2, 1));
+        assertThat(ticketRepository.findSeatsBySessionId(9999)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets for free seats_then all reserved in one batch
+ * 
+ * @see #whenReserveTicketsForFreeSeats_thenAllReserved()
+ */
+
+
+    @Test
+
+
+    void whenReserveTicketsForFreeSeats_thenAllReserved() {
+        insertSessions(1);
+        List<Seat> seats = List.of(new Seat(3, 1), new Seat(3, 2), new Seat(3, 3), new Seat(3, 4));
+
+        GroupReservationResult result = ticketRepository.reserveTickets(1, seats, 9000);
+
+        assertThat(result.isReserved()).isTrue();
+        assertThat(result.getConflicts()).isEmpty();
+        assertThat(ticketRepository.findByUserId(9000))
+                .extracting(Ticket::getPlaceNumber)
+                .containsExactlyInAnyOrder(1, 2, 3, 4);
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets with occupied seat_then nothing reserved and conflicts reported
+ * 
+ * @see #whenReserveTicketsWithOccupiedSeat_thenNothingReservedAndConflictsReported()
+ */
+
+
+    @Test
+
+
+    void whenReserveTicketsWithOccupiedSeat_thenNothingReservedAndConflictsReported() {
+        insertSessions(1);
+        List<Seat> seats = List.of(new Seat(1, 3), new Seat(1, 2), new Seat(2, 1), new Seat(2, 2));
+
+        GroupReservationResult result = ticketRepository.reserveTickets(1, seats, 9001);
+
+        assertThat(result.isReserved()).isFalse();
+        assertThat(result.getStatus()).isEqualTo(ReservationStatus.SEAT_TAKEN);
+        assertThat(result.getConflicts()).containsExactly(new Seat(1, 2), new Seat(2, 1));
+        assertThat(ticketRepository.findByUserId(9001)).isEmpty();
+        assertThat(ticketRepository.findBySessionIdAndRowAndPlace(1, 1, 3)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets with seat outside hall_then nothing reserved and out of hall bounds reported
+ * 
+ * @see #whenReserveTicketsWithSeatOutsideHall_thenNothingReservedAndOutOfHallBoundsReported()
+ */
+
+
+    @Test
+
+
+    void whenReserveTicketsWithSeatOutsideHall_thenNothingReservedAndOutOfHallBoundsReported() {
+        insertSessions(3);
+        List<Seat> seats = List.of(new Seat(3, 3), new Seat(99, 99));
+
+        GroupReservationResult result = ticketRepository.reserveTickets(3, seats, 9003);
+
+        assertThat(result.isReserved()).isFalse();
+        assertThat(result.getStatus()).isEqualTo(ReservationStatus.OUT_OF_HALL_BOUNDS);
+        assertThat(result.getConflicts()).containsExactly(new Seat(99, 99));
+        assertThat(ticketRepository.findByUserId(9003)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets for unknown session_then session not found
+ * 
+ * @see #whenReserveTicketsForUnknownSession_thenSessionNotFound()
+ */
+
+
+    @Test
+
+
+    void whenReserveTicketsForUnknownSession_thenSessionNotFound() {
+        insertSessions(3);
+
+        GroupReservationResult result = ticketRepository.reserveTickets(4, List.of(new Seat(1, 1)), 9004);
+
+        assertThat(result.getStatus()).isEqualTo(ReservationStatus.SESSION_NOT_FOUND);
+        assertThat(ticketRepository.findByUserId(9004)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: save all replayed twice_then existing tickets skipped
+ * 
+ * @see #whenSaveAllReplayedTwice_thenExistingTicketsSkipped()
+ */
+
+
+    @Test
+
+
+    void whenSaveAllReplayedTwice_thenExistingTicketsSkipped() {
+        List<Ticket> tickets = List.of(new Ticket(0, 1, 1, 1, 9002), new Ticket(0, 1, 4, 4, 9002),
+                new Ticket(0, 2, 4, 4, 9002));
+
+        int firstReplay = ticketRepository.saveAll(tickets);
+        int secondReplay = ticketRepository.saveAll(tickets);
+
+        assertThat(firstReplay).isEqualTo(2);
+        assertThat(secondReplay).isZero();
+        assertThat(ticketRepository.findByUserId(9002)).hasSize(2);
+        assertThat(ticketRepository.findBySessionIdAndRowAndPlace(1, 1, 1).get().getUserId()).isEqualTo(100);
+    }
+
+    /**
+ * Тестирует сценарий: find tickets with details by user id_then joined rows newest session first
+ * 
+ * @see #whenFindTicketsWithDetailsByUserId_thenJoinedRowsNewestSessionFirst()
+ */
+
+
+    @Test
+
+
+    void whenFindTicketsWithDetailsByUserId_thenJoinedRowsNewestSessionFirst() {
+        createScheduleTables();
+        var start = LocalDateTime.of(2030, 1, 1, 18, 0);
+        try (var connection = sql2o.open()) {
+            connection.createQuery("""
+                INSERT INTO film_sessions (id, film_id, halls_id, start_time, end_time, price)
+                VALUES (1, 1, 1, :late, :lateEnd, 500), (2, 1, 1, :early, :earlyEnd, 400)
+            """)
+                    .addParameter("late", start.plusDays(1))
+                    .addParameter("lateEnd", start.plusDays(1).plusHours(2))
+                    .addParameter("early", start)
+                    .addParameter("earlyEnd", start.plusHours(2))
+                    .executeUpdate();
+            connection.createQuery("INSERT INTO tickets (session_id, row_number, place_number, user_id) VALUES (2, 3, 3, 100)")
+                    .executeUpdate();
+        }
+
+        Collection<TicketWithDetails> tickets = ticketRepository.findTicketsWithDetailsByUserId(100);
+
+        assertThat(tickets)
+                .extracting(TicketWithDetails::getSessionId, TicketWithDetails::getRowNumber,
+                        TicketWithDetails::getPlaceNumber, TicketWithDetails::getStartTime, TicketWithDetails::getPrice)
+                .containsExactly(
+                        tuple(1, 1, 2, start.plusDays(1), 500),
+                        tuple(1, 1, 1, start.plusDays(1), 500),
+                        tuple(2, 3, 3, start, 400));
+        assertThat(tickets)
+                .extracting(TicketWithDetails::getFilmName, TicketWithDetails::getGenreName, TicketWithDetails::getHallName)
+                .containsOnly(tuple("Inception", "Sci-Fi", "Red Hall"));
+        assertThat(ticketRepository.findTicketsWithDetailsByUserId(500)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: find tickets with details page_then next page continues before cursor
+ * 
+ * @see #whenFindTicketsWithDetailsPage_thenNextPageContinuesBeforeCursor()
+ */
+
+
+    @Test
+
+
+    void whenFindTicketsWithDetailsPage_thenNextPageContinuesBeforeCursor() {
+        createScheduleTables();
+        var start = LocalDateTime.of(2030, 1, 1, 18, 0);
+        try (var connection = sql2o.open()) {
+            connection.createQuery("INSERT INTO film_sessions VALUES (1, 1, 1, :start, :end, 500)")
+                    .addParameter("start", start)
+                    .addParameter("end", start.plusHours(2))
+                    .executeUpdate();
+        }
+
+        var firstPage = ticketRepository.findTicketsWithDetailsPageByUserId(100, null, 0, 1);
+        var last = firstPage.get(firstPage.size() - 1);
+        var secondPage = ticketRepository.findTicketsWithDetailsPageByUserId(100, last.getStartTime(), last.getTicketId(), 5);
+
+        assertThat(firstPage).extracting(TicketWithDetails::getPlaceNumber).containsExactly(2);
+        assertThat(secondPage).extracting(TicketWithDetails::getPlaceNumber).containsExactly(1);
+        assertThat(ticketRepository.findTicketsWithDetailsPageByUserId(100, start, 1, 5)).isEmpty();
+    }
+
+    private void createScheduleTables() {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DROP TABLE IF EXISTS film_sessions CASCADE").executeUpdate();
+            connection.createQuery("DROP TABLE IF EXISTS films CASCADE").executeUpdate();
+            connection.createQuery("DROP TABLE IF EXISTS genres CASCADE").executeUpdate();
+            connection.createQuery("DROP TABLE IF EXISTS halls CASCADE").executeUpdate();
+            connection.createQuery("""
+                CREATE TABLE film_sessions (
+                    id INT PRIMARY KEY,
+                    film_id INT NOT NULL,
+                    halls_id INT NOT NULL,
+                    start_time TIMESTAMP NOT NULL,
+                    end_time TIMESTAMP NOT NULL,
+                    price INT NOT NULL
+                )
+            """).executeUpdate();
+            connection.createQuery("""
+                CREATE TABLE films (
+                    id INT PRIMARY KEY,
+                    name VARCHAR NOT NULL,
+                    genre_id INT NOT NULL
+                )
+            """).executeUpdate();
+            connection.createQuery("CREATE TABLE genres (id INT PRIMARY KEY, name VARCHAR NOT NULL)").executeUpdate();
+            connection.createQuery("CREATE TABLE halls (id INT PRIMARY KEY, name VARCHAR NOT NULL, row_count INT NOT NULL, place_count INT NOT NULL)").executeUpdate();
+            connection.createQuery("INSERT INTO films VALUES (1, 'Inception', 1)").executeUpdate();
+            connection.createQuery("INSERT INTO genres VALUES (1, 'Sci-Fi')").executeUpdate();
+            connection.createQuery("INSERT INTO halls VALUES (1, 'Red Hall', 10, 10)").executeUpdate();
+        }
+    }
+
+    private void insertSessions(int... ids) {
+        createScheduleTables();
+        var start = LocalDateTime.of(2030, 1, 1, 18, 0);
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("INSERT INTO film_sessions VALUES (:id, 1, 1, :start, :end, 500)");
+            for (int id : ids) {
+                query.addParameter("id", id)
+                        .addParameter("start", start)
+                        .addParameter("end", start.plusHours(2))
+                        .addToBatch();
+            }
+            query.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.job4j.cinema.repository;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class UnitOfWorkTest {
+
+    private JdbcDataSource dataSource;
+    private UnitOfWork unitOfWork;
+    private Sql2o sql2o;
+
+    @BeforeEach
+    void setUp() {
+        var h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        h2.setUser("sa");
+        h2.setPassword("");
+        dataSource = spy(h2);
+        unitOfWork = new UnitOfWork(dataSource);
+        sql2o = new Sql2o(dataSource);
+        sql2o.setConnectionSource(unitOfWork);
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DROP TABLE IF EXISTS unit_of_work_items").executeUpdate();
+            connection.createQuery("CREATE TABLE unit_of_work_items (id INT PRIMARY KEY)").executeUpdate();
+        }
+        clearInvocations(dataSource);
+    }
+
+    private int countItems() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery("SELECT COUNT(*) FROM unit_of_work_items").executeScalar(Integer.class);
+        }
+    }
+
+    private void insertItem(int id) {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("INSERT INTO unit_of_work_items (id) VALUES (:id)").addParameter("id", id)
+                    .executeUpdate();
+        }
+    }
+
+    /**
+ * Тестирует сценарий: open inside unit of work_then one pooled connection for all repositories
+ * 
+ * @see #whenOpenInsideUnitOfWork_thenOnePooledConnectionForAllRepositories()
+ */
+
+
+    @Test
+
+
+    void whenOpenInsideUnitOfWork_thenOnePooledConnectionForAllRepositories() throws SQLException {
+        unitOfWork.begin();
+        insertItem(1);
+        insertItem(2);
+        int count = countItems();
+        unitOfWork.end();
+
+        assertThat(count).isEqualTo(2);
+        assertThat(unitOfWork.isActive()).isFalse();
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    /**
+ * Тестирует сценарий: open outside unit of work_then connection per open
+ * 
+ * @see #whenOpenOutsideUnitOfWork_thenConnectionPerOpen()
+ */
+
+
+    @Test
+
+
+    void whenOpenOutsideUnitOfWork_thenConnectionPerOpen() throws SQLException {
+        insertItem(1);
+        countItems();
+
+        verify(dataSource, times(2)).getConnection();
+    }
+
+    /**
+ * Тестирует сценарий: unit of work without database access_then no connection borrowed
+ * 
+ * @see #whenUnitOfWorkWithoutDatabaseAccess_thenNoConnectionBorrowed()
+ */
+
+
+    @Test
+
+
+    void whenUnitOfWorkWithoutDatabaseAccess_thenNoConnectionBorrowed() {
+        unitOfWork.begin();
+        unitOfWork.end();
+
+        verifyNoInteractions(dataSource);
+    }
+
+    /**
+ * Тестирует сценарий: in transaction fails_then all statements rolled back
+ * 
+ * @see #whenInTransactionFails_thenAllStatementsRolledBack()
+ */
+
+
+    @Test
+
+
+    void whenInTransactionFails_thenAllStatementsRolledBack() {
+        assertThatThrownBy(() -> unitOfWork.inTransaction(() -> {
+            insertItem(1);
+            insertItem(1);
+            return null;
+        })).hasMessageContaining("unit_of_work_items".toUpperCase());
+
+        assertThat(countItems()).isZero();
+    }
+
+    /**
+ * Тестирует сценарий: repository commit inside transaction_then deferred until transaction end
+ * 
+ * @see #whenRepositoryCommitInsideTransaction_thenDeferredUntilTransactionEnd()
+ */
+
+
+    @Test
+
+
+    void whenRepositoryCommitInsideTransaction_thenDeferredUntilTransactionEnd() {
+        assertThatThrownBy(() -> unitOfWork.inTransaction(() -> {
+            try (var connection = sql2o.beginTransaction()) {
+                connection.createQuery("INSERT INTO unit_of_work_items (id) VALUES (1)").executeUpdate();
+                connection.commit();
+            }
+            throw new IllegalStateException("purchase failed");
+        })).hasMessage("purchase failed");
+
+        assertThat(countItems()).isZero();
+    }
+
+    /**
+ * Тестирует сценарий: nested transactions succeed_then committed once in same connection
+ * 
+ * @see #whenNestedTransactionsSucceed_thenCommittedOnceInSameConnection()
+ */
+
+
+    @Test
+
+
+    void whenNestedTransactionsSucceed_thenCommittedOnceInSameConnection() throws SQLException {
+        int inserted = unitOfWork.inTransaction(() -> {
+            insertItem(1);
+            return unitOfWork.inTransaction(() -> {
+                insertItem(2);
+                return countItems();
+            });
+        });
+
+        assertThat(inserted).isEqualTo(2);
+        assertThat(countItems()).isEqualTo(2);
+        verify(dataSource, times(2)).getConnection();
+    }
+
+    /**
+ * Тестирует сценарий: release outside transaction_then next open borrows again
+ * 
+ * @see #whenReleaseOutsideTransaction_thenNextOpenBorrowsAgain()
+ */
+
+
+    @Test
+
+
+    void whenReleaseOutsideTransaction_thenNextOpenBorrowsAgain() throws SQLException {
+        unitOfWork.begin();
+        insertItem(1);
+        unitOfWork.release();
+        insertItem(2);
+        unitOfWork.end();
+
+        assertThat(countItems()).isEqualTo(2);
+        verify(dataSource, times(3)).getConnection();
+    }
+}
@@ -0,0 +1,106 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.dto.SeatMap;
+import ru.job4j.cinema.model.Seat;
+import ru.job4j.cinema.service.ticket.BestSeatFinder;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BestSeatFinderTest {
+
+    /**
+ * Тестирует сценарий: find_ when hall empty_ should return central block
+ *
+ * @see #find_WhenHallEmpty_ShouldReturnCentralBlock()
+ */
+
+
+    @Test
+
+
+    void find_WhenHallEmpty_ShouldReturnCentralBlock() {
+        SeatMap seatMap = SeatMap.empty(5, 10);
+
+        assertThat(BestSeatFinder.find(seatMap, 2))
+                .contains(List.of(new Seat(3, 5), new Seat(3, 6)));
+        assertThat(BestSeatFinder.find(seatMap, 3))
+                .contains(List.of(new Seat(3, 4), new Seat(3, 5), new Seat(3, 6)));
+    }
+
+    /**
+ * Тестирует сценарий: find_ when centre taken_ should pick nearest free block
+ *
+ * @see #find_WhenCentreTaken_ShouldPickNearestFreeBlock()
+ */
+
+
+    @Test
+
+
+    void find_WhenCentreTaken_ShouldPickNearestFreeBlock() {
+        BitSet unavailable = new BitSet();
+        unavailable.set(2 * 10 + 4, 2 * 10 + 7);
+        SeatMap seatMap = new SeatMap(5, 10, unavailable);
+
+        assertThat(BestSeatFinder.find(seatMap, 2))
+                .contains(List.of(new Seat(2, 5), new Seat(2, 6)));
+        assertThat(BestSeatFinder.find(new SeatMap(1, 10, unavailableRow(4, 7)), 2))
+                .contains(List.of(new Seat(1, 3), new Seat(1, 4)));
+        assertThat(BestSeatFinder.find(seatMap, 4))
+                .contains(List.of(new Seat(2, 4), new Seat(2, 5), new Seat(2, 6), new Seat(2, 7)));
+    }
+
+    /**
+ * Тестирует сценарий: find_ when no contiguous block_ should return empty
+ *
+ * @see #find_WhenNoContiguousBlock_ShouldReturnEmpty()
+ */
+
+
+    @Test
+
+
+    void find_WhenNoContiguousBlock_ShouldReturnEmpty() {
+        BitSet unavailable = new BitSet();
+        for (int index = 0; index < 4 * 6; index += 2) {
+            unavailable.set(index);
+        }
+        SeatMap seatMap = new SeatMap(4, 6, unavailable);
+
+        assertThat(BestSeatFinder.find(seatMap, 2)).isEmpty();
+        assertThat(BestSeatFinder.find(seatMap, 1)).contains(List.of(new Seat(2, 4)));
+        assertThat(BestSeatFinder.find(seatMap, 7)).isEmpty();
+        assertThat(BestSeatFinder.find(seatMap, 0)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: find_ in large hall_ should find block at row edge
+ *
+ * @see #find_InLargeHall_ShouldFindBlockAtRowEdge()
+ */
+
+
+    @Test
+
+
+    void find_InLargeHall_ShouldFindBlockAtRowEdge() {
+        BitSet unavailable = new BitSet();
+        unavailable.set(0, 20 * 100);
+        unavailable.clear(19 * 100 + 97, 20 * 100);
+        SeatMap seatMap = new SeatMap(20, 100, unavailable);
+
+        assertThat(BestSeatFinder.find(seatMap, 3))
+                .contains(List.of(new Seat(20, 98), new Seat(20, 99), new Seat(20, 100)));
+        assertThat(BestSeatFinder.find(seatMap, 4)).isEmpty();
+    }
+
+    private static BitSet unavailableRow(int fromPlace, int toPlace) {
+        BitSet unavailable = new BitSet();
+        unavailable.set(fromPlace, toPlace);
+        return unavailable;
+    }
+}
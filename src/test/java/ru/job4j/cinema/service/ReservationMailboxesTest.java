@@ -0,0 +1,79 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.repository.UnitOfWork;
+import ru.job4j.cinema.service.ticket.ReservationMailboxes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ReservationMailboxesTest {
+
+    private ReservationMailboxes mailboxes;
+    private final UnitOfWork unitOfWork = mock(UnitOfWork.class);
+
+    @AfterEach
+    void tearDown() {
+        if (mailboxes != null) {
+            mailboxes.stop();
+        }
+    }
+
+    /**
+ * Тестирует сценарий: for session_ when disabled_ should run in caller thread
+ *
+ * @see #forSession_WhenDisabled_ShouldRunInCallerThread()
+ */
+
+
+    @Test
+
+
+    void forSession_WhenDisabled_ShouldRunInCallerThread() {
+        mailboxes = new ReservationMailboxes(false, 4, unitOfWork);
+
+        String thread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(),
+                mailboxes.forSession(1)).join();
+
+        assertThat(mailboxes.isEnabled()).isFalse();
+        assertThat(thread).isEqualTo(Thread.currentThread().getName());
+        verifyNoInteractions(unitOfWork);
+    }
+
+    /**
+ * Тестирует сценарий: for session_ when enabled_ should process session sequentially on one writer
+ *
+ * @see #forSession_WhenEnabled_ShouldProcessSessionSequentiallyOnOneWriter()
+ */
+
+
+    @Test
+
+
+    void forSession_WhenEnabled_ShouldProcessSessionSequentiallyOnOneWriter() {
+        mailboxes = new ReservationMailboxes(true, 2, unitOfWork);
+        List<Integer> decisions = new ArrayList<>();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            int decision = i;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                decisions.add(decision);
+                return Thread.currentThread().getName();
+            }, mailboxes.forSession(3)));
+        }
+        String otherSession = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(),
+                mailboxes.forSession(4)).join();
+
+        assertThat(futures.stream().map(CompletableFuture::join).distinct().toList())
+                .containsExactly("reservation-writer-1");
+        assertThat(decisions).hasSize(1000).isSorted();
+        assertThat(otherSession).isEqualTo("reservation-writer-0");
+        verify(unitOfWork, times(1001)).release();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.FilmSession;
+import ru.job4j.cinema.service.session.ScheduleSnapshot;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScheduleSnapshotTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+
+    private static FilmSession session(int id, int filmId, LocalDateTime start) {
+        return new FilmSession(id, filmId, 1, start, start.plusHours(2), 500);
+    }
+
+    /**
+ * Тестирует сценарий: sessions loaded_then partitioned by day and sorted by start
+ * 
+ * @see #whenSessionsLoaded_thenPartitionedByDayAndSortedByStart()
+ */
+
+
+    @Test
+
+
+    void whenSessionsLoaded_thenPartitionedByDayAndSortedByStart() {
+        var late = session(1, 1, MONDAY.atTime(21, 0));
+        var early = session(2, 2, MONDAY.atTime(10, 0));
+        var sameTime = session(3, 1, MONDAY.atTime(10, 0));
+        var nextDay = session(4, 1, TUESDAY.atTime(9, 0));
+
+        var snapshot = ScheduleSnapshot.of(List.of(late, nextDay, sameTime, early));
+
+        assertThat(snapshot.findByDay(MONDAY)).containsExactly(early, sameTime, late);
+        assertThat(snapshot.findByDay(TUESDAY)).containsExactly(nextDay);
+        assertThat(snapshot.findAll()).containsExactly(early, sameTime, late, nextDay);
+        assertThat(snapshot.findByFilmAndDay(1, MONDAY)).containsExactly(sameTime, late);
+        assertThat(snapshot.findByDay(MONDAY.minusDays(1))).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: day replaced_then other days shared
+ * 
+ * @see #whenDayReplaced_thenOtherDaysShared()
+ */
+
+
+    @Test
+
+
+    void whenDayReplaced_thenOtherDaysShared() {
+        var monday = session(1, 1, MONDAY.atTime(10, 0));
+        var tuesday = session(2, 1, TUESDAY.atTime(10, 0));
+        var snapshot = ScheduleSnapshot.of(List.of(monday, tuesday));
+        var rescheduled = session(3, 2, MONDAY.atTime(12, 0));
+
+        var updated = snapshot.withDay(MONDAY, List.of(rescheduled));
+
+        assertThat(updated.findByDay(MONDAY)).containsExactly(rescheduled);
+        assertThat(updated.findByDay(TUESDAY)).isSameAs(snapshot.findByDay(TUESDAY));
+        assertThat(updated.findById(1)).isEmpty();
+        assertThat(updated.findById(3)).containsSame(rescheduled);
+        assertThat(snapshot.findByDay(MONDAY)).containsExactly(monday);
+        assertThat(updated.withDay(TUESDAY, List.of()).findAll()).containsExactly(rescheduled);
+    }
+
+    /**
+ * Тестирует сценарий: window spans days_then only sessions inside returned
+ * 
+ * @see #whenWindowSpansDays_thenOnlySessionsInsideReturned()
+ */
+
+
+    @Test
+
+
+    void whenWindowSpansDays_thenOnlySessionsInsideReturned() {
+        var morning = session(1, 1, MONDAY.atTime(9, 0));
+        var evening = session(2, 1, MONDAY.atTime(20, 0));
+        var nextMorning = session(3, 1, TUESDAY.atTime(9, 0));
+        var nextEvening = session(4, 1, TUESDAY.atTime(20, 0));
+        var snapshot = ScheduleSnapshot.of(List.of(morning, evening, nextMorning, nextEvening));
+
+        assertThat(snapshot.findBetween(MONDAY.atTime(12, 0), TUESDAY.atTime(20, 0))).containsExactly(evening, nextMorning);
+        assertThat(snapshot.findUpcoming(MONDAY.atTime(20, 0), 2)).containsExactly(evening, nextMorning);
+        assertThat(snapshot.findPage(MONDAY.atTime(20, 0), 2, 10)).containsExactly(nextMorning, nextEvening);
+        assertThat(snapshot.findUpcoming(TUESDAY.atTime(21, 0), 10)).isEmpty();
+    }
+}
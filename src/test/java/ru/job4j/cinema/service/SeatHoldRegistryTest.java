@@ -0,0 +1,176 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.service.ticket.HashedTimingWheel;
+import ru.job4j.cinema.service.ticket.SeatHold;
+import ru.job4j.cinema.service.ticket.SeatHoldRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeatHoldRegistryTest {
+
+    private static final long TTL = 300_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private SeatHoldRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SeatHoldRegistry(TTL, 1000L, now::get);
+    }
+
+    /**
+ * Тестирует сценарий: hold_ when seat free_ should hold seat until ttl
+ *
+ * @see #hold_WhenSeatFree_ShouldHoldSeatUntilTtl()
+ */
+
+
+    @Test
+
+
+    void hold_WhenSeatFree_ShouldHoldSeatUntilTtl() {
+        Optional<SeatHold> hold = registry.hold(1, 2, 3, 100);
+
+        assertThat(hold).isPresent();
+        assertThat(hold.get().getExpiresAtMillis()).isEqualTo(now.get() + TTL);
+        assertThat(registry.find(1, 2, 3)).contains(hold.get());
+        assertThat(registry.findBySessionId(1)).containsExactly(hold.get());
+        assertThat(registry.find(2, 2, 3)).isEmpty();
+    }
+
+    /**
+ * Тестирует сценарий: hold_ when seat held by other user_ should fail
+ *
+ * @see #hold_WhenSeatHeldByOtherUser_ShouldFail()
+ */
+
+
+    @Test
+
+
+    void hold_WhenSeatHeldByOtherUser_ShouldFail() {
+        registry.hold(1, 2, 3, 100);
+
+        assertThat(registry.hold(1, 2, 3, 200)).isEmpty();
+        assertThat(registry.find(1, 2, 3).orElseThrow().getUserId()).isEqualTo(100);
+    }
+
+    /**
+ * Тестирует сценарий: hold_ when same user holds again_ should extend hold
+ *
+ * @see #hold_WhenSameUserHoldsAgain_ShouldExtendHold()
+ */
+
+
+    @Test
+
+
+    void hold_WhenSameUserHoldsAgain_ShouldExtendHold() {
+        registry.hold(1, 2, 3, 100);
+        now.addAndGet(60_000L);
+
+        SeatHold renewed = registry.hold(1, 2, 3, 100).orElseThrow();
+        now.addAndGet(TTL - 30_000L);
+        registry.expire(now.get());
+
+        assertThat(registry.find(1, 2, 3)).contains(renewed);
+    }
+
+    /**
+ * Тестирует сценарий: expire_ when ttl passed_ should remove hold and free seat
+ *
+ * @see #expire_WhenTtlPassed_ShouldRemoveHoldAndFreeSeat()
+ */
+
+
+    @Test
+
+
+    void expire_WhenTtlPassed_ShouldRemoveHoldAndFreeSeat() {
+        registry.hold(1, 2, 3, 100);
+
+        now.addAndGet(TTL - 1000L);
+        registry.expire(now.get());
+        assertThat(registry.find(1, 2, 3)).isPresent();
+
+        now.addAndGet(1000L);
+        registry.expire(now.get());
+        assertThat(registry.find(1, 2, 3)).isEmpty();
+        assertThat(registry.findBySessionId(1)).isEmpty();
+        assertThat(registry.hold(1, 2, 3, 200)).isPresent();
+    }
+
+    /**
+ * Тестирует сценарий: release_ should free seat
+ *
+ * @see #release_ShouldFreeSeat()
+ */
+
+
+    @Test
+
+
+    void release_ShouldFreeSeat() {
+        SeatHold hold = registry.hold(1, 2, 3, 100).orElseThrow();
+
+        assertThat(registry.release(hold)).isTrue();
+        assertThat(registry.find(1, 2, 3)).isEmpty();
+        assertThat(registry.release(hold)).isFalse();
+    }
+
+    /**
+ * Тестирует сценарий: advance_ when deadline beyond one wheel turn_ should expire on right round
+ *
+ * @see #advance_WhenDeadlineBeyondOneWheelTurn_ShouldExpireOnRightRound()
+ */
+
+
+    @Test
+
+
+    void advance_WhenDeadlineBeyondOneWheelTurn_ShouldExpireOnRightRound() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10L, 8, 0L);
+        List<String> expired = new ArrayList<>();
+        wheel.schedule("short", 25L);
+        wheel.schedule("long", 205L);
+
+        for (long time = 0; time < 200L; time += 10L) {
+            wheel.advance(time, expired::add);
+        }
+        assertThat(expired).containsExactly("short");
+
+        wheel.advance(210L, expired::add);
+        assertThat(expired).containsExactly("short", "long");
+    }
+
+    /**
+ * Тестирует сценарий: expire_ when last hold of session expires_ should drop session map
+ *
+ * @see #expire_WhenLastHoldOfSessionExpires_ShouldDropSessionMap()
+ */
+
+
+    @Test
+
+
+    void expire_WhenLastHoldOfSessionExpires_ShouldDropSessionMap() {
+        registry.hold(1, 2, 3, 100);
+        SeatHold second = registry.hold(1, 2, 4, 100).orElseThrow();
+        registry.hold(2, 1, 1, 100);
+
+        registry.release(second);
+        assertThat(registry.getSessionCount()).isEqualTo(2);
+
+        now.addAndGet(TTL + 1_000L);
+        registry.expire(now.get());
+
+        assertThat(registry.getSessionCount()).isZero();
+    }
+}
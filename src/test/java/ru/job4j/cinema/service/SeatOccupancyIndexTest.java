@@ -0,0 +1,287 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.job4j.cinema.model.FilmSession;
+import ru.job4j.cinema.model.Hall;
+import ru.job4j.cinema.model.Seat;
+import ru.job4j.cinema.repository.hall.HallRepository;
+import ru.job4j.cinema.repository.routing.RoutingContext;
+import ru.job4j.cinema.repository.session.FilmSessionRepository;
+import ru.job4j.cinema.repository.ticket.TicketRepository;
+import ru.job4j.cinema.service.ticket.SeatOccupancy;
+import ru.job4j.cinema.service.ticket.SeatOccupancyIndex;
+import ru.job4j.cinema.service.ticket.TicketJournal;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeatOccupancyIndexTest {
+
+    @Mock
+    private FilmSessionRepository filmSessionRepository;
+
+    @Mock
+    private HallRepository hallRepository;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private TicketJournal ticketJournal;
+
+    private SeatOccupancyIndex seatOccupancyIndex;
+
+    @BeforeEach
+    void setUp() {
+        seatOccupancyIndex = new SeatOccupancyIndex(filmSessionRepository, hallRepository, ticketRepository, ticketJournal);
+    }
+
+    /**
+ * Тестирует сценарий: find by session id_ when session exists_ should load occupancy from tickets
+ *
+ * @see #findBySessionId_WhenSessionExists_ShouldLoadOccupancyFromTickets()
+ */
+
+
+    @Test
+
+
+    void findBySessionId_WhenSessionExists_ShouldLoadOccupancyFromTickets() {
+        givenSession(1, new Hall(2, "Blue Hall", 8, 10, "VIP"));
+        when(ticketRepository.findSeatsBySessionId(1)).thenReturn(List.of(new Seat(1, 1), new Seat(8, 10)));
+
+        Optional<SeatOccupancy> result = seatOccupancyIndex.findBySessionId(1);
+
+        assertThat(result).isPresent();
+        SeatOccupancy occupancy = result.get();
+        assertThat(occupancy.getCapacity()).isEqualTo(80);
+        assertThat(occupancy.getOccupiedCount()).isEqualTo(2);
+        assertThat(occupancy.getFreeCount()).isEqualTo(78);
+        assertThat(occupancy.isOccupied(1, 1)).isTrue();
+        assertThat(occupancy.isOccupied(8, 10)).isTrue();
+        assertThat(occupancy.isOccupied(1, 2)).isFalse();
+    }
+
+    /**
+ * Тестирует сценарий: find by session id_ when called twice_ should load once
+ *
+ * @see #findBySessionId_WhenCalledTwice_ShouldLoadOnce()
+ */
+
+
+    @Test
+
+
+    void findBySessionId_WhenCalledTwice_ShouldLoadOnce() {
+        givenSession(1, new Hall(2, "Blue Hall", 8, 10, "VIP"));
+        when(ticketRepository.findSeatsBySessionId(1)).thenReturn(List.of());
+
+        SeatOccupancy first = seatOccupancyIndex.findBySessionId(1).orElseThrow();
+        SeatOccupancy second = seatOccupancyIndex.findBySessionId(1).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        verify(ticketRepository, times(1)).findSeatsBySessionId(1);
+    }
+
+    /**
+ * Тестирует сценарий: поведение с пустыми данными при find by session id_ when session not exists_ should return empty
+ *
+ * @see #findBySessionId_WhenSessionNotExists_ShouldReturnEmpty()
+ */
+
+
+    @Test
+
+
+    void findBySessionId_WhenSessionNotExists_ShouldReturnEmpty() {
+        when(filmSessionRepository.findById(99)).thenReturn(Optional.empty());
+
+        assertThat(seatOccupancyIndex.findBySessionId(99)).isEmpty();
+        verifyNoInteractions(ticketRepository);
+    }
+
+    /**
+ * Тестирует сценарий: occupy_ when seat already occupied_ should return false
+ *
+ * @see #occupy_WhenSeatAlreadyOccupied_ShouldReturnFalse()
+ */
+
+
+    @Test
+
+
+    void occupy_WhenSeatAlreadyOccupied_ShouldReturnFalse() {
+        SeatOccupancy occupancy = new SeatOccupancy(10, 100);
+
+        assertThat(occupancy.occupy(10, 100)).isTrue();
+        assertThat(occupancy.occupy(10, 100)).isFalse();
+        assertThat(occupancy.getOccupiedCount()).isEqualTo(1);
+        assertThat(occupancy.release(10, 100)).isTrue();
+        assertThat(occupancy.isOccupied(10, 100)).isFalse();
+        assertThat(occupancy.getOccupiedCount()).isZero();
+    }
+
+    /**
+ * Тестирует сценарий: occupy_ when seat out of hall_ should be ignored
+ *
+ * @see #occupy_WhenSeatOutOfHall_ShouldBeIgnored()
+ */
+
+
+    @Test
+
+
+    void occupy_WhenSeatOutOfHall_ShouldBeIgnored() {
+        SeatOccupancy occupancy = new SeatOccupancy(5, 5);
+
+        assertThat(occupancy.occupy(0, 1)).isFalse();
+        assertThat(occupancy.occupy(6, 1)).isFalse();
+        assertThat(occupancy.occupy(1, 6)).isFalse();
+        assertThat(occupancy.isOccupied(6, 1)).isFalse();
+        assertThat(occupancy.getOccupiedCount()).isZero();
+    }
+
+    /**
+ * Тестирует сценарий: invalidate_ should reload occupancy on next call
+ *
+ * @see #invalidate_ShouldReloadOccupancyOnNextCall()
+ */
+
+
+    @Test
+
+
+    void invalidate_ShouldReloadOccupancyOnNextCall() {
+        givenSession(1, new Hall(2, "Blue Hall", 8, 10, "VIP"));
+        when(ticketRepository.findSeatsBySessionId(1)).thenReturn(List.of());
+
+        seatOccupancyIndex.findBySessionId(1);
+        seatOccupancyIndex.invalidate(1);
+        seatOccupancyIndex.findBySessionId(1);
+
+        verify(ticketRepository, times(2)).findSeatsBySessionId(1);
+    }
+
+    /**
+ * Тестирует сценарий: find by session id_ when journal has pending seats_ should mark them occupied
+ *
+ * @see #findBySessionId_WhenJournalHasPendingSeats_ShouldMarkThemOccupied()
+ */
+
+
+    @Test
+
+
+    void findBySessionId_WhenJournalHasPendingSeats_ShouldMarkThemOccupied() {
+        givenSession(1, new Hall(2, "Blue Hall", 8, 10, "VIP"));
+        when(ticketJournal.findPendingSeats(1)).thenReturn(List.of(new Seat(3, 3), new Seat(1, 1)));
+        when(ticketRepository.findSeatsBySessionId(1)).thenReturn(List.of(new Seat(1, 1)));
+
+        SeatOccupancy occupancy = seatOccupancyIndex.findBySessionId(1).orElseThrow();
+
+        assertThat(occupancy.isOccupied(3, 3)).isTrue();
+        assertThat(occupancy.getOccupiedCount()).isEqualTo(2);
+    }
+
+    /**
+ * Тестирует сценарий: evict ended before_ should drop maps of finished sessions only
+ *
+ * @see #evictEndedBefore_ShouldDropMapsOfFinishedSessionsOnly()
+ */
+
+
+    @Test
+
+
+    void evictEndedBefore_ShouldDropMapsOfFinishedSessionsOnly() {
+        givenSession(1, new Hall(2, "Blue Hall", 8, 10, "VIP"));
+        when(ticketRepository.findSeatsBySessionId(1)).thenReturn(List.of());
+        seatOccupancyIndex.findBySessionId(1);
+
+        assertThat(seatOccupancyIndex.evictEndedBefore(LocalDateTime.now())).isZero();
+        assertThat(seatOccupancyIndex.evictEndedBefore(LocalDateTime.now().plusHours(3))).isEqualTo(1);
+        seatOccupancyIndex.findBySessionId(1);
+
+        verify(ticketRepository, times(2)).findSeatsBySessionId(1);
+    }
+
+    /**
+ * Тестирует сценарий: find by session id_ should load session from primary
+ *
+ * @see #findBySessionId_ShouldLoadSessionFromPrimary()
+ */
+
+
+    @Test
+
+
+    void findBySessionId_ShouldLoadSessionFromPrimary() {
+        Hall hall = new Hall(2, "Blue Hall", 8, 10, "VIP");
+        FilmSession filmSession = new FilmSession(1, 1, hall.getId(),
+                LocalDateTime.now(), LocalDateTime.now().plusHours(2), 300);
+        boolean[] pinned = new boolean[1];
+        when(filmSessionRepository.findById(1)).thenAnswer(invocation -> {
+            pinned[0] = RoutingContext.isPinnedToPrimary();
+            return Optional.of(filmSession);
+        });
+        when(hallRepository.findById(hall.getId())).thenReturn(Optional.of(hall));
+
+        assertThat(seatOccupancyIndex.findBySessionId(1)).isPresent();
+
+        assertThat(pinned[0]).isTrue();
+        assertThat(RoutingContext.isPinnedToPrimary()).isFalse();
+    }
+
+    /**
+ * Тестирует сценарий: find by session id_ when map replaced during journal purchase_ should see claimed seat
+ *
+ * @see #findBySessionId_WhenMapReplacedDuringJournalPurchase_ShouldSeeClaimedSeat()
+ */
+
+
+    @Test
+
+
+    void findBySessionId_WhenMapReplacedDuringJournalPurchase_ShouldSeeClaimedSeat() throws InterruptedException {
+        givenSession(1, new Hall(2, "Blue Hall", 8, 10, "VIP"));
+        when(ticketRepository.findSeatsBySessionId(1)).thenReturn(List.of());
+        List<Seat> journaled = new CopyOnWriteArrayList<>();
+        when(ticketJournal.findPendingSeats(1)).thenAnswer(invocation -> List.copyOf(journaled));
+        SeatOccupancy old = seatOccupancyIndex.findBySessionId(1).orElseThrow();
+        Thread[] loader = new Thread[1];
+        SeatOccupancy[] rebuilt = new SeatOccupancy[1];
+
+        seatOccupancyIndex.withSessionLock(1, () -> {
+            old.occupy(3, 3);
+            seatOccupancyIndex.invalidate(1);
+            loader[0] = new Thread(() -> rebuilt[0] = seatOccupancyIndex.findBySessionId(1).orElseThrow());
+            loader[0].start();
+            while (loader[0].getState() != Thread.State.BLOCKED && loader[0].isAlive()) {
+                Thread.onSpinWait();
+            }
+            journaled.add(new Seat(3, 3));
+            return null;
+        });
+        loader[0].join(5_000L);
+
+        assertThat(rebuilt[0]).isNotSameAs(old);
+        assertThat(rebuilt[0].isOccupied(3, 3)).isTrue();
+    }
+
+    private void givenSession(int sessionId, Hall hall) {
+        FilmSession filmSession = new FilmSession(sessionId, 1, hall.getId(),
+                LocalDateTime.now(), LocalDateTime.now().plusHours(2), 300);
+        when(filmSessionRepository.findById(sessionId)).thenReturn(Optional.of(filmSession));
+        when(hallRepository.findById(hall.getId())).thenReturn(Optional.of(hall));
+    }
+}
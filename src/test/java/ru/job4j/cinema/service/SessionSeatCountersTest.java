@@ -0,0 +1,200 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.job4j.cinema.dto.SeatAvailability;
+import ru.job4j.cinema.model.Seat;
+import ru.job4j.cinema.repository.CatalogueVersion;
+import ru.job4j.cinema.repository.session.FilmSessionRepository;
+import ru.job4j.cinema.service.session.SessionSeatCounters;
+import ru.job4j.cinema.service.ticket.TicketJournal;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionSeatCountersTest {
+
+    @Mock
+    private FilmSessionRepository filmSessionRepository;
+
+    @Mock
+    private TicketJournal ticketJournal;
+
+    private final CatalogueVersion catalogueVersion = new CatalogueVersion();
+
+    private SessionSeatCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        counters = new SessionSeatCounters(filmSessionRepository, ticketJournal, catalogueVersion);
+    }
+
+    /**
+ * Тестирует сценарий: load_ should seed counters with single query
+ *
+ * @see #load_ShouldSeedCountersWithSingleQuery()
+ */
+
+
+    @Test
+
+
+    void load_ShouldSeedCountersWithSingleQuery() {
+        when(filmSessionRepository.findSeatAvailabilityEndingAfter(any(LocalDateTime.class)))
+                .thenReturn(List.of(new SeatAvailability(1, 50, 48), new SeatAvailability(2, 12, 0)));
+        when(ticketJournal.countPendingSeats()).thenReturn(Map.of(1, 1));
+
+        counters.load();
+
+        assertThat(counters.findFreeCount(1)).isEqualTo(OptionalInt.of(1));
+        assertThat(counters.findFreeCount(2)).isEqualTo(OptionalInt.of(12));
+        verify(filmSessionRepository, never()).findSeatAvailabilityById(anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: increment_ should reduce free count without queries
+ *
+ * @see #increment_ShouldReduceFreeCountWithoutQueries()
+ */
+
+
+    @Test
+
+
+    void increment_ShouldReduceFreeCountWithoutQueries() {
+        when(filmSessionRepository.findSeatAvailabilityEndingAfter(any(LocalDateTime.class)))
+                .thenReturn(List.of(new SeatAvailability(1, 3, 0)));
+        counters.load();
+
+        counters.increment(1, 2);
+        counters.increment(1, 5);
+
+        assertThat(counters.findFreeCount(1)).isEqualTo(OptionalInt.of(0));
+        assertThat(catalogueVersion.currentSchedule()).isEqualTo(2);
+        verify(filmSessionRepository, times(1)).findSeatAvailabilityEndingAfter(any(LocalDateTime.class));
+        verify(filmSessionRepository, never()).findSeatAvailabilityById(anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: find free count_ when session added after start_ should load it once
+ *
+ * @see #findFreeCount_WhenSessionAddedAfterStart_ShouldLoadItOnce()
+ */
+
+
+    @Test
+
+
+    void findFreeCount_WhenSessionAddedAfterStart_ShouldLoadItOnce() {
+        when(filmSessionRepository.findSeatAvailabilityById(7)).thenReturn(Optional.of(new SeatAvailability(7, 10, 4)));
+        when(filmSessionRepository.findSeatAvailabilityById(8)).thenReturn(Optional.empty());
+
+        counters.increment(7, 1);
+
+        assertThat(counters.findFreeCount(7)).isEqualTo(OptionalInt.of(6));
+        counters.increment(7, 1);
+        assertThat(counters.findFreeCount(7)).isEqualTo(OptionalInt.of(5));
+        assertThat(counters.findFreeCount(8)).isEmpty();
+        verify(filmSessionRepository, times(1)).findSeatAvailabilityById(7);
+    }
+
+    /**
+ * Тестирует сценарий: increment_ when purchase completes during first load_ should not be lost
+ *
+ * @see #increment_WhenPurchaseCompletesDuringFirstLoad_ShouldNotBeLost()
+ */
+
+
+    @Test
+
+
+    void increment_WhenPurchaseCompletesDuringFirstLoad_ShouldNotBeLost() throws InterruptedException {
+        Thread[] purchase = new Thread[1];
+        when(filmSessionRepository.findSeatAvailabilityById(7)).thenAnswer(invocation -> {
+            purchase[0] = new Thread(() -> counters.increment(7, 1));
+            purchase[0].start();
+            while (purchase[0].getState() != Thread.State.BLOCKED && purchase[0].isAlive()) {
+                Thread.onSpinWait();
+            }
+            return Optional.of(new SeatAvailability(7, 10, 4));
+        });
+
+        counters.findFreeCount(7);
+        purchase[0].join(5_000L);
+
+        assertThat(counters.findFreeCount(7)).isEqualTo(OptionalInt.of(5));
+    }
+
+    /**
+ * Тестирует сценарий: find free count_ should read journal before tickets
+ *
+ * @see #findFreeCount_ShouldReadJournalBeforeTickets()
+ */
+
+
+    @Test
+
+
+    void findFreeCount_ShouldReadJournalBeforeTickets() {
+        when(ticketJournal.findPendingSeats(7)).thenReturn(List.of(new Seat(1, 1)));
+        when(filmSessionRepository.findSeatAvailabilityById(7)).thenReturn(Optional.of(new SeatAvailability(7, 10, 4)));
+
+        assertThat(counters.findFreeCount(7)).isEqualTo(OptionalInt.of(5));
+
+        var inOrder = inOrder(ticketJournal, filmSessionRepository);
+        inOrder.verify(ticketJournal).findPendingSeats(7);
+        inOrder.verify(filmSessionRepository).findSeatAvailabilityById(7);
+    }
+
+    /**
+ * Тестирует сценарий: recount_ should replace overcounted value with database count
+ *
+ * @see #recount_ShouldReplaceOvercountedValueWithDatabaseCount()
+ */
+
+
+    @Test
+
+
+    void recount_ShouldReplaceOvercountedValueWithDatabaseCount() {
+        when(filmSessionRepository.findSeatAvailabilityById(7)).thenReturn(Optional.of(new SeatAvailability(7, 10, 9)));
+        counters.findFreeCount(7);
+        counters.increment(7, 1);
+        assertThat(counters.findFreeCount(7)).isEqualTo(OptionalInt.of(0));
+
+        assertThat(counters.recount(7)).isEqualTo(OptionalInt.of(1));
+        assertThat(counters.findFreeCount(7)).isEqualTo(OptionalInt.of(1));
+    }
+
+    /**
+ * Тестирует сценарий: evict ended before_ should drop counters of finished sessions only
+ *
+ * @see #evictEndedBefore_ShouldDropCountersOfFinishedSessionsOnly()
+ */
+
+
+    @Test
+
+
+    void evictEndedBefore_ShouldDropCountersOfFinishedSessionsOnly() {
+        LocalDateTime now = LocalDateTime.now();
+        when(filmSessionRepository.findSeatAvailabilityEndingAfter(any(LocalDateTime.class))).thenReturn(List.of(
+                new SeatAvailability(1, 10, 0, now.minusMinutes(1)), new SeatAvailability(2, 10, 0, now.plusHours(1))));
+        counters.load();
+
+        assertThat(counters.evictEndedBefore(now)).isEqualTo(1);
+        assertThat(counters.findFreeCount(2)).isEqualTo(OptionalInt.of(10));
+        verify(filmSessionRepository, never()).findSeatAvailabilityById(2);
+    }
+}
@@ -0,0 +1,179 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.dto.AdmissionStatus;
+import ru.job4j.cinema.service.admission.SimpleAdmissionService;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimpleAdmissionServiceTest {
+
+    private static final long PASS = 60_000L;
+    private static final long ABANDON = 10_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private SimpleAdmissionService admissionService;
+
+    @BeforeEach
+    void setUp() {
+        admissionService = new SimpleAdmissionService(2, 1D, PASS, ABANDON, now::get);
+        admissionService.enable(1);
+    }
+
+    /**
+ * Тестирует сценарий: admit_ when queue disabled_ should admit everyone
+ *
+ * @see #admit_WhenQueueDisabled_ShouldAdmitEveryone()
+ */
+
+
+    @Test
+
+
+    void admit_WhenQueueDisabled_ShouldAdmitEveryone() {
+        for (int userId = 1; userId <= 10; userId++) {
+            assertThat(admissionService.admit(2, userId).isAdmitted()).isTrue();
+        }
+        assertThat(admissionService.isEnabled(2)).isFalse();
+    }
+
+    /**
+ * Тестирует сценарий: admit_ when rate exhausted_ should queue users in arrival order
+ *
+ * @see #admit_WhenRateExhausted_ShouldQueueUsersInArrivalOrder()
+ */
+
+
+    @Test
+
+
+    void admit_WhenRateExhausted_ShouldQueueUsersInArrivalOrder() {
+        assertThat(admissionService.admit(1, 100).isAdmitted()).isTrue();
+
+        AdmissionStatus second = admissionService.admit(1, 200);
+        AdmissionStatus third = admissionService.admit(1, 300);
+
+        assertThat(second.isAdmitted()).isFalse();
+        assertThat(second.getPosition()).isEqualTo(1);
+        assertThat(third.getPosition()).isEqualTo(2);
+        assertThat(admissionService.admit(1, 100).isAdmitted()).isTrue();
+
+        now.addAndGet(1000L);
+
+        assertThat(admissionService.admit(1, 300).getPosition()).isEqualTo(1);
+        assertThat(admissionService.admit(1, 200).isAdmitted()).isTrue();
+    }
+
+    /**
+ * Тестирует сценарий: admit_ when concurrency limit reached_ should wait for pass to expire
+ *
+ * @see #admit_WhenConcurrencyLimitReached_ShouldWaitForPassToExpire()
+ */
+
+
+    @Test
+
+
+    void admit_WhenConcurrencyLimitReached_ShouldWaitForPassToExpire() {
+        admissionService.admit(1, 100);
+        now.addAndGet(1000L);
+        admissionService.admit(1, 200);
+        now.addAndGet(5000L);
+
+        assertThat(admissionService.admit(1, 300).isAdmitted()).isFalse();
+
+        now.set(1_000_000L + PASS);
+
+        assertThat(admissionService.admit(1, 300).isAdmitted()).isTrue();
+        assertThat(admissionService.admit(1, 100).isAdmitted()).isFalse();
+    }
+
+    /**
+ * Тестирует сценарий: admit_ when waiter abandoned queue_ should skip waiter
+ *
+ * @see #admit_WhenWaiterAbandonedQueue_ShouldSkipWaiter()
+ */
+
+
+    @Test
+
+
+    void admit_WhenWaiterAbandonedQueue_ShouldSkipWaiter() {
+        admissionService = new SimpleAdmissionService(2, 0.05D, PASS, ABANDON, now::get);
+        admissionService.enable(1);
+        admissionService.admit(1, 100);
+        admissionService.admit(1, 200);
+        now.addAndGet(ABANDON / 2);
+        admissionService.admit(1, 300);
+        now.set(1_000_000L + 20_000L);
+
+        assertThat(admissionService.admit(1, 300).isAdmitted()).isTrue();
+        assertThat(admissionService.admit(1, 200).isAdmitted()).isFalse();
+    }
+
+    /**
+ * Тестирует сценарий: disable_ should admit waiting users
+ *
+ * @see #disable_ShouldAdmitWaitingUsers()
+ */
+
+
+    @Test
+
+
+    void disable_ShouldAdmitWaitingUsers() {
+        admissionService.admit(1, 100);
+        assertThat(admissionService.admit(1, 200).isAdmitted()).isFalse();
+
+        admissionService.disable(1);
+
+        assertThat(admissionService.isEnabled(1)).isFalse();
+        assertThat(admissionService.admit(1, 200).isAdmitted()).isTrue();
+    }
+
+    /**
+ * Тестирует сценарий: release_ should free pass for next waiter before it expires
+ *
+ * @see #release_ShouldFreePassForNextWaiterBeforeItExpires()
+ */
+
+
+    @Test
+
+
+    void release_ShouldFreePassForNextWaiterBeforeItExpires() {
+        admissionService.admit(1, 100);
+        now.addAndGet(1000L);
+        admissionService.admit(1, 200);
+        now.addAndGet(1000L);
+        assertThat(admissionService.admit(1, 300).isAdmitted()).isFalse();
+
+        admissionService.release(1, 100);
+
+        assertThat(admissionService.admit(1, 300).isAdmitted()).isTrue();
+    }
+
+    /**
+ * Тестирует сценарий: release_ when user leaves queue_ should move others forward
+ *
+ * @see #release_WhenUserLeavesQueue_ShouldMoveOthersForward()
+ */
+
+
+    @Test
+
+
+    void release_WhenUserLeavesQueue_ShouldMoveOthersForward() {
+        admissionService.admit(1, 100);
+        admissionService.admit(1, 200);
+        admissionService.admit(1, 300);
+        assertThat(admissionService.admit(1, 400).getPosition()).isEqualTo(3);
+
+        admissionService.release(1, 200);
+
+        assertThat(admissionService.admit(1, 400).getPosition()).isEqualTo(2);
+    }
+}
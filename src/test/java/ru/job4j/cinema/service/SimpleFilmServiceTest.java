@@ -5,11 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.job4j.cinema.dto.KeysetPage;
 import ru.job4j.cinema.model.Film;
 import ru.job4j.cinema.model.Genre;
 import ru.job4j.cinema.repository.film.FilmRepository;
-import ru.job4j.cinema.repository.genre.GenreRepository;
-import ru.job4j.cinema.service.file.FileService;
 import ru.job4j.cinema.service.film.SimpleFilmService;
 
 import java.util.Collection;
@@ -26,17 +25,11 @@ class SimpleFilmServiceTest {
     @Mock
     private FilmRepository filmRepository;
 
-    @Mock
-    private FileService fileService;
-
-    @Mock
-    private GenreRepository genreRepository;
-
     private SimpleFilmService filmService;
 
     @BeforeEach
     void setUp() {
-        filmService = new SimpleFilmService(filmRepository, fileService, genreRepository);
+        filmService = new SimpleFilmService(filmRepository);
     }
 
     /**
@@ -50,18 +43,17 @@ class SimpleFilmServiceTest {
 
 
     void findById_WhenFilmAndGenreExist_ShouldReturnFilmWithGenre() {
-        Film film = new Film(1, "Film", "Desc", 2020, 2, 16, 120, 1);
         Genre genre = new Genre(2, "Drama");
+        Film film = new Film(1, "Film", "Desc", 2020, 2, 16, 120, 1, genre);
 
-        when(filmRepository.findById(1)).thenReturn(Optional.of(film));
-        when(genreRepository.findById(2)).thenReturn(Optional.of(genre));
+        when(filmRepository.findByIdWithGenre(1)).thenReturn(Optional.of(film));
 
         Optional<Film> result = filmService.findById(1);
 
         assertThat(result).isPresent();
         assertThat(result.get().getGenre()).isEqualTo(genre);
-        verify(filmRepository, times(1)).findById(1);
-        verify(genreRepository, times(1)).findById(2);
+        verify(filmRepository, times(1)).findByIdWithGenre(1);
+        verify(filmRepository, never()).findById(anyInt());
     }
 
     /**
@@ -77,15 +69,13 @@ class SimpleFilmServiceTest {
     void findById_WhenFilmExistsButGenreNotExists_ShouldReturnFilmWithoutGenre() {
         Film film = new Film(1, "Film", "Desc", 2020, 2, 16, 120, 1);
 
-        when(filmRepository.findById(1)).thenReturn(Optional.of(film));
-        when(genreRepository.findById(2)).thenReturn(Optional.empty());
+        when(filmRepository.findByIdWithGenre(1)).thenReturn(Optional.of(film));
 
         Optional<Film> result = filmService.findById(1);
 
         assertThat(result).isPresent();
         assertThat(result.get().getGenre()).isNull();
-        verify(filmRepository, times(1)).findById(1);
-        verify(genreRepository, times(1)).findById(2);
+        verify(filmRepository, times(1)).findByIdWithGenre(1);
     }
 
     /**
@@ -99,42 +89,38 @@ class SimpleFilmServiceTest {
 
 
     void findById_WhenFilmNotExists_ShouldReturnEmpty() {
-        when(filmRepository.findById(999)).thenReturn(Optional.empty());
+        when(filmRepository.findByIdWithGenre(999)).thenReturn(Optional.empty());
 
         Optional<Film> result = filmService.findById(999);
 
         assertThat(result).isEmpty();
-        verify(filmRepository, times(1)).findById(999);
-        verify(genreRepository, never()).findById(anyInt());
+        verify(filmRepository, times(1)).findByIdWithGenre(999);
     }
 
     /**
- * Тестирует сценарий: find all_ should load genres for all films
+ * Тестирует сценарий: find all_ should load genres in single repository call
  * 
- * @see #findAll_ShouldLoadGenresForAllFilms()
+ * @see #findAll_ShouldLoadGenresInSingleRepositoryCall()
  */
 
 
     @Test
 
 
-    void findAll_ShouldLoadGenresForAllFilms() {
-        Film film1 = new Film(1, "Film A", "Desc A", 2020, 1, 12, 100, 1);
-        Film film2 = new Film(2, "Film B", "Desc B", 2021, 2, 16, 120, 2);
+    void findAll_ShouldLoadGenresInSingleRepositoryCall() {
         Genre genre1 = new Genre(1, "Comedy");
         Genre genre2 = new Genre(2, "Drama");
+        Film film1 = new Film(1, "Film A", "Desc A", 2020, 1, 12, 100, 1, genre1);
+        Film film2 = new Film(2, "Film B", "Desc B", 2021, 2, 16, 120, 2, genre2);
 
-        when(filmRepository.findAll()).thenReturn(List.of(film1, film2));
-        when(genreRepository.findById(1)).thenReturn(Optional.of(genre1));
-        when(genreRepository.findById(2)).thenReturn(Optional.of(genre2));
+        when(filmRepository.findAllWithGenre()).thenReturn(List.of(film1, film2));
 
         Collection<Film> films = filmService.findAll();
 
         assertThat(films).hasSize(2);
         assertThat(films).extracting(Film::getGenre).containsExactly(genre1, genre2);
-        verify(filmRepository, times(1)).findAll();
-        verify(genreRepository, times(1)).findById(1);
-        verify(genreRepository, times(1)).findById(2);
+        verify(filmRepository, times(1)).findAllWithGenre();
+        verify(filmRepository, never()).findAll();
     }
 
     /**
@@ -148,13 +134,11 @@ class SimpleFilmServiceTest {
 
 
     void findAll_WhenSomeGenresNotExist_ShouldSetAvailableGenres() {
-        Film film1 = new Film(1, "Film A", "Desc A", 2020, 1, 12, 100, 1);
-        Film film2 = new Film(2, "Film B", "Desc B", 2021, 2, 16, 120, 2);
         Genre genre1 = new Genre(1, "Comedy");
+        Film film1 = new Film(1, "Film A", "Desc A", 2020, 1, 12, 100, 1, genre1);
+        Film film2 = new Film(2, "Film B", "Desc B", 2021, 2, 16, 120, 2);
 
-        when(filmRepository.findAll()).thenReturn(List.of(film1, film2));
-        when(genreRepository.findById(1)).thenReturn(Optional.of(genre1));
-        when(genreRepository.findById(2)).thenReturn(Optional.empty());
+        when(filmRepository.findAllWithGenre()).thenReturn(List.of(film1, film2));
 
         Collection<Film> films = filmService.findAll();
 
@@ -174,13 +158,12 @@ class SimpleFilmServiceTest {
 
 
     void findAll_WhenNoFilms_ShouldReturnEmptyCollection() {
-        when(filmRepository.findAll()).thenReturn(List.of());
+        when(filmRepository.findAllWithGenre()).thenReturn(List.of());
 
         Collection<Film> films = filmService.findAll();
 
         assertThat(films).isEmpty();
-        verify(filmRepository, times(1)).findAll();
-        verify(genreRepository, never()).findById(anyInt());
+        verify(filmRepository, times(1)).findAllWithGenre();
     }
 
     /**
@@ -197,31 +180,56 @@ class SimpleFilmServiceTest {
         assertThat(filmService.findById(0)).isEmpty();
         assertThat(filmService.findById(-1)).isEmpty();
 
-        verify(filmRepository, times(1)).findById(0);
-        verify(filmRepository, times(1)).findById(-1);
-        verify(genreRepository, never()).findById(anyInt());
+        verify(filmRepository, times(1)).findByIdWithGenre(0);
+        verify(filmRepository, times(1)).findByIdWithGenre(-1);
     }
 
     /**
- * Тестирует сценарий: find by id_ should not use file service
+ * Тестирует сценарий: find by id_ should query repository only once
  * 
- * @see #findById_ShouldNotUseFileService()
+ * @see #findById_ShouldQueryRepositoryOnlyOnce()
  */
 
 
     @Test
 
 
-    void findById_ShouldNotUseFileService() {
-        Film film = new Film(1, "Film", "Desc", 2020, 1, 16, 120, 1);
-        Genre genre = new Genre(1, "Action");
+    void findById_ShouldQueryRepositoryOnlyOnce() {
+        Film film = new Film(1, "Film", "Desc", 2020, 1, 16, 120, 1, new Genre(1, "Action"));
 
-        when(filmRepository.findById(1)).thenReturn(Optional.of(film));
-        when(genreRepository.findById(1)).thenReturn(Optional.of(genre));
+        when(filmRepository.findByIdWithGenre(1)).thenReturn(Optional.of(film));
 
         filmService.findById(1);
 
-        verify(fileService, never()).save(any());
-        verify(fileService, never()).getFileById(anyInt());
+        verify(filmRepository).findByIdWithGenre(1);
+        verifyNoMoreInteractions(filmRepository);
+    }
+
+    /**
+ * Тестирует сценарий: find page_ should fetch one extra film to detect next page
+ * 
+ * @see #findPage_ShouldFetchOneExtraFilmToDetectNextPage()
+ */
+
+
+    @Test
+
+
+    void findPage_ShouldFetchOneExtraFilmToDetectNextPage() {
+        Film film1 = new Film(11, "Film A", "Desc A", 2020, 1, 12, 100, 1);
+        Film film2 = new Film(12, "Film B", "Desc B", 2021, 2, 16, 120, 2);
+        Film film3 = new Film(13, "Film C", "Desc C", 2022, 2, 16, 90, 3);
+
+        when(filmRepository.findPageWithGenre(10, 3)).thenReturn(List.of(film1, film2, film3));
+        when(filmRepository.findPageWithGenre(12, 3)).thenReturn(List.of(film3));
+
+        KeysetPage<Film> page = filmService.findPage(10, 2);
+        KeysetPage<Film> lastPage = filmService.findPage(12, 2);
+
+        assertThat(page.getItems()).containsExactly(film1, film2);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.getLast()).isEqualTo(film2);
+        assertThat(lastPage.getItems()).containsExactly(film3);
+        assertThat(lastPage.hasNext()).isFalse();
     }
-}
\ No newline at end of file
+}
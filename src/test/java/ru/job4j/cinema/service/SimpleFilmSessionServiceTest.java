@@ -5,20 +5,29 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.job4j.cinema.dto.KeysetPage;
 import ru.job4j.cinema.model.Film;
 import ru.job4j.cinema.model.FilmSession;
-import ru.job4j.cinema.repository.film.FilmRepository;
+import ru.job4j.cinema.repository.CatalogueVersion;
 import ru.job4j.cinema.repository.session.FilmSessionRepository;
+import ru.job4j.cinema.service.session.ScheduleCache;
+import ru.job4j.cinema.service.session.SessionSeatCounters;
 import ru.job4j.cinema.service.session.SimpleFilmSessionService;
+import ru.job4j.cinema.service.ticket.SeatOccupancyIndex;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,7 +37,7 @@ class SimpleFilmSessionServiceTest {
     private FilmSessionRepository filmSessionRepository;
 
     @Mock
-    private FilmRepository filmRepository;
+    private SessionSeatCounters sessionSeatCounters;
 
     private SimpleFilmSessionService filmSessionService;
 
@@ -39,15 +48,28 @@ class SimpleFilmSessionServiceTest {
 
     @BeforeEach
     void setUp() {
-        filmSessionService = new SimpleFilmSessionService(filmSessionRepository, filmRepository);
-
-        startTime = LocalDateTime.of(2024, 1, 1, 18, 0);
-        endTime = LocalDateTime.of(2024, 1, 1, 20, 0);
+        startTime = LocalDate.now().minusDays(1).atTime(18, 0);
+        endTime = startTime.plusHours(2);
 
         testFilm = new Film(1, "Test Film", "Test Description", 2024, 1, 18, 120, 1);
         testFilmSession = new FilmSession(1, 1, 1, startTime, endTime, 500);
     }
 
+    private void withSchedule(FilmSession... sessions) {
+        withSchedule(new CatalogueVersion(), sessions);
+    }
+
+    private ScheduleCache withSchedule(CatalogueVersion catalogueVersion, FilmSession... sessions) {
+        when(filmSessionRepository.findBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(sessions));
+        when(filmSessionRepository.findUpcoming(any(LocalDateTime.class), eq(1))).thenReturn(List.of());
+        var scheduleCache = new ScheduleCache(filmSessionRepository, catalogueVersion,
+                mock(SeatOccupancyIndex.class), sessionSeatCounters, 0, 1, 30);
+        scheduleCache.start();
+        filmSessionService = new SimpleFilmSessionService(filmSessionRepository, scheduleCache, sessionSeatCounters);
+        return scheduleCache;
+    }
+
     /**
  * Тестирует сценарий: корректность возвращаемых данных при find by id_ when session and film exist_ should return session with film
  * 
@@ -59,16 +81,16 @@ class SimpleFilmSessionServiceTest {
 
 
     void findById_WhenSessionAndFilmExist_ShouldReturnSessionWithFilm() {
-        when(filmSessionRepository.findById(1)).thenReturn(Optional.of(testFilmSession));
-        when(filmRepository.findById(1)).thenReturn(Optional.of(testFilm));
+        testFilmSession = testFilmSession.withFilm(testFilm);
+        withSchedule(testFilmSession);
 
         Optional<FilmSession> result = filmSessionService.findById(1);
 
         assertTrue(result.isPresent());
         assertEquals(testFilmSession.getId(), result.get().getId());
         assertEquals(testFilm, result.get().getFilm());
-        verify(filmSessionRepository, times(1)).findById(1);
-        verify(filmRepository, times(1)).findById(1);
+        verify(filmSessionRepository, never()).findByIdWithFilm(anyInt());
+        verify(filmSessionRepository, never()).findById(anyInt());
     }
 
     /**
@@ -82,16 +104,14 @@ class SimpleFilmSessionServiceTest {
 
 
     void findById_WhenSessionExistsButFilmNotExists_ShouldReturnSessionWithoutFilm() {
-        when(filmSessionRepository.findById(1)).thenReturn(Optional.of(testFilmSession));
-        when(filmRepository.findById(1)).thenReturn(Optional.empty());
+        withSchedule(testFilmSession);
 
         Optional<FilmSession> result = filmSessionService.findById(1);
 
         assertTrue(result.isPresent());
         assertEquals(testFilmSession.getId(), result.get().getId());
         assertNull(result.get().getFilm());
-        verify(filmSessionRepository, times(1)).findById(1);
-        verify(filmRepository, times(1)).findById(1);
+        verify(filmSessionRepository, never()).findByIdWithFilm(anyInt());
     }
 
     /**
@@ -105,13 +125,13 @@ class SimpleFilmSessionServiceTest {
 
 
     void findById_WhenSessionNotExists_ShouldReturnEmpty() {
-        when(filmSessionRepository.findById(1)).thenReturn(Optional.empty());
+        withSchedule();
+        when(filmSessionRepository.findByIdWithFilm(1)).thenReturn(Optional.empty());
 
         Optional<FilmSession> result = filmSessionService.findById(1);
 
         assertTrue(result.isEmpty());
-        verify(filmSessionRepository, times(1)).findById(1);
-        verify(filmRepository, never()).findById(anyInt());
+        verify(filmSessionRepository, times(1)).findByIdWithFilm(1);
     }
 
     /**
@@ -125,20 +145,17 @@ class SimpleFilmSessionServiceTest {
 
 
     void findAll_ShouldReturnAllSessionsWithFilms() {
-        FilmSession session1 = new FilmSession(1, 1, 1, startTime, endTime, 500);
-        FilmSession session2 = new FilmSession(2, 1, 2, startTime.plusHours(3), endTime.plusHours(3), 600);
-        List<FilmSession> sessions = List.of(session1, session2);
-
-        when(filmSessionRepository.findAll()).thenReturn(sessions);
-        when(filmRepository.findById(1)).thenReturn(Optional.of(testFilm));
+        FilmSession session1 = new FilmSession(1, 1, 1, startTime, endTime, 500, testFilm);
+        FilmSession session2 = new FilmSession(2, 1, 2, startTime.plusHours(3), endTime.plusHours(3), 600, testFilm);
+        withSchedule(session2, session1);
 
         Collection<FilmSession> result = filmSessionService.findAll();
 
         assertThat(result).hasSize(2);
         assertThat(result).allMatch(session -> session.getFilm() != null);
         assertThat(result).extracting(FilmSession::getId).containsExactly(1, 2);
-        verify(filmSessionRepository, times(1)).findAll();
-        verify(filmRepository, times(2)).findById(1);
+        verify(filmSessionRepository, never()).findAllWithFilm();
+        verify(filmSessionRepository, never()).findAll();
     }
 
     /**
@@ -152,22 +169,16 @@ class SimpleFilmSessionServiceTest {
 
 
     void findAll_WhenSomeFilmsNotExist_ShouldReturnSessionsWithAvailableFilms() {
-        FilmSession session1 = new FilmSession(1, 1, 1, startTime, endTime, 500);
+        FilmSession session1 = new FilmSession(1, 1, 1, startTime, endTime, 500, testFilm);
         FilmSession session2 = new FilmSession(2, 2, 2, startTime.plusHours(3), endTime.plusHours(3), 600);
-        List<FilmSession> sessions = List.of(session1, session2);
-
-        when(filmSessionRepository.findAll()).thenReturn(sessions);
-        when(filmRepository.findById(1)).thenReturn(Optional.of(testFilm));
-        when(filmRepository.findById(2)).thenReturn(Optional.empty());
+        withSchedule(session2, session1);
 
         Collection<FilmSession> result = filmSessionService.findAll();
 
         assertThat(result).hasSize(2);
         assertThat(result.stream().filter(s -> s.getId() == 1).findFirst().get().getFilm()).isNotNull();
         assertThat(result.stream().filter(s -> s.getId() == 2).findFirst().get().getFilm()).isNull();
-        verify(filmSessionRepository, times(1)).findAll();
-        verify(filmRepository, times(1)).findById(1);
-        verify(filmRepository, times(1)).findById(2);
+        verify(filmSessionRepository, never()).findAllWithFilm();
     }
 
     /**
@@ -181,13 +192,12 @@ class SimpleFilmSessionServiceTest {
 
 
     void findAll_WhenNoSessions_ShouldReturnEmptyCollection() {
-        when(filmSessionRepository.findAll()).thenReturn(List.of());
+        withSchedule();
 
         Collection<FilmSession> result = filmSessionService.findAll();
 
         assertThat(result).isEmpty();
-        verify(filmSessionRepository, times(1)).findAll();
-        verify(filmRepository, never()).findById(anyInt());
+        verify(filmSessionRepository, never()).findAllWithFilm();
     }
 
     /**
@@ -201,12 +211,13 @@ class SimpleFilmSessionServiceTest {
 
 
     void findById_WithInvalidIds_ShouldReturnEmpty() {
+        withSchedule(testFilmSession);
+
         assertThat(filmSessionService.findById(0)).isEmpty();
         assertThat(filmSessionService.findById(-1)).isEmpty();
 
-        verify(filmSessionRepository, times(1)).findById(0);
-        verify(filmSessionRepository, times(1)).findById(-1);
-        verify(filmRepository, never()).findById(anyInt());
+        verify(filmSessionRepository, times(1)).findByIdWithFilm(0);
+        verify(filmSessionRepository, times(1)).findByIdWithFilm(-1);
     }
 
     /**
@@ -220,8 +231,7 @@ class SimpleFilmSessionServiceTest {
 
 
     void findById_WhenSessionFound_ShouldPreserveTimeData() {
-        when(filmSessionRepository.findById(1)).thenReturn(Optional.of(testFilmSession));
-        when(filmRepository.findById(1)).thenReturn(Optional.of(testFilm));
+        withSchedule(testFilmSession);
 
         Optional<FilmSession> result = filmSessionService.findById(1);
 
@@ -230,4 +240,250 @@ class SimpleFilmSessionServiceTest {
         assertThat(result.get().getEndTime()).isEqualTo(endTime);
         assertThat(result.get().getPrice()).isEqualTo(500);
     }
+
+    /**
+ * Тестирует сценарий: find free seat counts_ should take counts from counters
+ * 
+ * @see #findFreeSeatCounts_ShouldTakeCountsFromCounters()
+ */
+
+
+    @Test
+
+
+    void findFreeSeatCounts_ShouldTakeCountsFromCounters() {
+        FilmSession soldOut = new FilmSession(2, 1, 1, startTime, endTime, 500);
+        FilmSession unknown = new FilmSession(3, 1, 1, startTime, endTime, 500);
+        withSchedule();
+        when(sessionSeatCounters.findFreeCount(1)).thenReturn(OptionalInt.of(12));
+        when(sessionSeatCounters.findFreeCount(2)).thenReturn(OptionalInt.of(0));
+        when(sessionSeatCounters.findFreeCount(3)).thenReturn(OptionalInt.empty());
+        when(sessionSeatCounters.recount(2)).thenReturn(OptionalInt.of(0));
+
+        Map<Integer, Integer> result = filmSessionService.findFreeSeatCounts(List.of(testFilmSession, soldOut, unknown));
+
+        assertEquals(Map.of(1, 12, 2, 0), result);
+        assertTrue(filmSessionService.isSoldOut(2));
+        assertFalse(filmSessionService.isSoldOut(1));
+        assertFalse(filmSessionService.isSoldOut(3));
+        verify(filmSessionRepository).findBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(filmSessionRepository).findUpcoming(any(LocalDateTime.class), eq(1));
+        verifyNoMoreInteractions(filmSessionRepository);
+    }
+
+    /**
+ * Тестирует сценарий: is sold out_ when counter overcounts_ should recheck database
+ * 
+ * @see #isSoldOut_WhenCounterOvercounts_ShouldRecheckDatabase()
+ */
+
+
+    @Test
+
+
+    void isSoldOut_WhenCounterOvercounts_ShouldRecheckDatabase() {
+        withSchedule();
+        when(sessionSeatCounters.findFreeCount(1)).thenReturn(OptionalInt.of(0));
+        when(sessionSeatCounters.recount(1)).thenReturn(OptionalInt.of(1));
+
+        assertFalse(filmSessionService.isSoldOut(1));
+        verify(sessionSeatCounters).recount(1);
+    }
+
+    /**
+ * Тестирует сценарий: find page_ without cursor_ should start from now
+ * 
+ * @see #findPage_WithoutCursor_ShouldStartFromNow()
+ */
+
+
+    @Test
+
+
+    void findPage_WithoutCursor_ShouldStartFromNow() {
+        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1);
+        FilmSession upcoming = new FilmSession(2, 1, 1, tomorrow, tomorrow.plusHours(2), 500);
+        withSchedule(testFilmSession, upcoming);
+
+        KeysetPage<FilmSession> page = filmSessionService.findPage(null, 0, 2);
+
+        assertThat(page.getItems()).containsExactly(upcoming);
+        assertFalse(page.hasNext());
+    }
+
+    /**
+ * Тестирует сценарий: find page_ with cursor_ should continue after it
+ * 
+ * @see #findPage_WithCursor_ShouldContinueAfterIt()
+ */
+
+
+    @Test
+
+
+    void findPage_WithCursor_ShouldContinueAfterIt() {
+        FilmSession sameStart = new FilmSession(0, 1, 2, startTime, endTime, 500);
+        FilmSession next = new FilmSession(2, 1, 1, startTime.plusHours(3), endTime.plusHours(3), 500);
+        FilmSession nextDay = new FilmSession(3, 1, 1, startTime.plusDays(1), endTime.plusDays(1), 500);
+        withSchedule(nextDay, next, testFilmSession, sameStart);
+
+        KeysetPage<FilmSession> page = filmSessionService.findPage(startTime, 1, 1);
+
+        assertThat(page.getItems()).containsExactly(next);
+        assertTrue(page.hasNext());
+    }
+
+    /**
+ * Тестирует сценарий: browse schedule_ should not touch database after load
+ * 
+ * @see #browseSchedule_ShouldNotTouchDatabaseAfterLoad()
+ */
+
+
+    @Test
+
+
+    void browseSchedule_ShouldNotTouchDatabaseAfterLoad() {
+        FilmSession evening = new FilmSession(2, 2, 1, startTime.plusHours(3), endTime.plusHours(3), 500);
+        withSchedule(testFilmSession, evening);
+
+        for (int i = 0; i < 100; i++) {
+            filmSessionService.findById(2);
+            filmSessionService.findByFilmAndDay(2, startTime.toLocalDate());
+            filmSessionService.findBetween(startTime, startTime.plusDays(1));
+        }
+
+        assertThat(filmSessionService.findByFilmAndDay(2, startTime.toLocalDate())).containsExactly(evening);
+        assertThat(filmSessionService.findBetween(startTime.plusMinutes(1), startTime.plusDays(1))).containsExactly(evening);
+        verify(filmSessionRepository, times(1)).findBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(filmSessionRepository, times(1)).findUpcoming(any(LocalDateTime.class), eq(1));
+        verifyNoMoreInteractions(filmSessionRepository);
+    }
+
+    /**
+ * Тестирует сценарий: find by id_ when session added after load_ should refresh its day
+ * 
+ * @see #findById_WhenSessionAddedAfterLoad_ShouldRefreshItsDay()
+ */
+
+
+    @Test
+
+
+    void findById_WhenSessionAddedAfterLoad_ShouldRefreshItsDay() {
+        FilmSession added = new FilmSession(2, 1, 1, startTime.plusHours(3), endTime.plusHours(3), 500);
+        withSchedule(testFilmSession);
+        when(filmSessionRepository.findByIdWithFilm(2)).thenReturn(Optional.of(added));
+        when(filmSessionRepository.findBetween(startTime.toLocalDate().atStartOfDay(), startTime.toLocalDate().plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(added, testFilmSession));
+
+        assertThat(filmSessionService.findById(2)).containsSame(added);
+        assertThat(filmSessionService.findById(2)).containsSame(added);
+
+        assertThat(filmSessionService.findByFilmAndDay(1, startTime.toLocalDate())).containsExactly(testFilmSession, added);
+        verify(filmSessionRepository, times(1)).findByIdWithFilm(2);
+    }
+
+    /**
+ * Тестирует сценарий: find by id_ when session outside window_ should not publish it
+ * 
+ * @see #findById_WhenSessionOutsideWindow_ShouldNotPublishIt()
+ */
+
+
+    @Test
+
+
+    void findById_WhenSessionOutsideWindow_ShouldNotPublishIt() {
+        LocalDateTime lastYear = startTime.minusYears(1);
+        FilmSession past = new FilmSession(2, 1, 1, lastYear, lastYear.plusHours(2), 500);
+        withSchedule(testFilmSession);
+        when(filmSessionRepository.findByIdWithFilm(2)).thenReturn(Optional.of(past));
+
+        assertThat(filmSessionService.findById(2)).containsSame(past);
+        assertThat(filmSessionService.findById(2)).containsSame(past);
+
+        assertThat(filmSessionService.findAll()).containsExactly(testFilmSession);
+        verify(filmSessionRepository, times(2)).findByIdWithFilm(2);
+        verify(filmSessionRepository, times(1)).findBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    /**
+ * Тестирует сценарий: reload_ should load only window around today
+ * 
+ * @see #reload_ShouldLoadOnlyWindowAroundToday()
+ */
+
+
+    @Test
+
+
+    void reload_ShouldLoadOnlyWindowAroundToday() {
+        LocalDate today = LocalDate.now();
+
+        withSchedule(testFilmSession);
+
+        verify(filmSessionRepository).findBetween(today.minusDays(1).atStartOfDay(), today.plusDays(31).atStartOfDay());
+        verify(filmSessionRepository).findUpcoming(today.plusDays(31).atStartOfDay(), 1);
+        verify(filmSessionRepository, never()).findAllWithFilm();
+    }
+
+    /**
+ * Тестирует сценарий: reload_ when schedule unchanged_ should not bump catalogue version
+ * 
+ * @see #reload_WhenScheduleUnchanged_ShouldNotBumpCatalogueVersion()
+ */
+
+
+    @Test
+
+
+    void reload_WhenScheduleUnchanged_ShouldNotBumpCatalogueVersion() {
+        CatalogueVersion catalogueVersion = new CatalogueVersion();
+        ScheduleCache scheduleCache = withSchedule(catalogueVersion, testFilmSession);
+        long loaded = catalogueVersion.currentSchedule();
+
+        when(filmSessionRepository.findBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(new FilmSession(1, 1, 1, startTime, endTime, 500)));
+        scheduleCache.reload();
+        scheduleCache.refreshDay(startTime.toLocalDate());
+
+        assertThat(catalogueVersion.currentSchedule()).isEqualTo(loaded);
+
+        when(filmSessionRepository.findBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(new FilmSession(1, 1, 1, startTime, endTime, 600)));
+        scheduleCache.reload();
+
+        assertThat(catalogueVersion.currentSchedule()).isGreaterThan(loaded);
+    }
+
+    /**
+ * Тестирует сценарий: find page_ when page reaches window end_ should read database
+ * 
+ * @see #findPage_WhenPageReachesWindowEnd_ShouldReadDatabase()
+ */
+
+
+    @Test
+
+
+    void findPage_WhenPageReachesWindowEnd_ShouldReadDatabase() {
+        LocalDateTime later = LocalDate.now().plusDays(60).atTime(18, 0);
+        FilmSession tomorrow = new FilmSession(2, 1, 1, startTime.plusDays(2), endTime.plusDays(2), 500);
+        FilmSession beyondWindow = new FilmSession(3, 1, 1, later, later.plusHours(2), 500);
+        when(filmSessionRepository.findBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(tomorrow));
+        when(filmSessionRepository.findUpcoming(any(LocalDateTime.class), eq(1))).thenReturn(List.of(beyondWindow));
+        var scheduleCache = new ScheduleCache(filmSessionRepository, new CatalogueVersion(),
+                mock(SeatOccupancyIndex.class), sessionSeatCounters, 0, 1, 30);
+        scheduleCache.start();
+        filmSessionService = new SimpleFilmSessionService(filmSessionRepository, scheduleCache, sessionSeatCounters);
+        when(filmSessionRepository.findPageWithFilm(any(LocalDateTime.class), eq(0), eq(3)))
+                .thenReturn(List.of(tomorrow, beyondWindow));
+
+        KeysetPage<FilmSession> page = filmSessionService.findPage(null, 0, 2);
+
+        assertThat(page.getItems()).containsExactly(tomorrow, beyondWindow);
+        assertFalse(page.hasNext());
+    }
 }
\ No newline at end of file
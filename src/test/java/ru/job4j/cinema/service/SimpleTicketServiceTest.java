@@ -4,13 +4,32 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.job4j.cinema.dto.GroupReservationResult;
+import ru.job4j.cinema.dto.ReservationStatus;
+import ru.job4j.cinema.dto.SeatMap;
+import ru.job4j.cinema.model.Seat;
 import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.repository.UnitOfWork;
 import ru.job4j.cinema.repository.ticket.TicketRepository;
+import ru.job4j.cinema.service.session.SessionSeatCounters;
+import ru.job4j.cinema.service.ticket.ReservationMailboxes;
+import ru.job4j.cinema.service.ticket.SeatHold;
+import ru.job4j.cinema.service.ticket.SeatHoldRegistry;
+import ru.job4j.cinema.service.ticket.SeatOccupancy;
+import ru.job4j.cinema.service.ticket.SeatOccupancyIndex;
 import ru.job4j.cinema.service.ticket.SimpleTicketService;
+import ru.job4j.cinema.service.ticket.TicketJournal;
 
+import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +42,24 @@ class SimpleTicketServiceTest {
     @Mock
     private TicketRepository ticketRepository;
 
+    @Mock
+    private SeatOccupancyIndex seatOccupancyIndex;
+
+    @Mock
+    private SeatHoldRegistry seatHoldRegistry;
+
+    @Mock
+    private ReservationMailboxes reservationMailboxes;
+
+    @Mock
+    private TicketJournal ticketJournal;
+
+    @Mock
+    private SessionSeatCounters sessionSeatCounters;
+
+    @Spy
+    private UnitOfWork unitOfWork = new UnitOfWork(mock(DataSource.class));
+
     @InjectMocks
     private SimpleTicketService ticketService;
 
@@ -37,11 +74,12 @@ class SimpleTicketServiceTest {
 
 
     void reserveTicket_WhenReservationSuccessful_ShouldReturnTrue() {
-        when(ticketRepository.reserveTicket(1, 5, 10, 100)).thenReturn(true);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
+        when(ticketRepository.reserveTicket(1, 5, 10, 100)).thenReturn(ReservationStatus.RESERVED);
 
-        boolean result = ticketService.reserveTicket(1, 5, 10, 100);
+        ReservationStatus result = ticketService.reserveTicket(1, 5, 10, 100);
 
-        assertTrue(result);
+        assertEquals(ReservationStatus.RESERVED, result);
         verify(ticketRepository, times(1)).reserveTicket(1, 5, 10, 100);
     }
 
@@ -56,14 +94,36 @@ class SimpleTicketServiceTest {
 
 
     void reserveTicket_WhenReservationFailed_ShouldReturnFalse() {
-        when(ticketRepository.reserveTicket(1, 5, 10, 100)).thenReturn(false);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
+        when(ticketRepository.reserveTicket(1, 5, 10, 100)).thenReturn(ReservationStatus.SEAT_TAKEN);
 
-        boolean result = ticketService.reserveTicket(1, 5, 10, 100);
+        ReservationStatus result = ticketService.reserveTicket(1, 5, 10, 100);
 
-        assertFalse(result);
+        assertEquals(ReservationStatus.SEAT_TAKEN, result);
         verify(ticketRepository, times(1)).reserveTicket(1, 5, 10, 100);
     }
 
+    /**
+ * Тестирует сценарий: reserve ticket_ when insert fails_ should invalidate occupancy and not count sale
+ * 
+ * @see #reserveTicket_WhenInsertFails_ShouldInvalidateOccupancyAndNotCountSale()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenInsertFails_ShouldInvalidateOccupancyAndNotCountSale() {
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
+        when(ticketRepository.reserveTicket(1, 5, 10, 100)).thenThrow(new IllegalStateException("connection lost"));
+
+        assertThrows(IllegalStateException.class, () -> ticketService.reserveTicket(1, 5, 10, 100));
+
+        verify(unitOfWork).inTransaction(any());
+        verify(seatOccupancyIndex).invalidate(1);
+        verifyNoInteractions(sessionSeatCounters);
+    }
+
     /**
  * Тестирует сценарий: корректность возвращаемых данных при find by user id_ when tickets exist_ should return tickets
  * 
@@ -119,8 +179,9 @@ class SimpleTicketServiceTest {
 
 
     void reserveTicket_WithDifferentParameters_ShouldCallRepositoryWithCorrectParams() {
+        when(seatOccupancyIndex.findBySessionId(3)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
         when(ticketRepository.reserveTicket(anyInt(), anyInt(), anyInt(), anyInt()))
-                .thenReturn(true);
+                .thenReturn(ReservationStatus.RESERVED);
 
         ticketService.reserveTicket(3, 4, 5, 200);
 
@@ -156,11 +217,12 @@ class SimpleTicketServiceTest {
 
 
     void reserveTicket_WithMinimumValues_ShouldWork() {
-        when(ticketRepository.reserveTicket(1, 1, 1, 1)).thenReturn(true);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(1, 1)));
+        when(ticketRepository.reserveTicket(1, 1, 1, 1)).thenReturn(ReservationStatus.RESERVED);
 
-        boolean result = ticketService.reserveTicket(1, 1, 1, 1);
+        ReservationStatus result = ticketService.reserveTicket(1, 1, 1, 1);
 
-        assertTrue(result);
+        assertEquals(ReservationStatus.RESERVED, result);
         verify(ticketRepository, times(1)).reserveTicket(1, 1, 1, 1);
     }
 
@@ -175,13 +237,562 @@ class SimpleTicketServiceTest {
 
 
     void methods_ShouldDirectlyDelegateToRepository() {
-        when(ticketRepository.reserveTicket(1, 2, 3, 4)).thenReturn(true);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
+        when(ticketRepository.reserveTicket(1, 2, 3, 4)).thenReturn(ReservationStatus.RESERVED);
         when(ticketRepository.findByUserId(5)).thenReturn(List.of(new Ticket(1, 1, 2, 3, 5)));
 
-        boolean reserveResult = ticketService.reserveTicket(1, 2, 3, 4);
+        ReservationStatus reserveResult = ticketService.reserveTicket(1, 2, 3, 4);
         Collection<Ticket> findResult = ticketService.findByUserId(5);
 
-        assertTrue(reserveResult);
+        assertEquals(ReservationStatus.RESERVED, reserveResult);
         assertThat(findResult).hasSize(1);
     }
-}
\ No newline at end of file
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when seat occupied in index_ should not call repository
+ * 
+ * @see #reserveTicket_WhenSeatOccupiedInIndex_ShouldNotCallRepository()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenSeatOccupiedInIndex_ShouldNotCallRepository() {
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        occupancy.occupy(5, 10);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+
+        ReservationStatus result = ticketService.reserveTicket(1, 5, 10, 100);
+
+        assertEquals(ReservationStatus.SEAT_TAKEN, result);
+        verify(ticketRepository, never()).reserveTicket(anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when reservation successful_ should mark seat in index
+ * 
+ * @see #reserveTicket_WhenReservationSuccessful_ShouldMarkSeatInIndex()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenReservationSuccessful_ShouldMarkSeatInIndex() {
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        when(ticketRepository.reserveTicket(1, 5, 10, 100)).thenReturn(ReservationStatus.RESERVED);
+
+        ReservationStatus result = ticketService.reserveTicket(1, 5, 10, 100);
+
+        assertEquals(ReservationStatus.RESERVED, result);
+        assertTrue(occupancy.isOccupied(5, 10));
+        assertThat(occupancy.getOccupiedCount()).isEqualTo(1);
+        verify(sessionSeatCounters).increment(1, 1);
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when seat taken in database_ should mark seat in index
+ * 
+ * @see #reserveTicket_WhenSeatTakenInDatabase_ShouldMarkSeatInIndex()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenSeatTakenInDatabase_ShouldMarkSeatInIndex() {
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        when(ticketRepository.reserveTicket(1, 5, 10, 100)).thenReturn(ReservationStatus.SEAT_TAKEN);
+
+        ReservationStatus result = ticketService.reserveTicket(1, 5, 10, 100);
+
+        assertEquals(ReservationStatus.SEAT_TAKEN, result);
+        assertTrue(occupancy.isOccupied(5, 10));
+        verifyNoInteractions(sessionSeatCounters);
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when session not found_ should return session not found
+ * 
+ * @see #reserveTicket_WhenSessionNotFound_ShouldReturnSessionNotFound()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenSessionNotFound_ShouldReturnSessionNotFound() {
+        when(seatOccupancyIndex.findBySessionId(99)).thenReturn(Optional.empty());
+
+        ReservationStatus result = ticketService.reserveTicket(99, 5, 10, 100);
+
+        assertEquals(ReservationStatus.SESSION_NOT_FOUND, result);
+        verify(ticketRepository, never()).reserveTicket(anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when seat out of hall_ should return out of hall bounds
+ * 
+ * @see #reserveTicket_WhenSeatOutOfHall_ShouldReturnOutOfHallBounds()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenSeatOutOfHall_ShouldReturnOutOfHallBounds() {
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
+
+        ReservationStatus result = ticketService.reserveTicket(1, 11, 16, 100);
+
+        assertEquals(ReservationStatus.OUT_OF_HALL_BOUNDS, result);
+        verify(ticketRepository, never()).reserveTicket(anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: find seat map_ should mark occupied seats unavailable
+ * 
+ * @see #findSeatMap_ShouldMarkOccupiedSeatsUnavailable()
+ */
+
+
+    @Test
+
+
+    void findSeatMap_ShouldMarkOccupiedSeatsUnavailable() {
+        SeatOccupancy occupancy = new SeatOccupancy(3, 4);
+        occupancy.occupy(2, 3);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+
+        Optional<SeatMap> result = ticketService.findSeatMap(1);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getRowCount()).isEqualTo(3);
+        assertThat(result.get().getPlaceCount()).isEqualTo(4);
+        assertFalse(result.get().isAvailable(2, 3));
+        assertTrue(result.get().isAvailable(3, 4));
+        assertThat(result.get().getFreeCount()).isEqualTo(11);
+
+        occupancy.occupy(3, 4);
+        assertTrue(result.get().isAvailable(3, 4));
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets_ when seat occupied in index_ should report conflict without repository
+ * 
+ * @see #reserveTickets_WhenSeatOccupiedInIndex_ShouldReportConflictWithoutRepository()
+ */
+
+
+    @Test
+
+
+    void reserveTickets_WhenSeatOccupiedInIndex_ShouldReportConflictWithoutRepository() {
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        occupancy.occupy(2, 2);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        List<Seat> seats = List.of(new Seat(2, 1), new Seat(2, 2), new Seat(2, 3));
+
+        GroupReservationResult result = ticketService.reserveTickets(1, seats, 100);
+
+        assertFalse(result.isReserved());
+        assertThat(result.getConflicts()).containsExactly(new Seat(2, 2));
+        verify(ticketRepository, never()).reserveTickets(anyInt(), anyList(), anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets_ with duplicate seats_ should report duplicate as conflict
+ * 
+ * @see #reserveTickets_WithDuplicateSeats_ShouldReportDuplicateAsConflict()
+ */
+
+
+    @Test
+
+
+    void reserveTickets_WithDuplicateSeats_ShouldReportDuplicateAsConflict() {
+        List<Seat> seats = List.of(new Seat(2, 1), new Seat(2, 1));
+
+        GroupReservationResult result = ticketService.reserveTickets(1, seats, 100);
+
+        assertFalse(result.isReserved());
+        assertThat(result.getConflicts()).containsExactly(new Seat(2, 1));
+        verify(ticketRepository, never()).reserveTickets(anyInt(), anyList(), anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets_ when reservation successful_ should mark all seats in index
+ * 
+ * @see #reserveTickets_WhenReservationSuccessful_ShouldMarkAllSeatsInIndex()
+ */
+
+
+    @Test
+
+
+    void reserveTickets_WhenReservationSuccessful_ShouldMarkAllSeatsInIndex() {
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        List<Seat> seats = List.of(new Seat(2, 1), new Seat(2, 2));
+        when(ticketRepository.reserveTickets(1, seats, 100)).thenReturn(GroupReservationResult.reserved(seats));
+
+        GroupReservationResult result = ticketService.reserveTickets(1, seats, 100);
+
+        assertTrue(result.isReserved());
+        assertTrue(occupancy.isOccupied(2, 1));
+        assertTrue(occupancy.isOccupied(2, 2));
+        verify(sessionSeatCounters).increment(1, 2);
+        assertThat(occupancy.getOccupiedCount()).isEqualTo(2);
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets_ when seat outside hall_ should reject without repository
+ * 
+ * @see #reserveTickets_WhenSeatOutsideHall_ShouldRejectWithoutRepository()
+ */
+
+
+    @Test
+
+
+    void reserveTickets_WhenSeatOutsideHall_ShouldRejectWithoutRepository() {
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
+        List<Seat> seats = List.of(new Seat(2, 1), new Seat(99, 99));
+
+        GroupReservationResult result = ticketService.reserveTickets(1, seats, 100);
+
+        assertFalse(result.isReserved());
+        assertEquals(ReservationStatus.OUT_OF_HALL_BOUNDS, result.getStatus());
+        assertThat(result.getConflicts()).containsExactly(new Seat(99, 99));
+        verify(ticketRepository, never()).reserveTickets(anyInt(), anyList(), anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets_ when seats held by buyer_ should release holds after purchase
+ * 
+ * @see #reserveTickets_WhenSeatsHeldByBuyer_ShouldReleaseHoldsAfterPurchase()
+ */
+
+
+    @Test
+
+
+    void reserveTickets_WhenSeatsHeldByBuyer_ShouldReleaseHoldsAfterPurchase() {
+        SeatHold hold = new SeatHold(1, 2, 1, 100, Long.MAX_VALUE);
+        List<Seat> seats = List.of(new Seat(2, 1), new Seat(2, 2));
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
+        when(seatHoldRegistry.find(1, 2, 1)).thenReturn(Optional.of(hold));
+        when(ticketRepository.reserveTickets(1, seats, 100)).thenReturn(GroupReservationResult.reserved(seats));
+
+        GroupReservationResult result = ticketService.reserveTickets(1, seats, 100);
+
+        assertTrue(result.isReserved());
+        verify(seatHoldRegistry).release(hold);
+    }
+
+    /**
+ * Тестирует сценарий: hold seat_ when seat free_ should place hold
+ * 
+ * @see #holdSeat_WhenSeatFree_ShouldPlaceHold()
+ */
+
+
+    @Test
+
+
+    void holdSeat_WhenSeatFree_ShouldPlaceHold() {
+        SeatHold hold = new SeatHold(1, 2, 3, 100, 1000L);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
+        when(seatHoldRegistry.hold(1, 2, 3, 100)).thenReturn(Optional.of(hold));
+
+        Optional<SeatHold> result = ticketService.holdSeat(1, 2, 3, 100);
+
+        assertThat(result).contains(hold);
+    }
+
+    /**
+ * Тестирует сценарий: hold seat_ when seat sold or out of hall_ should not place hold
+ * 
+ * @see #holdSeat_WhenSeatSoldOrOutOfHall_ShouldNotPlaceHold()
+ */
+
+
+    @Test
+
+
+    void holdSeat_WhenSeatSoldOrOutOfHall_ShouldNotPlaceHold() {
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        occupancy.occupy(2, 3);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+
+        assertThat(ticketService.holdSeat(1, 2, 3, 100)).isEmpty();
+        assertThat(ticketService.holdSeat(1, 11, 3, 100)).isEmpty();
+        verify(seatHoldRegistry, never()).hold(anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when seat held by other user_ should return false
+ * 
+ * @see #reserveTicket_WhenSeatHeldByOtherUser_ShouldReturnFalse()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenSeatHeldByOtherUser_ShouldReturnFalse() {
+        when(seatHoldRegistry.find(1, 2, 3)).thenReturn(Optional.of(new SeatHold(1, 2, 3, 200, Long.MAX_VALUE)));
+
+        ReservationStatus result = ticketService.reserveTicket(1, 2, 3, 100);
+
+        assertEquals(ReservationStatus.SEAT_TAKEN, result);
+        verify(ticketRepository, never()).reserveTicket(anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when seat held by same user_ should confirm hold
+ * 
+ * @see #reserveTicket_WhenSeatHeldBySameUser_ShouldConfirmHold()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenSeatHeldBySameUser_ShouldConfirmHold() {
+        SeatHold hold = new SeatHold(1, 2, 3, 100, Long.MAX_VALUE);
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        when(seatHoldRegistry.find(1, 2, 3)).thenReturn(Optional.of(hold));
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        when(ticketRepository.reserveTicket(1, 2, 3, 100)).thenReturn(ReservationStatus.RESERVED);
+
+        ReservationStatus result = ticketService.reserveTicket(1, 2, 3, 100);
+
+        assertEquals(ReservationStatus.RESERVED, result);
+        assertTrue(occupancy.isOccupied(2, 3));
+        verify(seatHoldRegistry).release(hold);
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when seat held by same user_ should skip occupancy pre-check
+ * 
+ * @see #reserveTicket_WhenSeatHeldBySameUser_ShouldSkipOccupancyPreCheck()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenSeatHeldBySameUser_ShouldSkipOccupancyPreCheck() {
+        SeatHold hold = new SeatHold(1, 2, 3, 100, Long.MAX_VALUE);
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        occupancy.occupy(2, 3);
+        when(seatHoldRegistry.find(1, 2, 3)).thenReturn(Optional.of(hold));
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        when(ticketRepository.reserveTicket(1, 2, 3, 100)).thenReturn(ReservationStatus.SEAT_TAKEN);
+
+        ReservationStatus result = ticketService.reserveTicket(1, 2, 3, 100);
+
+        assertEquals(ReservationStatus.SEAT_TAKEN, result);
+        verify(ticketRepository).reserveTicket(1, 2, 3, 100);
+    }
+
+    /**
+ * Тестирует сценарий: find seat map_ should mark held seats unavailable
+ * 
+ * @see #findSeatMap_ShouldMarkHeldSeatsUnavailable()
+ */
+
+
+    @Test
+
+
+    void findSeatMap_ShouldMarkHeldSeatsUnavailable() {
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(3, 4)));
+        when(seatHoldRegistry.findBySessionId(1)).thenReturn(List.of(new SeatHold(1, 3, 1, 100, Long.MAX_VALUE)));
+
+        SeatMap seatMap = ticketService.findSeatMap(1).orElseThrow();
+
+        assertFalse(seatMap.isAvailable(3, 1));
+        assertTrue(seatMap.isAvailable(2, 4));
+    }
+
+    /**
+ * Тестирует сценарий: reserve best available_ when hall has free block_ should reserve central seats
+ * 
+ * @see #reserveBestAvailable_WhenHallHasFreeBlock_ShouldReserveCentralSeats()
+ */
+
+
+    @Test
+
+
+    void reserveBestAvailable_WhenHallHasFreeBlock_ShouldReserveCentralSeats() {
+        SeatOccupancy occupancy = new SeatOccupancy(3, 6);
+        List<Seat> central = List.of(new Seat(2, 3), new Seat(2, 4));
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        when(ticketRepository.reserveTickets(1, central, 100)).thenReturn(GroupReservationResult.reserved(central));
+
+        GroupReservationResult result = ticketService.reserveBestAvailable(1, 2, 100);
+
+        assertTrue(result.isReserved());
+        assertThat(result.getSeats()).isEqualTo(central);
+        assertTrue(occupancy.isOccupied(2, 3));
+    }
+
+    /**
+ * Тестирует сценарий: reserve best available_ when block lost to concurrent buyer_ should retry with next block
+ * 
+ * @see #reserveBestAvailable_WhenBlockLostToConcurrentBuyer_ShouldRetryWithNextBlock()
+ */
+
+
+    @Test
+
+
+    void reserveBestAvailable_WhenBlockLostToConcurrentBuyer_ShouldRetryWithNextBlock() {
+        SeatOccupancy occupancy = new SeatOccupancy(3, 6);
+        List<Seat> central = List.of(new Seat(2, 3), new Seat(2, 4));
+        List<Seat> next = List.of(new Seat(1, 3), new Seat(1, 4));
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        when(ticketRepository.reserveTickets(1, central, 100))
+                .thenReturn(GroupReservationResult.conflicted(central, List.of(new Seat(2, 4))));
+        when(ticketRepository.reserveTickets(1, next, 100)).thenReturn(GroupReservationResult.reserved(next));
+
+        GroupReservationResult result = ticketService.reserveBestAvailable(1, 2, 100);
+
+        assertTrue(result.isReserved());
+        assertThat(result.getSeats()).isEqualTo(next);
+    }
+
+    /**
+ * Тестирует сценарий: reserve best available_ when no block fits_ should not call repository
+ * 
+ * @see #reserveBestAvailable_WhenNoBlockFits_ShouldNotCallRepository()
+ */
+
+
+    @Test
+
+
+    void reserveBestAvailable_WhenNoBlockFits_ShouldNotCallRepository() {
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(3, 6)));
+
+        GroupReservationResult result = ticketService.reserveBestAvailable(1, 7, 100);
+
+        assertFalse(result.isReserved());
+        assertThat(result.getSeats()).isEmpty();
+        verify(ticketRepository, never()).reserveTickets(anyInt(), anyList(), anyInt());
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket async_ should decide reservation in session mailbox
+ * 
+ * @see #reserveTicketAsync_ShouldDecideReservationInSessionMailbox()
+ */
+
+
+    @Test
+
+
+    void reserveTicketAsync_ShouldDecideReservationInSessionMailbox() {
+        List<Runnable> mailbox = new ArrayList<>();
+        when(reservationMailboxes.forSession(1)).thenReturn(mailbox::add);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(new SeatOccupancy(10, 15)));
+        when(ticketRepository.reserveTicket(1, 5, 10, 100)).thenReturn(ReservationStatus.RESERVED);
+
+        CompletableFuture<ReservationStatus> result = ticketService.reserveTicketAsync(1, 5, 10, 100);
+
+        assertFalse(result.isDone());
+        verifyNoInteractions(ticketRepository);
+        mailbox.forEach(Runnable::run);
+        assertEquals(ReservationStatus.RESERVED, result.join());
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when journal enabled_ should acknowledge after journal append
+ * 
+ * @see #reserveTicket_WhenJournalEnabled_ShouldAcknowledgeAfterJournalAppend()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenJournalEnabled_ShouldAcknowledgeAfterJournalAppend() {
+        givenSessionLock();
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        when(ticketJournal.isEnabled()).thenReturn(true);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        when(ticketJournal.append(1, List.of(new Seat(5, 10)), 100)).thenReturn(CompletableFuture.completedFuture(null));
+
+        ReservationStatus first = ticketService.reserveTicket(1, 5, 10, 100);
+        ReservationStatus second = ticketService.reserveTicket(1, 5, 10, 200);
+
+        assertEquals(ReservationStatus.RESERVED, first);
+        assertEquals(ReservationStatus.SEAT_TAKEN, second);
+        assertTrue(occupancy.isOccupied(5, 10));
+        verify(ticketJournal, times(1)).append(anyInt(), anyList(), anyInt());
+        verifyNoInteractions(ticketRepository);
+    }
+
+    /**
+ * Тестирует сценарий: reserve ticket_ when journal append fails_ should release seat
+ * 
+ * @see #reserveTicket_WhenJournalAppendFails_ShouldReleaseSeat()
+ */
+
+
+    @Test
+
+
+    void reserveTicket_WhenJournalAppendFails_ShouldReleaseSeat() {
+        givenSessionLock();
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        when(ticketJournal.isEnabled()).thenReturn(true);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        when(ticketJournal.append(1, List.of(new Seat(5, 10)), 100))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("disk full")));
+
+        assertThrows(CompletionException.class, () -> ticketService.reserveTicket(1, 5, 10, 100));
+        assertFalse(occupancy.isOccupied(5, 10));
+    }
+
+    /**
+ * Тестирует сценарий: reserve tickets_ when journal enabled and seat claimed concurrently_ should release claimed seats
+ * 
+ * @see #reserveTickets_WhenJournalEnabledAndSeatClaimedConcurrently_ShouldReleaseClaimedSeats()
+ */
+
+
+    @Test
+
+
+    void reserveTickets_WhenJournalEnabledAndSeatClaimedConcurrently_ShouldReleaseClaimedSeats() {
+        givenSessionLock();
+        SeatOccupancy occupancy = new SeatOccupancy(10, 15);
+        List<Seat> seats = List.of(new Seat(2, 1), new Seat(2, 2));
+        when(ticketJournal.isEnabled()).thenReturn(true);
+        when(seatOccupancyIndex.findBySessionId(1)).thenReturn(Optional.of(occupancy));
+        when(seatHoldRegistry.find(anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            if (invocation.<Integer>getArgument(2) == 2) {
+                occupancy.occupy(2, 2);
+            }
+            return Optional.empty();
+        });
+
+        GroupReservationResult result = ticketService.reserveTickets(1, seats, 100);
+
+        assertFalse(result.isReserved());
+        assertThat(result.getConflicts()).containsExactly(new Seat(2, 2));
+        assertFalse(occupancy.isOccupied(2, 1));
+        verify(ticketJournal, never()).append(anyInt(), anyList(), anyInt());
+    }
+
+    private void givenSessionLock() {
+        when(seatOccupancyIndex.withSessionLock(eq(1), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+    }
+}
@@ -0,0 +1,184 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.job4j.cinema.model.Seat;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.repository.ticket.TicketRepository;
+import ru.job4j.cinema.service.ticket.TicketJournal;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class TicketJournalTest {
+
+    private static final long NEVER = 3_600_000L;
+
+    @TempDir
+    private Path directory;
+
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final List<Ticket> saved = new ArrayList<>();
+    private TicketJournal journal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (journal != null) {
+            journal.stop();
+        }
+    }
+
+    /**
+ * Тестирует сценарий: append_ should complete only after flush
+ *
+ * @see #append_ShouldCompleteOnlyAfterFlush()
+ */
+
+
+    @Test
+
+
+    void append_ShouldCompleteOnlyAfterFlush() throws IOException {
+        journal = startJournal();
+
+        CompletableFuture<Void> first = journal.append(1, List.of(new Seat(2, 3)), 100);
+        CompletableFuture<Void> second = journal.append(1, List.of(new Seat(2, 4), new Seat(2, 5)), 200);
+
+        assertThat(first).isNotDone();
+        assertThat(journal.findPendingSeats(1)).containsExactlyInAnyOrder(new Seat(2, 3), new Seat(2, 4), new Seat(2, 5));
+        journal.flush();
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+        assertThat(Files.size(journalFile())).isEqualTo(72);
+    }
+
+    /**
+ * Тестирует сценарий: drain_ should save tickets and compact journal
+ *
+ * @see #drain_ShouldSaveTicketsAndCompactJournal()
+ */
+
+
+    @Test
+
+
+    void drain_ShouldSaveTicketsAndCompactJournal() throws IOException {
+        journal = startJournal();
+        journal.append(1, List.of(new Seat(2, 3)), 100);
+        journal.append(2, List.of(new Seat(1, 1)), 200);
+        journal.flush();
+
+        assertThat(journal.drain()).isEqualTo(2);
+        assertThat(journal.drain()).isZero();
+
+        assertThat(saved)
+                .extracting(Ticket::getSessionId, Ticket::getRowNumber, Ticket::getPlaceNumber, Ticket::getUserId)
+                .containsExactly(tuple(1, 2, 3, 100), tuple(2, 1, 1, 200));
+        assertThat(journal.findPendingSeats(1)).isEmpty();
+        assertThat(Files.size(journalFile())).isZero();
+    }
+
+    /**
+ * Тестирует сценарий: start_ after crash_ should replay journal and drop torn tail
+ *
+ * @see #start_AfterCrash_ShouldReplayJournalAndDropTornTail()
+ */
+
+
+    @Test
+
+
+    void start_AfterCrash_ShouldReplayJournalAndDropTornTail() throws IOException {
+        TicketJournal crashed = startJournal();
+        crashed.append(3, List.of(new Seat(4, 5), new Seat(4, 6)), 300);
+        crashed.flush();
+        Files.write(journalFile(), new byte[] {1, 2, 3, 4, 5, 6, 7}, StandardOpenOption.APPEND);
+
+        journal = startJournal();
+
+        assertThat(saved).extracting(Ticket::getPlaceNumber).containsExactly(5, 6);
+        assertThat(journal.findPendingSeats(3)).isEmpty();
+        assertThat(Files.size(journalFile())).isZero();
+    }
+
+    /**
+ * Тестирует сценарий: drain_ when purchase crosses batch size_ should save it in one batch
+ *
+ * @see #drain_WhenPurchaseCrossesBatchSize_ShouldSaveItInOneBatch()
+ */
+
+
+    @Test
+
+
+    void drain_WhenPurchaseCrossesBatchSize_ShouldSaveItInOneBatch() throws IOException {
+        journal = startJournal(2);
+        journal.append(1, List.of(new Seat(1, 1)), 100);
+        journal.append(1, List.of(new Seat(2, 1), new Seat(2, 2), new Seat(2, 3)), 200);
+        journal.append(1, List.of(new Seat(3, 1)), 300);
+        journal.flush();
+
+        assertThat(journal.drain()).isEqualTo(4);
+        assertThat(journal.drain()).isEqualTo(1);
+
+        verify(ticketRepository, times(2)).saveAll(anyCollection());
+        assertThat(saved).extracting(Ticket::getUserId).containsExactly(100, 200, 200, 200, 300);
+    }
+
+    /**
+ * Тестирует сценарий: start_ when purchase torn midway_ should drop whole purchase
+ *
+ * @see #start_WhenPurchaseTornMidway_ShouldDropWholePurchase()
+ */
+
+
+    @Test
+
+
+    void start_WhenPurchaseTornMidway_ShouldDropWholePurchase() throws IOException {
+        TicketJournal crashed = startJournal();
+        crashed.append(1, List.of(new Seat(1, 1)), 100);
+        crashed.append(1, List.of(new Seat(2, 1), new Seat(2, 2)), 200);
+        crashed.flush();
+        try (var channel = FileChannel.open(journalFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(journalFile()) - 24);
+        }
+
+        journal = startJournal();
+
+        assertThat(saved).extracting(Ticket::getUserId).containsExactly(100);
+        assertThat(Files.size(journalFile())).isZero();
+    }
+
+    private TicketJournal startJournal() throws IOException {
+        return startJournal(500);
+    }
+
+    private TicketJournal startJournal(int batchSize) throws IOException {
+        when(ticketRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<Ticket> tickets = invocation.getArgument(0);
+            saved.addAll(tickets);
+            return tickets.size();
+        });
+        var ticketJournal = new TicketJournal(true, journalFile().toString(), NEVER, NEVER, batchSize, ticketRepository);
+        ticketJournal.start();
+        return ticketJournal;
+    }
+
+    private Path journalFile() {
+        return directory.resolve("tickets.journal");
+    }
+}
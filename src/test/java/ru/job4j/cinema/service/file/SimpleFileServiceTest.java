@@ -7,6 +7,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.job4j.cinema.dto.FileDto;
+import ru.job4j.cinema.dto.StoredFile;
 import ru.job4j.cinema.model.File;
 import ru.job4j.cinema.repository.file.FileRepository;
 
@@ -108,92 +109,95 @@ class SimpleFileServiceTest {
     }
 
     /**
- * Тестирует сценарий: успешное выполнение при get file by id_ when file exists_ should return file dto
+ * Тестирует сценарий: успешное выполнение при find stored file_ when file exists_ should return path and attributes
  * 
- * @see #getFileById_WhenFileExists_ShouldReturnFileDto()
+ * @see #findStoredFile_WhenFileExists_ShouldReturnPathAndAttributes()
  */
 
 
     @Test
 
 
-    void getFileById_WhenFileExists_ShouldReturnFileDto() throws IOException {
+    void findStoredFile_WhenFileExists_ShouldReturnPathAndAttributes() throws IOException {
         Files.write(Path.of(savedFile.getPath()), testFileDto.getContent());
         when(fileRepository.findById(1)).thenReturn(Optional.of(savedFile));
 
-        Optional<FileDto> result = fileService.getFileById(1);
+        Optional<StoredFile> result = fileService.findStoredFile(1);
 
         assertTrue(result.isPresent());
-        assertEquals(savedFile.getName(), result.get().getName());
-        assertArrayEquals(testFileDto.getContent(), result.get().getContent());
+        assertEquals(Path.of(savedFile.getPath()), result.get().getPath());
+        assertEquals(testFileDto.getContent().length, result.get().getSize());
+        assertEquals(File.DEFAULT_CONTENT_TYPE, result.get().getContentType());
         verify(fileRepository, times(1)).findById(1);
     }
 
     /**
- * Тестирует сценарий: успешное выполнение при get file by id_ when file not exists in database_ should return empty
+ * Тестирует сценарий: успешное выполнение при find stored file_ when file not exists in database_ should return empty
  * 
- * @see #getFileById_WhenFileNotExistsInDatabase_ShouldReturnEmpty()
+ * @see #findStoredFile_WhenFileNotExistsInDatabase_ShouldReturnEmpty()
  */
 
 
     @Test
 
 
-    void getFileById_WhenFileNotExistsInDatabase_ShouldReturnEmpty() {
+    void findStoredFile_WhenFileNotExistsInDatabase_ShouldReturnEmpty() {
         when(fileRepository.findById(1)).thenReturn(Optional.empty());
 
-        Optional<FileDto> result = fileService.getFileById(1);
+        Optional<StoredFile> result = fileService.findStoredFile(1);
 
         assertTrue(result.isEmpty());
         verify(fileRepository, times(1)).findById(1);
     }
 
     /**
- * Тестирует сценарий: успешное выполнение при get file by id_ when file exists but physical file missing_ should throw runtime exception
+ * Тестирует сценарий: успешное выполнение при find stored file_ when file exists but physical file missing_ should throw runtime exception
  * 
- * @see #getFileById_WhenFileExistsButPhysicalFileMissing_ShouldThrowRuntimeException()
+ * @see #findStoredFile_WhenFileExistsButPhysicalFileMissing_ShouldThrowRuntimeException()
  */
 
 
     @Test
 
 
-    void getFileById_WhenFileExistsButPhysicalFileMissing_ShouldThrowRuntimeException() {
+    void findStoredFile_WhenFileExistsButPhysicalFileMissing_ShouldThrowRuntimeException() {
         when(fileRepository.findById(1)).thenReturn(Optional.of(savedFile));
 
         RuntimeException exception = assertThrows(RuntimeException.class,
-                () -> fileService.getFileById(1));
+                () -> fileService.findStoredFile(1));
 
         assertTrue(exception.getMessage().contains("Failed to read file"));
         verify(fileRepository, times(1)).findById(1);
     }
 
     /**
- * Тестирует сценарий: get file by id_ with different ids_ should work correctly
+ * Тестирует сценарий: find stored file_ with different ids_ should work correctly
  * 
- * @see #getFileById_WithDifferentIds_ShouldWorkCorrectly()
+ * @see #findStoredFile_WithDifferentIds_ShouldWorkCorrectly()
  */
 
 
     @Test
 
 
-    void getFileById_WithDifferentIds_ShouldWorkCorrectly() throws IOException {
+    void findStoredFile_WithDifferentIds_ShouldWorkCorrectly() throws IOException {
         File anotherFile = new File();
         anotherFile.setId(2);
         anotherFile.setName("another.jpg");
         anotherFile.setPath(tempDir + "/another.jpg");
+        anotherFile.setContentType("image/jpeg");
 
         byte[] anotherContent = "another content".getBytes();
         Files.write(Path.of(anotherFile.getPath()), anotherContent);
 
         when(fileRepository.findById(2)).thenReturn(Optional.of(anotherFile));
 
-        Optional<FileDto> result = fileService.getFileById(2);
+        Optional<StoredFile> result = fileService.findStoredFile(2);
 
         assertThat(result).isPresent();
-        assertThat(result.get().getName()).isEqualTo("another.jpg");
-        assertThat(result.get().getContent()).isEqualTo(anotherContent);
+        assertThat(result.get().getId()).isEqualTo(2);
+        assertThat(result.get().getContentType()).isEqualTo("image/jpeg");
+        assertThat(result.get().getSize()).isEqualTo(anotherContent.length);
     }
 
     /**
@@ -273,23 +277,58 @@ class SimpleFileServiceTest {
     }
 
     /**
- * Тестирует сценарий: обработку ошибки при get file by id_ with invalid ids_ should return empty or throw
+ * Тестирует сценарий: обработку ошибки при find stored file_ with invalid ids_ should return empty or throw
  * 
- * @see #getFileById_WithInvalidIds_ShouldReturnEmptyOrThrow()
+ * @see #findStoredFile_WithInvalidIds_ShouldReturnEmptyOrThrow()
  */
 
 
     @Test
 
 
-    void getFileById_WithInvalidIds_ShouldReturnEmptyOrThrow() {
+    void findStoredFile_WithInvalidIds_ShouldReturnEmptyOrThrow() {
         when(fileRepository.findById(-1)).thenReturn(Optional.empty());
         when(fileRepository.findById(0)).thenReturn(Optional.empty());
 
-        assertThat(fileService.getFileById(-1)).isEmpty();
-        assertThat(fileService.getFileById(0)).isEmpty();
+        assertThat(fileService.findStoredFile(-1)).isEmpty();
+        assertThat(fileService.findStoredFile(0)).isEmpty();
 
         verify(fileRepository, times(1)).findById(-1);
         verify(fileRepository, times(1)).findById(0);
     }
-}
\ No newline at end of file
+
+    /**
+ * Тестирует сценарий: save_ when png content_ should store detected content type
+ * 
+ * @see #save_WhenPngContent_ShouldStoreDetectedContentType()
+ */
+
+
+    @Test
+
+
+    void save_WhenPngContent_ShouldStoreDetectedContentType() {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D};
+        when(fileRepository.save(any(File.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        File result = fileService.save(new FileDto("poster.jpg", png));
+
+        assertThat(result.getContentType()).isEqualTo("image/png");
+    }
+
+    /**
+ * Тестирует сценарий: detect content type_ when content unknown_ should fall back to file name
+ * 
+ * @see #detectContentType_WhenContentUnknown_ShouldFallBackToFileName()
+ */
+
+
+    @Test
+
+
+    void detectContentType_WhenContentUnknown_ShouldFallBackToFileName() {
+        assertThat(SimpleFileService.detectContentType(testFileDto)).isEqualTo("text/plain");
+        assertThat(SimpleFileService.detectContentType(new FileDto("data", new byte[0])))
+                .isEqualTo(File.DEFAULT_CONTENT_TYPE);
+    }
+}